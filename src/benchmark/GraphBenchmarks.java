@@ -0,0 +1,237 @@
+package benchmark;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import puzzle.Board;
+import puzzle.Game;
+import puzzle.PackedBoard;
+import datastructures.BreadthFirstIterator;
+import datastructures.CompactGraph;
+import datastructures.Graph;
+import datastructures.GraphFile;
+import datastructures.Node;
+import datastructures.OffHeapGraph;
+
+/*
+ * Benchmarks of graph construction and traversals over graphs of different sizes and shapes:
+ * - puzzle: the whole 3 x 3 game (9! boards, two components);
+ * - random: sparse random graphs with n nodes and 2n edges;
+ * - grid: s x s grids, where each node is linked to its right and bottom neighbors;
+ * - star: a hub linked to every other node (construction only).
+ * Random graphs have edge weights in [1, 100], so Graph.dijkstra runs over real weights; the other graphs weigh 1 per edge.
+ * Usage: java benchmark.GraphBenchmarks [filter], to run only the benchmarks whose names contain "filter".
+ */
+public class GraphBenchmarks {
+
+	private static final int[] RANDOM_SIZES = { 10000, 100000 };
+	private static final int[] GRID_SIDES = { 100, 300 };
+	private static final int STAR_LEAVES = 100000;
+
+	public static void main(String[] args) throws Exception {
+		final Harness harness = new Harness(args.length > 0 ? args[0] : null);
+		final ForkJoinPool pool = new ForkJoinPool();
+		harness.printHeader();
+
+		// Puzzle boards:
+		final Board board = new Board("123405678");
+		final long packedBoard = board.toPacked();
+		final long[] neighbors = new long[PackedBoard.MAX_MOVES];
+		harness.run("Board.nextPossibleBoards", new Harness.Benchmark() {
+			public Object run() {
+				return board.nextPossibleBoards();
+			}
+		});
+		harness.run("PackedBoard.nextPossibleBoards", new Harness.Benchmark() {
+			public Object run() {
+				return PackedBoard.nextPossibleBoards(packedBoard, neighbors) + neighbors[0];
+			}
+		});
+
+		// Permutations:
+		harness.run("Math.permutate(8 chars)", new Harness.Benchmark() {
+			public Object run() {
+				return util.Math.permutate("01234567", 0);
+			}
+		});
+		harness.run("Math.permutations(8 chars)", new Harness.Benchmark() {
+			public Object run() {
+				int count = 0;
+				for (Iterator<String> it = util.Math.permutations("01234567").iterator(); it.hasNext(); it.next()) count++;
+				return count;
+			}
+		});
+
+		// Construction:
+		harness.run("Game.populate(puzzle)", new Harness.Benchmark() {
+			public Object run() {
+				Game game = new Game("Game");
+				game.populate(util.Math.permutations("012345678"), pool);
+				return game;
+			}
+		});
+		for (final int n : RANDOM_SIZES) {
+			final Node[][] edges = randomEdges(n, new Random(42));
+			harness.run("Graph.addEdge(random " + n + ")", new Harness.Benchmark() {
+				public Object run() {
+					return build("Random", edges);
+				}
+			});
+		}
+		for (final int side : GRID_SIDES) {
+			final Node[][] edges = gridEdges(side);
+			harness.run("Graph.addEdge(grid " + side + "x" + side + ")", new Harness.Benchmark() {
+				public Object run() {
+					return build("Grid", edges);
+				}
+			});
+		}
+
+		// A star: every edge is added to the adjacency list of the same hub, so duplicate checks must not scan it
+		final Node[][] starEdges = starEdges(STAR_LEAVES);
+		harness.run("Graph.addEdge(star " + STAR_LEAVES + ")", new Harness.Benchmark() {
+			public Object run() {
+				return build("Star", starEdges);
+			}
+		});
+
+		// Traversals:
+		if (harness.selected("(puzzle)")) {
+			Game game = new Game("Game");
+			game.populate(util.Math.permutations("012345678"), pool);
+			traversals(harness, pool, "puzzle", game, game.getNodeById(Board.SOLUTION), game.getNodeById("123456708"));
+			compactTraversals(harness, "puzzle", "", game.freeze(), game.getNodeById(Board.SOLUTION), game.getNodeById("123456708"));
+		}
+		for (int n : RANDOM_SIZES) {
+			if (!harness.selected("(random " + n + ")")) continue;
+			Graph graph = buildWeighted("Random", randomEdges(n, new Random(42)), new Random(7));
+			traversals(harness, pool, "random " + n, graph, graph.getNodeById("0"), graph.getNodeById(Integer.toString(n - 1)));
+			compactTraversals(harness, "random " + n, "", graph.freeze(), graph.getNodeById("0"), graph.getNodeById(Integer.toString(n - 1)));
+			// The same snapshot traversed from a memory-mapped file and from off-heap memory
+			File file = File.createTempFile("Random", ".graph");
+			file.deleteOnExit();
+			GraphFile.save(graph, file);
+			compactTraversals(harness, "random " + n, " mapped", GraphFile.load(file), graph.getNodeById("0"), graph.getNodeById(Integer.toString(n - 1)));
+			OffHeapGraph offHeap = new OffHeapGraph("Random", false);
+			for (Iterator<Node> it = graph.getNodes().iterator(); it.hasNext(); ) {
+				Node v = it.next();
+				offHeap.addNode(v.getId());
+				for (Iterator<Node> out = graph.getNeighbors(v).iterator(); out.hasNext(); ) offHeap.addEdge(v.getId(), out.next().getId());
+			}
+			compactTraversals(harness, "random " + n, " off-heap", offHeap.build(), graph.getNodeById("0"), graph.getNodeById(Integer.toString(n - 1)));
+		}
+		for (int side : GRID_SIDES) {
+			if (!harness.selected("(grid " + side + "x" + side + ")")) continue;
+			Graph graph = build("Grid", gridEdges(side));
+			traversals(harness, pool, "grid " + side + "x" + side, graph, graph.getNodeById("0"), graph.getNodeById(Integer.toString(side * side - 1)));
+			compactTraversals(harness, "grid " + side + "x" + side, "", graph.freeze(), graph.getNodeById("0"), graph.getNodeById(Integer.toString(side * side - 1)));
+		}
+		pool.shutdown();
+	}
+
+	// Runs the traversal benchmarks over a given graph, from node "source"; shortest paths go from "target" to "source"
+	private static void traversals(Harness harness, final ForkJoinPool pool, String shape, final Graph graph, final Node source, final Node target) throws Exception {
+		harness.run("Graph.dfs(" + shape + ")", new Harness.Benchmark() {
+			public Object run() {
+				return graph.dfs(source);
+			}
+		});
+		harness.run("Graph.bfs(" + shape + ")", new Harness.Benchmark() {
+			public Object run() {
+				return graph.bfs(source);
+			}
+		});
+		harness.run("Graph.bfs parallel(" + shape + ")", new Harness.Benchmark() {
+			public Object run() {
+				return graph.bfs(source, pool);
+			}
+		});
+		harness.run("Graph.bfs lazy to 3(" + shape + ")", new Harness.Benchmark() {
+			public Object run() {
+				BreadthFirstIterator nodes = graph.breadthFirstIterator(source);
+				int count = 0;
+				for (; nodes.hasNext() && nodes.getNextDistance() <= 3; count++) nodes.next();
+				return count;
+			}
+		});
+		harness.run("Graph.getShortestPath(" + shape + ")", new Harness.Benchmark() {
+			public Object run() {
+				return graph.getShortestPath(target, source); // not from the last BFS source, so no BFS tree is reused
+			}
+		});
+		harness.run("Graph.dijkstra(" + shape + ")", new Harness.Benchmark() {
+			public Object run() {
+				return graph.dijkstra(source);
+			}
+		});
+	}
+
+	// Runs the traversal benchmarks over a CSR snapshot, as traversals does over a Graph; "storage" tells where the snapshot lives, if not on the heap
+	private static void compactTraversals(Harness harness, String shape, String storage, final CompactGraph graph, final Node source, final Node target) throws Exception {
+		harness.run("CompactGraph.dfs(" + shape + ")" + storage, new Harness.Benchmark() {
+			public Object run() {
+				return graph.dfs(source);
+			}
+		});
+		harness.run("CompactGraph.bfs(" + shape + ")" + storage, new Harness.Benchmark() {
+			public Object run() {
+				return graph.bfs(source);
+			}
+		});
+		harness.run("CompactGraph.getShortestPath x2(" + shape + ")" + storage, new Harness.Benchmark() {
+			public Object run() {
+				// Each path starts where the last BFS did not, so both run a BFS with no level sets: mostly adjacency reads
+				return graph.getShortestPath(target, source).size() + graph.getShortestPath(source, target).size();
+			}
+		});
+	}
+
+	// Produces the edges of a random graph of "n" nodes and 2n edges
+	private static Node[][] randomEdges(int n, Random random) {
+		Node[] nodes = new Node[n];
+		for (int i = 0; i < n; i++) nodes[i] = new Node(Integer.toString(i));
+		Node[][] edges = new Node[2 * n][];
+		for (int e = 0; e < edges.length; e++) edges[e] = new Node[] { nodes[random.nextInt(n)], nodes[random.nextInt(n)] };
+		return edges;
+	}
+
+	// Produces the edges of a star with a given number of leaves
+	private static Node[][] starEdges(int leaves) {
+		Node hub = new Node("hub");
+		Node[][] edges = new Node[leaves][];
+		for (int i = 0; i < leaves; i++) edges[i] = new Node[] { hub, new Node(Integer.toString(i)) };
+		return edges;
+	}
+
+	// Produces the edges of a side x side grid
+	private static Node[][] gridEdges(int side) {
+		Node[] nodes = new Node[side * side];
+		for (int i = 0; i < nodes.length; i++) nodes[i] = new Node(Integer.toString(i));
+		Node[][] edges = new Node[2 * side * (side - 1)][];
+		int e = 0;
+		for (int row = 0; row < side; row++) {
+			for (int column = 0; column < side; column++) {
+				int i = row * side + column;
+				if (column < side - 1) edges[e++] = new Node[] { nodes[i], nodes[i + 1] };
+				if (row < side - 1) edges[e++] = new Node[] { nodes[i], nodes[i + side] };
+			}
+		}
+		return edges;
+	}
+
+	// Builds a graph adding its edges one at a time
+	private static Graph build(String label, Node[][] edges) {
+		Graph graph = new Graph(label);
+		for (Node[] edge : edges) graph.addEdge(edge[0], edge[1]);
+		return graph;
+	}
+
+	// Builds a graph adding its edges one at a time, with random weights in [1, 100]
+	private static Graph buildWeighted(String label, Node[][] edges, Random random) {
+		Graph graph = new Graph(label);
+		for (Node[] edge : edges) graph.addEdge(edge[0], edge[1], 1 + random.nextInt(100));
+		return graph;
+	}
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/*
+ * A small micro-benchmark harness in the spirit of JMH, for the benchmarks of this package:
+ * - every benchmark first runs WARMUP_ITERATIONS untimed iterations, so the JIT compiles its code;
+ * - then MEASUREMENT_ITERATIONS iterations are timed: each one calls the benchmark as many times as fit in
+ *   ITERATION_MILLIS and scores the average time per call;
+ * - results are reported as the mean time per call with its standard deviation, the best iteration,
+ *   the throughput and the bytes allocated per call (by all the live threads, as reported by the JVM).
+ * Results of the calls are consumed, so the JIT cannot eliminate the benchmarked code as dead code.
+ */
+public final class Harness {
+
+	// Constants:
+	// ==========
+	public static final int WARMUP_ITERATIONS = 5;
+	public static final int MEASUREMENT_ITERATIONS = 10;
+	public static final long ITERATION_MILLIS = 200;
+
+	// A benchmarked operation: its result is consumed by the harness
+	public interface Benchmark {
+		Object run() throws Exception;
+	}
+
+	// Data Definitions:
+	// =================
+	private final String filter; // only benchmarks whose names contain it are run (null for all)
+	private volatile int sink = 0;
+
+	// Functions:
+	// ==========
+	public Harness(String filter) {
+		this.filter = filter;
+	}
+
+	// Produces true if a benchmark with a given name is selected to run, so its setup is needed
+	public boolean selected(String name) {
+		return this.filter == null || name.contains(this.filter);
+	}
+
+	// Prints the header of the result lines
+	public void printHeader() {
+		System.out.println(String.format(Locale.US, "%-48s %14s %12s %14s %14s %14s",
+				"Benchmark", "Mean (us/op)", "StdDev", "Best (us/op)", "Ops/s", "Alloc (B/op)"));
+	}
+
+	// Runs a benchmark, if selected, and prints its results
+	public void run(String name, Benchmark benchmark) throws Exception {
+		if (!this.selected(name)) return;
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) this.iteration(benchmark);
+		double[] scores = new double[MEASUREMENT_ITERATIONS];
+		double allocated = 0;
+		long calls = 0;
+		for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+			long bytesBefore = allocatedBytes();
+			long[] result = this.iteration(benchmark); // {calls, nanoseconds}
+			allocated += allocatedBytes() - bytesBefore;
+			calls += result[0];
+			scores[i] = result[1] / 1000.0 / result[0];
+		}
+		double mean = 0, best = Double.MAX_VALUE;
+		for (double score : scores) {
+			mean += score / scores.length;
+			best = Math.min(best, score);
+		}
+		double variance = 0;
+		for (double score : scores) variance += (score - mean) * (score - mean) / (scores.length - 1);
+		System.out.println(String.format(Locale.US, "%-48s %14.3f %12.3f %14.3f %14.1f %14.0f",
+				name, mean, Math.sqrt(variance), best, 1e6 / mean, allocated / calls));
+	}
+
+	// Calls a benchmark for ITERATION_MILLIS (at least once) and returns the number of calls and the elapsed nanoseconds
+	private long[] iteration(Benchmark benchmark) throws Exception {
+		long calls = 0;
+		long start = System.nanoTime(), deadline = start + ITERATION_MILLIS * 1000000L, now;
+		do {
+			Object result = benchmark.run();
+			this.sink += (result == null) ? 0 : System.identityHashCode(result);
+			calls++;
+			now = System.nanoTime();
+		} while (now < deadline);
+		return new long[] { calls, now - start };
+	}
+
+	// Returns the number of bytes allocated so far by all the live threads, or 0 if the JVM does not report it
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) return 0;
+		com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+		if (!hotspot.isThreadAllocatedMemorySupported() || !hotspot.isThreadAllocatedMemoryEnabled()) return 0;
+		long total = 0;
+		for (long bytes : hotspot.getThreadAllocatedBytes(hotspot.getAllThreadIds())) {
+			if (bytes > 0) total += bytes;
+		}
+		return total;
+	}
+}
@@ -0,0 +1,350 @@
+package datastructures;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * A biconnectivity index of an undirected Graph, built by one linear DFS pass (Hopcroft-Tarjan): its blocks
+ * (biconnected components, maximal sets of nodes that no single node removal disconnects), articulation nodes,
+ * bridges and block-cut tree, answering what-if queries without traversing the graph again.
+ *
+ * The block-cut tree has a vertex for every block and for every articulation node, with an edge between an
+ * articulation node and each block that contains it (a forest, with a tree per connected component). A node x
+ * separates u from v iff x is an articulation node on the tree path between the vertices of u and v: the tree
+ * is stored with parent, depth and jump pointers, so ancestor and LCA queries take O(log n) and O(n) memory.
+ *
+ * Blocks are numbered in [0, getNumberOfBlocks()); an isolated node is a block by itself, and a block with two
+ * nodes is a bridge. The index is a snapshot: later changes to the graph are not reflected in it.
+ */
+public class BiconnectedComponents {
+
+	// Data definitions:
+	// =================
+	private final Graph graph;
+	private final int n;
+
+	// Blocks: the nodes of block b (by dense index) are blockNodes[blockStarts[b]..blockStarts[b+1])
+	private final int nBlocks;
+	private final int[] blockStarts;
+	private final int[] blockNodes;
+
+	// Articulation nodes get ids in [0, nCuts); cutId[i] is -1 for the other nodes, which are in a single block: blockOf[i]
+	private final int nCuts;
+	private final int[] cutId;
+	private final int[] blockOf;
+
+	// Block-cut forest: vertex b < nBlocks is block b and vertex nBlocks + c is the articulation node with id c.
+	// The neighbors of vertex x are treeTargets[treeOffsets[x]..treeOffsets[x+1]).
+	// parents[x] is the parent of x (roots are their own parents), depths[x] its depth and jumps[x] its jump pointer.
+	private final int[] treeOffsets;
+	private final int[] treeTargets;
+	private final int[] parents;
+	private final int[] depths;
+	private final int[] jumps;
+
+	// Functions:
+	// ==========
+	// Builds the index of an undirected graph
+	public BiconnectedComponents(Graph graph) {
+		if (!graph.isUndirected()) throw new IllegalArgumentException("Graph " + graph + " is directed");
+		this.graph = graph;
+		this.n = graph.getN();
+		int n = this.n;
+
+		// 1. Iterative DFS, collecting the blocks: when the subtree of a child v of u has no back edge above u
+		// (low[v] >= pre[u]), the nodes of that subtree still in the node stack plus u form a block.
+		int[] pre = new int[n], low = new int[n], dfsParent = new int[n], nextNeighbor = new int[n];
+		int[] stack = new int[n], nodeStack = new int[n];
+		boolean[] isCut = new boolean[n];
+		IntList starts = new IntList(), members = new IntList();
+		int nextPre = 1;
+		for (int root = 0; root < n; root++) {
+			if (pre[root] != 0) continue;
+			int top = 0, nodeTop = 0, rootChildren = 0;
+			stack[0] = root;
+			nodeStack[nodeTop++] = root;
+			dfsParent[root] = -1;
+			pre[root] = low[root] = nextPre++;
+			nextNeighbor[root] = 0;
+			while (top >= 0) {
+				int u = stack[top];
+				if (nextNeighbor[u] < graph.degreeOf(u)) {
+					int v = graph.neighborsOf(u)[nextNeighbor[u]++];
+					if (pre[v] == 0) {
+						dfsParent[v] = u;
+						if (u == root) rootChildren++;
+						pre[v] = low[v] = nextPre++;
+						nextNeighbor[v] = 0;
+						stack[++top] = v;
+						nodeStack[nodeTop++] = v;
+					} else if (v != dfsParent[u]) {
+						low[u] = Math.min(low[u], pre[v]); // back edge
+					}
+				} else {
+					top--;
+					int p = dfsParent[u];
+					if (p < 0) continue;
+					low[p] = Math.min(low[p], low[u]);
+					if (low[u] >= pre[p]) {
+						// p separates the subtree of u from the rest: pop that subtree as a new block with p
+						if (p != root) isCut[p] = true;
+						starts.add(members.size());
+						int w;
+						do {
+							w = nodeStack[--nodeTop];
+							members.add(w);
+						} while (w != u);
+						members.add(p);
+					}
+				}
+			}
+			if (rootChildren > 1) isCut[root] = true;
+			if (rootChildren == 0) { // an isolated node is a block by itself
+				starts.add(members.size());
+				members.add(root);
+			}
+		}
+		this.nBlocks = starts.size();
+		starts.add(members.size());
+		this.blockStarts = starts.toArray();
+		this.blockNodes = members.toArray();
+
+		// 2. Articulation node ids and the block of every other node
+		this.cutId = new int[n];
+		this.blockOf = new int[n];
+		int nCuts = 0;
+		for (int i = 0; i < n; i++) this.cutId[i] = isCut[i] ? nCuts++ : -1;
+		this.nCuts = nCuts;
+		for (int b = 0; b < this.nBlocks; b++) {
+			for (int k = this.blockStarts[b]; k < this.blockStarts[b + 1]; k++) this.blockOf[this.blockNodes[k]] = b;
+		}
+
+		// 3. Block-cut forest in CSR form, then rooted by a BFS from each unvisited vertex, so parents come before children
+		int size = this.nBlocks + nCuts;
+		int[] degrees = new int[size];
+		for (int b = 0; b < this.nBlocks; b++) {
+			for (int k = this.blockStarts[b]; k < this.blockStarts[b + 1]; k++) {
+				int c = this.cutId[this.blockNodes[k]];
+				if (c >= 0) {
+					degrees[b]++;
+					degrees[this.nBlocks + c]++;
+				}
+			}
+		}
+		int[] offsets = this.treeOffsets = new int[size + 1];
+		for (int x = 0; x < size; x++) offsets[x + 1] = offsets[x] + degrees[x];
+		int[] targets = this.treeTargets = new int[offsets[size]];
+		int[] fill = Arrays.copyOf(offsets, size);
+		for (int b = 0; b < this.nBlocks; b++) {
+			for (int k = this.blockStarts[b]; k < this.blockStarts[b + 1]; k++) {
+				int c = this.cutId[this.blockNodes[k]];
+				if (c >= 0) {
+					targets[fill[b]++] = this.nBlocks + c;
+					targets[fill[this.nBlocks + c]++] = b;
+				}
+			}
+		}
+		this.parents = new int[size];
+		this.depths = new int[size];
+		this.jumps = new int[size];
+		Arrays.fill(this.parents, -1);
+		int[] queue = new int[size];
+		for (int root = 0; root < size; root++) {
+			if (this.parents[root] >= 0) continue;
+			int head = 0, tail = 0;
+			queue[tail++] = root;
+			this.parents[root] = this.jumps[root] = root;
+			while (head < tail) {
+				int x = queue[head++];
+				for (int k = offsets[x]; k < offsets[x + 1]; k++) {
+					int y = targets[k];
+					if (this.parents[y] >= 0) continue;
+					this.parents[y] = x;
+					this.depths[y] = this.depths[x] + 1;
+					// Jump pointers: jump twice as far whenever the two previous jumps have the same length
+					int j = this.jumps[x];
+					this.jumps[y] = (this.depths[x] - this.depths[j] == this.depths[j] - this.depths[this.jumps[j]]) ? this.jumps[j] : x;
+					queue[tail++] = y;
+				}
+			}
+		}
+	}
+
+	// Produces an human-readable string with global useful information about the index
+	public String toString() {
+		return "BCCs(" + this.graph.getLabel() + ")={" + this.nBlocks + " block(s), " + this.nCuts + " articulation node(s), "
+				+ this.getNumberOfBridges() + " bridge(s)}";
+	}
+
+	// Returns the number of blocks (biconnected components)
+	public int getNumberOfBlocks() {
+		return this.nBlocks;
+	}
+
+	// Returns the nodes of a given block (a read-only list)
+	public List<Node> getBlock(final int block) {
+		final int from = this.blockStarts[block], to = this.blockStarts[block + 1];
+		return new AbstractList<Node>() {
+			public Node get(int k) {
+				if (k < 0 || k >= to - from) throw new IndexOutOfBoundsException("Index " + k + " of a block of " + (to - from) + " nodes");
+				return graph.nodeAt(blockNodes[from + k]);
+			}
+			public int size() {
+				return to - from;
+			}
+		};
+	}
+
+	// Returns the blocks that contain a given node (more than one iff it is an articulation node);
+	// an empty array if the node doesn't belong to the graph
+	public int[] getBlocks(Node node) {
+		int i = this.indexOf(node);
+		if (i < 0) return new int[0];
+		if (this.cutId[i] < 0) return new int[] { this.blockOf[i] };
+		// The blocks of an articulation node are its neighbors in the block-cut tree
+		int x = this.nBlocks + this.cutId[i];
+		return Arrays.copyOfRange(this.treeTargets, this.treeOffsets[x], this.treeOffsets[x + 1]);
+	}
+
+	// Returns the number of articulation nodes
+	public int getNumberOfArticulationNodes() {
+		return this.nCuts;
+	}
+
+	// Returns the set of articulation nodes
+	public Set<Node> getArticulationNodes() {
+		Set<Node> result = new HashSet<Node>();
+		for (int i = 0; i < this.n; i++) {
+			if (this.cutId[i] >= 0) result.add(this.graph.nodeAt(i));
+		}
+		return result;
+	}
+
+	// Produces true if removing a given node disconnects its connected component
+	public boolean isArticulationNode(Node node) {
+		int i = this.indexOf(node);
+		return i >= 0 && this.cutId[i] >= 0;
+	}
+
+	// Returns the number of bridges: edges whose removal disconnects their connected component
+	public int getNumberOfBridges() {
+		int count = 0;
+		for (int b = 0; b < this.nBlocks; b++) {
+			if (this.blockStarts[b + 1] - this.blockStarts[b] == 2) count++;
+		}
+		return count;
+	}
+
+	// Returns the bridges, each one as the pair of its endpoints
+	public List<Node[]> getBridges() {
+		List<Node[]> result = new ArrayList<Node[]>();
+		for (int b = 0; b < this.nBlocks; b++) {
+			int from = this.blockStarts[b];
+			if (this.blockStarts[b + 1] - from == 2)
+				result.add(new Node[] { this.graph.nodeAt(this.blockNodes[from]), this.graph.nodeAt(this.blockNodes[from + 1]) });
+		}
+		return result;
+	}
+
+	// Produces true if the edge between two nodes is a bridge; false if there is no such edge
+	public boolean isBridge(Node u, Node v) {
+		int iu = this.indexOf(u), iv = this.indexOf(v);
+		if (iu < 0 || iv < 0 || iu == iv) return false;
+		int b = this.commonBlock(this.vertexOf(iu), this.vertexOf(iv));
+		return b >= 0 && this.blockStarts[b + 1] - this.blockStarts[b] == 2; // the only edge of a 2-node block is u-v
+	}
+
+	// Produces true if nodes u and v are connected but every path between them goes through node x,
+	// so removing x disconnects them (false if x is u or v, or any of them doesn't belong to the graph)
+	public boolean separates(Node x, Node u, Node v) {
+		int ix = this.indexOf(x), iu = this.indexOf(u), iv = this.indexOf(v);
+		if (ix < 0 || iu < 0 || iv < 0 || ix == iu || ix == iv || this.cutId[ix] < 0) return false;
+		int a = this.vertexOf(iu), b = this.vertexOf(iv), c = this.nBlocks + this.cutId[ix];
+		if (this.rootOf(a) != this.rootOf(b) || this.rootOf(c) != this.rootOf(a)) return false;
+		// c is on the tree path between a and b iff it is their LCA or an ancestor of only one of them below it
+		int lca = this.lca(a, b);
+		if (c == lca) return true;
+		if (this.depths[c] <= this.depths[lca]) return false;
+		return this.ancestorAt(a, this.depths[c]) == c || this.ancestorAt(b, this.depths[c]) == c;
+	}
+
+	private int indexOf(Node node) {
+		int i = this.graph.indexOf(node);
+		return (i < this.n) ? i : -1; // nodes added after the index was built are not in it
+	}
+
+	// Returns the block-cut tree vertex of the node with a given dense index
+	private int vertexOf(int i) {
+		return (this.cutId[i] >= 0) ? this.nBlocks + this.cutId[i] : this.blockOf[i];
+	}
+
+	// Returns the block that contains the nodes of two tree vertices, or -1 if there is none
+	// (a block contains an articulation node iff it is its parent or one of its children in the tree)
+	private int commonBlock(int a, int b) {
+		int candidate = (a < this.nBlocks) ? a : this.parents[a];
+		if (candidate < this.nBlocks && this.touches(b, candidate)) return candidate;
+		candidate = (b < this.nBlocks) ? b : this.parents[b];
+		if (candidate < this.nBlocks && this.touches(a, candidate)) return candidate;
+		return -1;
+	}
+
+	// Produces true if the node of tree vertex x belongs to block "block"
+	private boolean touches(int x, int block) {
+		if (x < this.nBlocks) return x == block;
+		return this.parents[x] == block || this.parents[block] == x;
+	}
+
+	private int rootOf(int x) {
+		return this.ancestorAt(x, 0);
+	}
+
+	// Returns the ancestor of x at a given depth (not greater than the depth of x), following jump pointers
+	private int ancestorAt(int x, int depth) {
+		while (this.depths[x] > depth) x = (this.depths[this.jumps[x]] >= depth) ? this.jumps[x] : this.parents[x];
+		return x;
+	}
+
+	// Returns the lowest common ancestor of two vertices of the same tree
+	private int lca(int a, int b) {
+		if (this.depths[a] < this.depths[b]) {
+			int temp = a;
+			a = b;
+			b = temp;
+		}
+		a = this.ancestorAt(a, this.depths[b]);
+		while (a != b) {
+			// Vertices at the same depth have jump pointers at the same depth
+			if (this.jumps[a] != this.jumps[b]) {
+				a = this.jumps[a];
+				b = this.jumps[b];
+			} else {
+				a = this.parents[a];
+				b = this.parents[b];
+			}
+		}
+		return a;
+	}
+
+	// A growable array of ints
+	private static final class IntList {
+		private int[] values = new int[16];
+		private int size = 0;
+
+		void add(int value) {
+			if (this.size == this.values.length) this.values = Arrays.copyOf(this.values, this.size * 2);
+			this.values[this.size++] = value;
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package datastructures;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/*
+ * A lazy Breadth-First Search (BFS) of a Graph from a start node (see Graph.breadthFirstIterator), that produces the
+ * nodes in non-decreasing distance order, one at a time (next) or a whole level at a time (nextLevel).
+ * The neighbors of a node are only scanned when the nodes found so far run out, so a caller that stops at some
+ * distance, or at the first node it looks for, only pays for the part of the graph it saw: the queue grows with the
+ * nodes reached, not with the size of the graph, and no set is built per level.
+ * Like the iterators of java.util, it fails with a ConcurrentModificationException if the graph is changed meanwhile.
+ */
+public final class BreadthFirstIterator implements Iterator<Node> {
+
+	// Constants:
+	// ==========
+	private static final int INITIAL_CAPACITY = 16;
+
+	// Data definitions:
+	// =================
+	private final Graph graph;
+	private final int modCount; // graph modification count when the search started
+	private final BitSet visited = new BitSet();
+	// BFS queue of dense indexes, with the distance of each queued node and the queue position of its parent (-1 for the start node)
+	private int[] queue = new int[INITIAL_CAPACITY];
+	private int[] distances = new int[INITIAL_CAPACITY];
+	private int[] parentPositions = new int[INITIAL_CAPACITY];
+	private int tail = 0;      // queue[0..tail) are the nodes reached so far
+	private int expanded = 0;  // queue[0..expanded) had their neighbors scanned
+	private int returned = 0;  // queue[0..returned) were returned by next or nextLevel
+	private int current = -1;  // queue position of the last node returned
+
+	// Functions:
+	// ==========
+	// Starts a lazy BFS from the node with dense index "source"
+	BreadthFirstIterator(Graph graph, int source) {
+		this.graph = graph;
+		this.modCount = graph.getModCount();
+		this.visited.set(source);
+		this.enqueue(source, 0, -1);
+	}
+
+	// Produces true if there are nodes reachable from the start node not returned yet
+	public boolean hasNext() {
+		if (this.modCount != this.graph.getModCount()) throw new ConcurrentModificationException();
+		// Scans the neighbors of the nodes found so far, in BFS order, until a new node is found
+		while (this.returned == this.tail && this.expanded < this.tail) this.expand(this.expanded++);
+		return this.returned < this.tail;
+	}
+
+	// Returns the next node in BFS order
+	public Node next() {
+		if (!this.hasNext()) throw new NoSuchElementException();
+		this.current = this.returned++;
+		return this.graph.nodeAt(this.queue[this.current]);
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	// Returns the rest of the level of the next node (the whole level, unless some of its nodes were already returned
+	// by next), as a read-only set backed by the queue; null if there are no more nodes.
+	// Note: contains() scans the level, so copy it to a HashSet if it is going to be queried many times.
+	public Set<Node> nextLevel() {
+		if (!this.hasNext()) return null;
+		int distance = this.distances[this.returned];
+		// The level is complete when all the nodes of the previous level were expanded
+		while (this.expanded < this.tail && this.distances[this.expanded] < distance) this.expand(this.expanded++);
+		Set<Node> level = new LevelSet(this.returned, this.tail);
+		this.returned = this.tail;
+		this.current = this.tail - 1;
+		return level;
+	}
+
+	// Returns the distance from the start node of the last node returned (-1 if none was returned yet)
+	public int getDistance() {
+		return (this.current < 0) ? -1 : this.distances[this.current];
+	}
+
+	// Returns the distance from the start node of the node to be returned next, without returning it (-1 if there are no more nodes):
+	// ex. a caller stops at depth "k" as soon as it is greater than "k", with no node of depth k+1 expanded
+	public int getNextDistance() {
+		return this.hasNext() ? this.distances[this.returned] : -1;
+	}
+
+	// Returns a shortest path from the start node to the last node returned (null if none was returned yet)
+	public LinkedList<Node> getPath() {
+		if (this.current < 0) return null;
+		LinkedList<Node> result = new LinkedList<Node>();
+		for (int position = this.current; position >= 0; position = this.parentPositions[position])
+			result.push(this.graph.nodeAt(this.queue[position]));
+		return result;
+	}
+
+	// Returns the number of nodes reached so far (returned or waiting in the queue)
+	public int getNodesReached() {
+		return this.tail;
+	}
+
+	// Scans the neighbors of the node at a given queue position, enqueuing the ones not reached yet
+	private void expand(int position) {
+		int u = this.queue[position];
+		int[] neighbors = this.graph.neighborsOf(u);
+		int distance = this.distances[position] + 1;
+		for (int k = 0; k < this.graph.degreeOf(u); k++) {
+			int v = neighbors[k];
+			if (!this.visited.get(v)) {
+				this.visited.set(v);
+				this.enqueue(v, distance, position);
+			}
+		}
+	}
+
+	private void enqueue(int node, int distance, int parentPosition) {
+		if (this.tail == this.queue.length) {
+			int capacity = this.queue.length * 2;
+			this.queue = Arrays.copyOf(this.queue, capacity);
+			this.distances = Arrays.copyOf(this.distances, capacity);
+			this.parentPositions = Arrays.copyOf(this.parentPositions, capacity);
+		}
+		this.queue[this.tail] = node;
+		this.distances[this.tail] = distance;
+		this.parentPositions[this.tail] = parentPosition;
+		this.tail++;
+	}
+
+	// Read-only set of the nodes of a BFS level, backed by a slice of the queue
+	private final class LevelSet extends AbstractSet<Node> {
+		private final int from, to;
+		LevelSet(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+		public int size() {
+			return this.to - this.from;
+		}
+		public Iterator<Node> iterator() {
+			return new Iterator<Node>() {
+				private int next = from;
+				public boolean hasNext() {
+					return this.next < to;
+				}
+				public Node next() {
+					if (!this.hasNext()) throw new NoSuchElementException();
+					return graph.nodeAt(queue[this.next++]);
+				}
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,386 @@
+package datastructures;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+/*
+ * An immutable snapshot of a Graph stored in compressed-sparse-row (CSR) form:
+ * every node gets a dense int id in [0, n) and the neighbors of node "i" are
+ * targets[offsets[i]] .. targets[offsets[i+1]-1].
+ * A snapshot may live on the heap (see Graph.freeze), where the CSR arrays are plain int arrays read directly by the
+ * traversals, or be traversed from a memory-mapped file (see GraphFile) or off-heap memory (see OffHeapGraph),
+ * where they are int sequences over that storage.
+ * Provides the same traversal methods of Graph (DFS, BFS and shortest paths) without any hashing or
+ * boxing in the inner loops, and all traversals use explicit stacks/queues, so no -Xss is needed.
+ * Every traversal keeps its state in a result of its own (a CompactTraversal), so a snapshot can be shared by many threads.
+ */
+public class CompactGraph {
+
+	// Data definitions:
+	// =================
+	protected String label; // a name for the graph
+
+	// Indicates graph mode: undirected (default) or directed
+	private boolean undirected = true;
+
+	// Nodes by their dense id and the reverse mapping from node ids to dense ids
+	private NodeDictionary dictionary;
+
+	// The adjacency in CSR form: offsets has n+1 entries and targets has one entry per adjacency list element.
+	// Heap snapshots keep them as int arrays (offsetArray and targetArray), so the traversals read them with no call
+	// at all; other storage is read through the int sequences, and then the arrays are null.
+	private final int[] offsetArray;
+	private final int[] targetArray;
+	private final IntSequence offsets;
+	private final IntSequence targets;
+
+	// Quantity of edges (m) of the graph, as counted by the original graph
+	private int mEdges = 0;
+
+	// Functions:
+	// ==========
+	// Creates a CSR snapshot of a given graph. Later changes to the graph are not reflected in the snapshot.
+	public CompactGraph(Graph graph) {
+		this.label = new String(graph.getLabel());
+		this.undirected = graph.isUndirected();
+		this.mEdges = graph.getM();
+		int n = graph.getN();
+		// Dense ids of the snapshot are the same dense indexes of the original graph
+		Node[] nodes = new Node[n];
+		Map<String, Integer> indexMap = new HashMap<String, Integer>(n * 4 / 3 + 1);
+		int[] offsets = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			nodes[i] = graph.nodeAt(i);
+			indexMap.put(nodes[i].getId(), i);
+			offsets[i + 1] = offsets[i] + graph.degreeOf(i);
+		}
+		int[] targets = new int[offsets[n]];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(graph.neighborsOf(i), 0, targets, offsets[i], graph.degreeOf(i));
+		}
+		this.dictionary = new HeapDictionary(nodes, indexMap);
+		this.offsetArray = offsets;
+		this.targetArray = targets;
+		this.offsets = new ArraySequence(offsets);
+		this.targets = new ArraySequence(targets);
+	}
+
+	// Creates a snapshot over already built CSR sequences and node dictionary (see GraphFile.load and OffHeapGraph.build)
+	CompactGraph(String label, boolean undirected, int mEdges, NodeDictionary dictionary, IntSequence offsets, IntSequence targets) {
+		this.label = label;
+		this.undirected = undirected;
+		this.mEdges = mEdges;
+		this.dictionary = dictionary;
+		this.offsetArray = null;
+		this.targetArray = null;
+		this.offsets = offsets;
+		this.targets = targets;
+	}
+
+	// Maps dense ids to nodes and node ids back to dense ids
+	interface NodeDictionary {
+		int size();
+		Node nodeAt(int index);
+		int indexOf(String id); // -1 if not existent
+	}
+
+	// Read-only ints by position: the CSR arrays, wherever they are stored. Each storage has its own final
+	// implementation reading it directly (ArraySequence, GraphFile.MappedInts, OffHeapGraph.Ints), so a traversal
+	// call site sees at most the two non-heap ones and stays inlinable.
+	interface IntSequence {
+		int size();
+		int get(int index);
+	}
+
+	// The int sequence of an int array of a heap snapshot, for code that reads any storage (ex. GraphFile.save)
+	private static final class ArraySequence implements IntSequence {
+		private final int[] array;
+
+		ArraySequence(int[] array) {
+			this.array = array;
+		}
+		public int size() {
+			return this.array.length;
+		}
+		public int get(int index) {
+			return this.array[index];
+		}
+	}
+
+	// A node dictionary with all the nodes on the heap
+	private static final class HeapDictionary implements NodeDictionary {
+		private final Node[] nodes;
+		private final Map<String, Integer> indexMap;
+
+		HeapDictionary(Node[] nodes, Map<String, Integer> indexMap) {
+			this.nodes = nodes;
+			this.indexMap = indexMap;
+		}
+		public int size() {
+			return this.nodes.length;
+		}
+		public Node nodeAt(int index) {
+			return this.nodes[index];
+		}
+		public int indexOf(String id) {
+			Integer index = this.indexMap.get(id);
+			if (index == null) return -1;
+			else return index;
+		}
+	}
+
+	// CSR access for GraphFile.save
+	IntSequence offsets() {
+		return this.offsets;
+	}
+
+	IntSequence targets() {
+		return this.targets;
+	}
+
+	Node nodeAt(int index) {
+		return this.dictionary.nodeAt(index);
+	}
+
+	// Returns where the neighbors of the node with dense id "i" start in targets (and where those of node i-1 end)
+	private int offset(int i) {
+		int[] array = this.offsetArray;
+		return (array != null) ? array[i] : this.offsets.get(i);
+	}
+
+	// Returns the adjacency list element at a given position of targets
+	private int target(int position) {
+		int[] array = this.targetArray;
+		return (array != null) ? array[position] : this.targets.get(position);
+	}
+
+	// Produces an human-readable string with global useful information about the graph
+	public String toString() {
+		return this.getLabel() + "={" + this.getN() + " node(s)," + this.getM() + " edge(s)}";
+	}
+
+	// Returns the label of the graph
+	public String getLabel() {
+		return this.label;
+	}
+
+	// Returns the graph amount of vertices in the graph
+	public int getN() {
+		return this.dictionary.size();
+	}
+
+	// Returns the graph amount of edges in the graph
+	public int getM() {
+		return this.mEdges;
+	}
+
+	// Produces true if the graph is undirected, false otherwise
+	public boolean isUndirected() {
+		return this.undirected;
+	}
+
+	// Returns an specific node of the graph by its id or null if not existent
+	public Node getNodeById(String id) {
+		int index = this.dictionary.indexOf(id);
+		if (index < 0) return null;
+		else return this.dictionary.nodeAt(index);
+	}
+
+	// Produces true if graph contains a given node, false otherwise
+	public boolean containsNode(Node aNode) {
+		return this.dictionary.indexOf(aNode.getId()) >= 0;
+	}
+
+	// Returns a set with all the neighbors of a given node (null if the node doesn't belong to the graph)
+	public Set<Node> getNeighbors(Node node) {
+		int index = this.dictionary.indexOf(node.getId());
+		if (index < 0) return null;
+		Set<Node> neighbors = new HashSet<Node>();
+		for (int e = this.offset(index); e < this.offset(index + 1); e++) {
+			neighbors.add(this.dictionary.nodeAt(this.target(e)));
+		}
+		return neighbors;
+	}
+
+	// Returns the dense id of a node in this snapshot or -1 if not existent
+	int indexOf(Node node) {
+		if (node == null) return -1;
+		return this.dictionary.indexOf(node.getId());
+	}
+
+	// Traversal Algorithms - Methods and auxiliary structures:
+	// ==========================================================
+	/*
+	 *  Every traversal keeps its state (parents, pre and low values...) in a CompactTraversal of its own, so
+	 *  depthFirst, breadthFirst and getShortestPath can be called by many threads at the same time on a shared snapshot.
+	 *  dfs and bfs also publish their result as the last DFS or BFS of the snapshot, queried by getNumberOfCCs,
+	 *  getArticulationNodes... and reused by getShortestPath.
+	 */
+	private volatile CompactTraversal lastDFS = null;
+	private volatile CompactTraversal lastBFS = null;
+
+	// Returns the number of connected components of the graph computed by a complete DFS traversal or -1 if the graph has never been traversed by DFS
+	public int getNumberOfCCs() {
+		CompactTraversal last = this.lastDFS;
+		return (last == null) ? -1 : last.getNumberOfCCs();
+	}
+
+	// Returns the number of articulation nodes of the graph computed by a complete DFS traversal (-1 if the graph has never been traversed by DFS)
+	public int getNumberOfArticulationNodes() {
+		CompactTraversal last = this.lastDFS;
+		return (last == null) ? -1 : last.getNumberOfArticulationNodes();
+	}
+
+	// Returns the set of articulation nodes of the graph computed by a complete DFS traversal (null if the graph has never been traversed by DFS)
+	public Set<Node> getArticulationNodes() {
+		CompactTraversal last = this.lastDFS;
+		return (last == null) ? null : last.getArticulationNodes();
+	}
+
+	// Performs a Depth-First Search (DFS) in the graph and returns the DFS-Forest, exactly as Graph.dfs does
+	public List<Graph> dfs(Node start) {
+		CompactTraversal traversal = this.depthFirst(start);
+		if (traversal == null) return null;
+		this.lastDFS = traversal;
+		return traversal.getForest();
+	}
+
+	// Performs a complete DFS in the graph, starting from node "start", and returns its result: the DFS-Forest,
+	// articulation nodes and number of connected components, computed in the same pass (null if the node doesn't
+	// belong to the graph). Doesn't change the state of the snapshot, so it may be called by many threads at the same time.
+	public CompactTraversal depthFirst(Node start) {
+		int s = this.indexOf(start);
+		if (s < 0) return null;
+		int n = this.getN();
+		//Initialize traversal control structures:
+		CompactTraversal traversal = new CompactTraversal(this, s, false, new int[n]);
+		traversal.forest = new LinkedList<Graph>();
+		traversal.articulationNodes = new HashSet<Node>();
+		int[] parents = traversal.parents;
+		int[] pre = new int[n]; // 0 means "not visited"
+		int[] low = new int[n];
+		int[] stack = new int[n];
+		int[] nextEdge = new int[n]; // position of the next neighbor to be scanned for each node in the stack
+		int nextPreValue = 1;
+
+		// Iterate through all nodes in the graph, starting from "s"
+		for (int i = -1; i < n; i++) {
+			int root = (i == -1) ? s : i; // this is to force start from "s"
+			if (pre[root] != 0) continue;
+			traversal.ccNumber++;
+			Graph dfsTree = new Graph("dfsTree" + (traversal.ccNumber + 1), true); // Note: DFS-Tree is directed for the purpose of clarity only
+			dfsTree.addNode(this.dictionary.nodeAt(root));
+			int rootChildren = 0;
+			int top = 0;
+			stack[top] = root;
+			parents[root] = -1;
+			pre[root] = low[root] = nextPreValue++;
+			nextEdge[root] = this.offset(root);
+			while (top >= 0) {
+				int u = stack[top];
+				if (nextEdge[u] < this.offset(u + 1)) {
+					int v = this.target(nextEdge[u]++);
+					if (pre[v] == 0) {
+						// Tree edge: descend into v
+						dfsTree.addEdge(this.dictionary.nodeAt(u), this.dictionary.nodeAt(v));
+						parents[v] = u;
+						pre[v] = low[v] = nextPreValue++;
+						nextEdge[v] = this.offset(v);
+						stack[++top] = v;
+						if (u == root) rootChildren++;
+					} else if (v != parents[u] && pre[v] < low[u]) {
+						// Back edge: see references/articulation-points-or-cut-vertices-in-a-graph.pdf
+						low[u] = pre[v];
+					}
+				} else {
+					// All neighbors of u were scanned: propagate its low value to its parent
+					top--;
+					int p = parents[u];
+					if (p >= 0) {
+						if (low[u] < low[p]) low[p] = low[u];
+						if (p != root && low[u] >= pre[p]) traversal.articulationNodes.add(this.dictionary.nodeAt(p));
+					}
+				}
+			}
+			// A root is an articulation node iff it has more than one child in the DFS tree
+			if (rootChildren > 1) traversal.articulationNodes.add(this.dictionary.nodeAt(root));
+			traversal.forest.add(dfsTree);
+		}
+		return traversal;
+	}
+
+	// Performs a Breadth-First Search (BFS) in the graph and returns the BFS-Tree levels in the form of a vector:
+	// Each level[i] is the set of nodes at distance "i" from node "start".
+	public Vector<Set<Node>> bfs(Node start) {
+		CompactTraversal traversal = this.breadthFirst(start);
+		if (traversal == null) return null;
+		this.lastBFS = traversal;
+		return traversal.getLevels();
+	}
+
+	// Performs a complete BFS in the graph, starting from node "start", and returns its result (null if the node doesn't
+	// belong to the graph). Doesn't change the state of the snapshot, so it may be called by many threads at the same time.
+	public CompactTraversal breadthFirst(Node start) {
+		int s = this.indexOf(start);
+		if (s < 0) return null;
+		return this.bfsVisit(s, true);
+	}
+
+	// Performs a complete BFS from the dense id "s" and returns its parents, and its levels too if "withLevels"
+	// (shortest path queries only need the parents, so they don't build the level sets)
+	private CompactTraversal bfsVisit(int s, boolean withLevels) {
+		int n = this.getN();
+		int[] parents = new int[n];
+		Arrays.fill(parents, -1);
+		CompactTraversal traversal = new CompactTraversal(this, s, true, parents);
+		int[] order = new int[n]; // visiting order
+		int[] levelEnds = new int[n]; // levelEnds[k] is the position in order where level "k" ends
+		boolean[] visited = new boolean[n];
+		visited[s] = true;
+		order[0] = s;
+		int head = 0, tail = 1, levels = 0;
+		while (head < tail) {
+			int levelEnd = tail; // nodes in order[head..levelEnd) are all at the same distance
+			while (head < levelEnd) {
+				int u = order[head++];
+				for (int e = this.offset(u); e < this.offset(u + 1); e++) {
+					int v = this.target(e);
+					if (!visited[v]) {
+						visited[v] = true;
+						parents[v] = u;
+						order[tail++] = v;
+					}
+				}
+			}
+			levelEnds[levels++] = levelEnd;
+		}
+		if (!withLevels) return traversal;
+		traversal.levels = new Vector<Set<Node>>(levels);
+		int from = 0;
+		for (int k = 0; k < levels; k++) {
+			Set<Node> level = new HashSet<Node>((levelEnds[k] - from) * 4 / 3 + 1);
+			for (; from < levelEnds[k]; from++) level.add(this.dictionary.nodeAt(order[from]));
+			traversal.levels.add(level);
+		}
+		return traversal;
+	}
+
+	// Returns the shortest path from node "start" to node "end"; null if any node doesn't belong to the graph
+	// or "end" it is not reachable from "start".
+	// Reuses the last BFS tree if it was rooted at "start"; otherwise runs a BFS of its own, which is not published.
+	public LinkedList<Node> getShortestPath(Node start, Node end) {
+		int s = this.indexOf(start);
+		int t = this.indexOf(end);
+		if (s < 0 || t < 0) return null;
+		CompactTraversal last = this.lastBFS;
+		if (last == null || !last.isBFSTreeFrom(s)) last = this.bfsVisit(s, false);
+		return last.getPathTo(end);
+	}
+
+}
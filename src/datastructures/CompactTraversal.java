@@ -0,0 +1,106 @@
+package datastructures;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+/*
+ * The result of a single traversal of a CompactGraph, by DFS (CompactGraph.depthFirst) or BFS (CompactGraph.breadthFirst):
+ * what Traversal is for a Graph. Snapshots never change, so a result stays valid for as long as it is kept.
+ * A CompactTraversal is not changed after it is returned, so it can be shared by many threads.
+ */
+public final class CompactTraversal {
+
+	// Data definitions:
+	// =================
+	private final CompactGraph graph;
+	private final int source; // dense id of the start node
+	private final boolean breadthFirst;
+
+	// Dense id of the parent of each node in the DFS or BFS tree (-1 for roots and unreached nodes)
+	final int[] parents;
+
+	// BFS levels: level[i] is the set of nodes at distance "i" from the start node (null for a DFS)
+	Vector<Set<Node>> levels = null;
+
+	// DFS results
+	List<Graph> forest = null;
+	Set<Node> articulationNodes = null;
+	int ccNumber = -1;
+
+	// Functions:
+	// ==========
+	// Creates the state of a BFS or DFS of a snapshot from dense id "source", with no parents set yet
+	CompactTraversal(CompactGraph graph, int source, boolean breadthFirst, int[] parents) {
+		this.graph = graph;
+		this.source = source;
+		this.breadthFirst = breadthFirst;
+		this.parents = parents;
+	}
+
+	// Returns the start node of the traversal
+	public Node getSource() {
+		return this.graph.nodeAt(this.source);
+	}
+
+	// Produces true if this is the result of a BFS, false if it is the result of a DFS
+	public boolean isBreadthFirst() {
+		return this.breadthFirst;
+	}
+
+	// Produces true if a given node was reached by the traversal (a complete DFS reaches every node)
+	public boolean isReached(Node node) {
+		int index = this.graph.indexOf(node);
+		if ( index < 0 ) return false;
+		return !this.breadthFirst || index == this.source || this.parents[index] >= 0;
+	}
+
+	// Returns the BFS-Tree levels (null for a DFS): each level[i] is the set of nodes at distance "i" from the start node
+	public Vector<Set<Node>> getLevels() {
+		return this.levels;
+	}
+
+	// Returns the DFS-Forest (null for a BFS): the disconnected DFS-Trees produced by the traversal
+	public List<Graph> getForest() {
+		return this.forest;
+	}
+
+	// Returns the path from the start node to node "end" in the BFS or DFS tree (for a BFS, a shortest path);
+	// null if "end" doesn't belong to the graph or it is not reachable from the start node.
+	public LinkedList<Node> getPathTo(Node end) {
+		int t = this.graph.indexOf(end);
+		if ( t < 0 ) return null;
+		// Builds the result list going backwards through node parents list
+		LinkedList<Node> result = new LinkedList<Node>();
+		int node = t;
+		for (; node >= 0 && node != this.source; node = this.parents[node]) result.push(this.graph.nodeAt(node));
+		if ( node != this.source ) return null; // node "end" is not reachable from the start node!
+		result.push(this.graph.nodeAt(this.source));
+		return result;
+	}
+
+	// Returns the number of connected components of the graph found by the DFS (-1 for a BFS)
+	public int getNumberOfCCs() {
+		return this.breadthFirst ? -1 : this.ccNumber + 1;
+	}
+
+	// Returns the number of articulation nodes of the graph found by the DFS (-1 for a BFS)
+	public int getNumberOfArticulationNodes() {
+		return this.breadthFirst ? -1 : this.articulationNodes.size();
+	}
+
+	// Returns the set of articulation nodes of the graph found by the DFS (null for a BFS)
+	public Set<Node> getArticulationNodes() {
+		return this.articulationNodes;
+	}
+
+	// Produces true if this BFS tree can answer shortest path queries from dense id "s"
+	boolean isBFSTreeFrom(int s) {
+		return this.breadthFirst && this.source == s;
+	}
+
+	public String toString() {
+		return (this.breadthFirst ? "BFS" : "DFS") + " of " + this.graph.getLabel() + " from " + this.getSource();
+	}
+}
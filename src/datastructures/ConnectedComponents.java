@@ -0,0 +1,193 @@
+package datastructures;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * The connected components of a Graph as a compact component id per node plus the size of each component,
+ * computed by a concurrent union-find over the dense node indexes:
+ * - every task of a ForkJoinPool unites the endpoints of the edges of a range of nodes, linking roots by
+ *   compare-and-set (the larger index always points to the smaller one, so no cycles can be created);
+ * - then every node is labeled with its root, and roots are renumbered as dense ids in [0, k).
+ * No subgraph is copied. For directed graphs, edges are taken as undirected (weakly connected components).
+ */
+public class ConnectedComponents {
+
+	// Constants:
+	// ==========
+	// Number of nodes processed by a single task
+	private static final int GRAIN = 4096;
+
+	// Data definitions:
+	// =================
+	private final Graph graph;
+	// Component id of each node by dense index, in [0, k)
+	private final int[] componentOf;
+	// Number of nodes of each component
+	private final int[] sizes;
+
+	// Functions:
+	// ==========
+	// Computes the connected components of a graph using the tasks of a given pool
+	public ConnectedComponents(Graph graph, ForkJoinPool pool) {
+		this.graph = graph;
+		int n = graph.getN();
+		this.componentOf = new int[n];
+		for (int i = 0; i < n; i++) this.componentOf[i] = i; // every node starts as a singleton set
+		AtomicIntegerArray parents = new AtomicIntegerArray(this.componentOf);
+		pool.invoke(new Union(graph, parents, 0, n));
+		pool.invoke(new Label(parents, this.componentOf, 0, n));
+
+		// Roots are the only nodes labeled with themselves; they are renumbered in increasing index order
+		int k = 0;
+		for (int i = 0; i < n; i++) {
+			if (this.componentOf[i] == i) parents.set(i, k++); // parents is no longer needed: reused as root -> component id
+		}
+		this.sizes = new int[k];
+		for (int i = 0; i < n; i++) {
+			int id = parents.get(this.componentOf[i]);
+			this.componentOf[i] = id;
+			this.sizes[id]++;
+		}
+	}
+
+	// Takes the components computed elsewhere (ex. by a PartitionedGraph) as the root of each node by dense index,
+	// where roots are the nodes labeled with themselves; they are renumbered in increasing index order
+	ConnectedComponents(Graph graph, int[] roots) {
+		this.graph = graph;
+		int n = roots.length;
+		int[] ids = new int[n];
+		int k = 0;
+		for (int i = 0; i < n; i++) {
+			if (roots[i] == i) ids[i] = k++;
+		}
+		this.componentOf = new int[n];
+		this.sizes = new int[k];
+		for (int i = 0; i < n; i++) {
+			int id = ids[roots[i]];
+			this.componentOf[i] = id;
+			this.sizes[id]++;
+		}
+	}
+
+	// Returns the number of connected components
+	public int getNumberOfComponents() {
+		return this.sizes.length;
+	}
+
+	// Returns the component id of a given node in [0, getNumberOfComponents()) or -1 if it doesn't belong to the graph
+	public int getComponent(Node node) {
+		int index = this.graph.indexOf(node);
+		if (index < 0 || index >= this.componentOf.length) return -1;
+		else return this.componentOf[index];
+	}
+
+	// Returns the number of nodes of a given component
+	public int getSize(int component) {
+		return this.sizes[component];
+	}
+
+	// Produces true if both nodes belong to the same connected component, false otherwise
+	public boolean areConnected(Node u, Node v) {
+		int cu = this.getComponent(u);
+		return cu >= 0 && cu == this.getComponent(v);
+	}
+
+	// Returns a given component as a view of the graph, with no copy of its nodes or edges (see SubgraphView)
+	public SubgraphView getView(int component) {
+		return new SubgraphView(this.graph, "CC" + component, this.componentOf, component, this.sizes[component]);
+	}
+
+	// Returns the component id of each node by its dense index (read-only)
+	int[] getComponentIds() {
+		return this.componentOf;
+	}
+
+	// Produces an human-readable string with global useful information about the components
+	public String toString() {
+		return "CCs(" + this.graph.getLabel() + ")={" + this.getNumberOfComponents() + " component(s)}";
+	}
+
+	// Finds the root of "i", halving the path on the way (concurrent finds may only shorten paths)
+	private static int find(AtomicIntegerArray parents, int i) {
+		int parent = parents.get(i);
+		while (parent != i) {
+			int grandParent = parents.get(parent);
+			if (grandParent != parent) parents.compareAndSet(i, parent, grandParent);
+			i = grandParent;
+			parent = parents.get(i);
+		}
+		return i;
+	}
+
+	// Unites the sets of "u" and "v", linking the root with larger index to the other one
+	private static void union(AtomicIntegerArray parents, int u, int v) {
+		while (true) {
+			u = find(parents, u);
+			v = find(parents, v);
+			if (u == v) return;
+			if (u < v) {
+				int temp = u;
+				u = v;
+				v = temp;
+			}
+			if (parents.compareAndSet(u, u, v)) return; // fails if "u" stopped being a root meanwhile: retry
+		}
+	}
+
+	// Unites the endpoints of the edges of nodes in [from, to)
+	private static final class Union extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Graph graph;
+		private final AtomicIntegerArray parents;
+		private final int from, to;
+		Union(Graph graph, AtomicIntegerArray parents, int from, int to) {
+			this.graph = graph;
+			this.parents = parents;
+			this.from = from;
+			this.to = to;
+		}
+		protected void compute() {
+			if (this.to - this.from > GRAIN) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new Union(this.graph, this.parents, this.from, middle),
+						new Union(this.graph, this.parents, middle, this.to));
+				return;
+			}
+			boolean undirected = this.graph.isUndirected(); // undirected edges are stored twice: unite them only once
+			for (int u = this.from; u < this.to; u++) {
+				int[] neighbors = this.graph.neighborsOf(u);
+				for (int e = this.graph.degreeOf(u) - 1; e >= 0; e--) {
+					int v = neighbors[e];
+					if (v < u || (v > u && !undirected)) union(this.parents, u, v);
+				}
+			}
+		}
+	}
+
+	// Labels each node in [from, to) with the root of its set
+	private static final class Label extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final AtomicIntegerArray parents;
+		private final int[] componentOf;
+		private final int from, to;
+		Label(AtomicIntegerArray parents, int[] componentOf, int from, int to) {
+			this.parents = parents;
+			this.componentOf = componentOf;
+			this.from = from;
+			this.to = to;
+		}
+		protected void compute() {
+			if (this.to - this.from > GRAIN) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new Label(this.parents, this.componentOf, this.from, middle),
+						new Label(this.parents, this.componentOf, middle, this.to));
+				return;
+			}
+			for (int i = this.from; i < this.to; i++) {
+				this.componentOf[i] = find(this.parents, i);
+			}
+		}
+	}
+}
@@ -1,98 +1,292 @@
 package datastructures;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
 
 /*
  * A Graph stored as an adjacency list with all nodes and edges of the graph.
  * Provides methods for traversing the graph with depth-first search (DFS) and breadth-first search (BFS).
+ *
+ * Internally, every node added to the graph gets a dense int index in [0, n) in insertion order, and
+ * adjacency and traversal structures are primitive arrays keyed by that index. Node objects and their
+ * String ids are only looked up at the boundaries of the public methods, never in the inner loops.
  */
 public class Graph {
 
 	// Data definitions:
     // =================
 	protected String label; // a name for the graph
-	
+
+	// Nodes of the graph by their dense index
+	private Node[] nodes;
+	private Map<String, Integer> indexMap; //auxiliary structure to check and prevent nodes with same Id's, mapping ids to dense indexes
+
 	// The main adjacency list of the graph:
-	// keys of the map are the graph's nodes and its values are each a set of neighbors of that key-node. 
-	private Map<Node, Set<Node>> graphMap;
-	private Map<String, Node> nodesMap; //auxiliary structure to check and prevent nodes with same Id's
+	// adjacency[i][0..degrees[i]) are the indexes of the neighbors of the node with index "i".
+	private int[][] adjacency;
+	private int[] degrees;
+	// Optional edge weights, alongside the adjacency list: weights[i][k] is the weight of the edge from "i" to adjacency[i][k].
+	// Only allocated when the first edge with a weight other than 1 is added (null means every edge weighs 1).
+	private int[][] weights = null;
+	// Hash sets of the neighbors of the nodes with at least HUB_DEGREE neighbors, so that checking for duplicate edges
+	// doesn't scan their adjacency lists: open addressing with linear probing, storing index+1 (0 is an empty slot).
+	// Only allocated when the first node reaches HUB_DEGREE (null entries are nodes below it).
+	private int[][] neighborSets = null;
 
 	// Indicates graph mode: undirected (default) or directed
 	private boolean undirected = true;
-	
+
 	// Quantity of nodes (n) and edges (m) of the graph
 	private int nNodes = 0;
 	private int mEdges = 0;
+	
+	// Number of changes (nodes or edges added) to the graph, used to tell whether a previous traversal is still valid
+	private int modCount = 0;
+
+	// Connected components kept up to date as nodes and edges are added, by a union-find over the dense indexes
+	// (edges of directed graphs are taken as undirected): componentParents[i] is the parent of "i" in its set
+	// (roots are their own parents) and componentSizes[r] is the number of nodes of the set with root "r".
+	private int[] componentParents;
+	private int[] componentSizes;
+	private int nComponents = 0;
+
+	// Default capacity of the node arrays and of each adjacency list
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int DEFAULT_DEGREE = 4;
+	// Degree from which a node gets a hash set of its neighbors: below it, scanning the list is as fast as hashing
+	private static final int HUB_DEGREE = 32;
 
     // Functions:
     // ==========
 	// Creates an empty graph
 	public Graph(String _label) {
-		this.label = new String(_label);
-		this.graphMap = new HashMap<Node, Set<Node>>();
-		this.nodesMap = new HashMap<String, Node>();
-		this.nNodes = 0;
-		this.mEdges = 0;
+		this(_label, DEFAULT_CAPACITY);
 	}
 
-	// Creates an empty graph of estimated size, what may improve the performance of the HashMap
+	// Creates an empty graph of estimated size, what avoids resizing its internal structures
 	protected Graph( String _label, int size ) {
 		this.label = new String(_label);
-		this.graphMap = new HashMap<Node, Set<Node>>( size );
-		this.nodesMap = new HashMap<String, Node>( size );
+		this.nodes = new Node[size];
+		this.adjacency = new int[size][];
+		this.degrees = new int[size];
+		this.componentParents = new int[size];
+		this.componentSizes = new int[size];
+		this.indexMap = new HashMap<String, Integer>( size * 4 / 3 + 1 );
 		this.nNodes = 0;
 		this.mEdges = 0;
 	}
-	
+
 	// Creates a directed empty graph
 	public Graph( String _label, boolean directed ) {
-		this.label = new String(_label);
-		this.graphMap = new HashMap<Node, Set<Node>>();
-		this.nodesMap = new HashMap<String, Node>();
-		this.nNodes = 0;
-		this.mEdges = 0;
+		this(_label, DEFAULT_CAPACITY);
 		this.undirected = !directed;
 	}
-	
-	// Adds a node to the graph, if it is not already in it. Checks for duplicate nodes by its id and 
+
+	// Adds a node to the graph, if it is not already in it. Checks for duplicate nodes by its id and
 	// returns new node added, or existent if there was already a node with the same id in the graph.
 	public Node addNode( Node newNode ) {
-		if ( !this.containsNode(newNode) ) {
-			this.graphMap.put(newNode, new HashSet<Node>());
-			this.nodesMap.put(newNode.getId(), newNode);
-			this.nNodes++;
-			return newNode;
+		int index = this.addNodeIndex(newNode); // Note: may grow the nodes array
+		return this.nodes[index];
+	}
+
+	// Adds a node to the graph, if it is not already in it, and returns its dense index
+	private int addNodeIndex( Node newNode ) {
+		Integer index = this.indexMap.get(newNode.getId());
+		if ( index != null ) return index;
+		if ( this.nNodes == this.nodes.length ) {
+			int capacity = Math.max(DEFAULT_CAPACITY, this.nodes.length * 2);
+			this.nodes = Arrays.copyOf(this.nodes, capacity);
+			this.adjacency = Arrays.copyOf(this.adjacency, capacity);
+			this.degrees = Arrays.copyOf(this.degrees, capacity);
+			if ( this.weights != null ) this.weights = Arrays.copyOf(this.weights, capacity);
+			if ( this.neighborSets != null ) this.neighborSets = Arrays.copyOf(this.neighborSets, capacity);
+			this.componentParents = Arrays.copyOf(this.componentParents, capacity);
+			this.componentSizes = Arrays.copyOf(this.componentSizes, capacity);
 		}
-		else return this.nodesMap.get(newNode.getId());
+		int newIndex = this.nNodes++;
+		this.modCount++;
+		this.nodes[newIndex] = newNode;
+		this.adjacency[newIndex] = new int[DEFAULT_DEGREE];
+		if ( this.weights != null ) this.weights[newIndex] = new int[DEFAULT_DEGREE];
+		this.componentParents[newIndex] = newIndex; // a new node is a new component
+		this.componentSizes[newIndex] = 1;
+		this.nComponents++;
+		this.indexMap.put(newNode.getId(), newIndex);
+		return newIndex;
 	}
-	
+
+	// Grows the node arrays to hold a given number of nodes (and presizes the index map, if it is still empty)
+	private void ensureCapacity( int capacity ) {
+		if ( capacity <= this.nodes.length ) return;
+		this.nodes = Arrays.copyOf(this.nodes, capacity);
+		this.adjacency = Arrays.copyOf(this.adjacency, capacity);
+		this.degrees = Arrays.copyOf(this.degrees, capacity);
+		if ( this.weights != null ) this.weights = Arrays.copyOf(this.weights, capacity);
+		if ( this.neighborSets != null ) this.neighborSets = Arrays.copyOf(this.neighborSets, capacity);
+		this.componentParents = Arrays.copyOf(this.componentParents, capacity);
+		this.componentSizes = Arrays.copyOf(this.componentSizes, capacity);
+		if ( this.nNodes == 0 ) this.indexMap = new HashMap<String, Integer>( capacity * 4 / 3 + 1 );
+	}
+
 	// Adds an edge to the graph, if it is not already in it; ignores new edge otherwise.
 	// Creates new nodes "from" and "to" if needed.
 	public void addEdge( Node fromNode, Node toNode ) {
-		if ( !this.containsEdge(fromNode,toNode) ) {
-			fromNode = this.addNode(fromNode);
-			toNode = this.addNode(toNode);
-			Set<Node> fromNeighbors = this.graphMap.get(fromNode);
-			if ( !fromNeighbors.contains(toNode) ) {
-				fromNeighbors.add(toNode);
-				this.mEdges++;
-				if (this.undirected) { // creates also the reverse edge for undirected graphs
-					Set<Node> toNeighbors = this.graphMap.get(toNode);
-					toNeighbors.add(fromNode);
-				}
+		this.addEdge(this.addNodeIndex(fromNode), this.addNodeIndex(toNode));
+	}
+
+	// Adds an edge with a given non-negative weight to the graph, if it is not already in it; ignores new edge otherwise.
+	// Creates new nodes "from" and "to" if needed. Edges added without a weight weigh 1.
+	public void addEdge( Node fromNode, Node toNode, int weight ) {
+		if ( weight < 0 ) throw new IllegalArgumentException("Negative weight " + weight + " of edge " + fromNode + "-" + toNode);
+		this.addEdge(this.addNodeIndex(fromNode), this.addNodeIndex(toNode), weight);
+	}
+
+	// Adds an edge between the nodes with given dense indexes, if it is not already in the graph
+	private void addEdge( int from, int to ) {
+		this.addEdge(from, to, 1);
+	}
+
+	// Checking for a duplicate costs O(1) expected: a scan of at most HUB_DEGREE neighbors, or a hash set lookup for hubs
+	private void addEdge( int from, int to, int weight ) {
+		if ( this.degrees[from] >= HUB_DEGREE ) this.ensureNeighborSet(from); // ex. lists installed by addAll
+		if ( !this.containsEdge(from, to) ) {
+			if ( weight != 1 && this.weights == null ) this.allocateWeights();
+			this.appendNeighbor(from, to, weight);
+			this.mEdges++;
+			this.modCount++;
+			this.unite(from, to);
+			if ( this.undirected && from != to ) { // creates also the reverse edge for undirected graphs
+				this.appendNeighbor(to, from, weight);
 			}
 		}
 	}
-	
+
+	// Allocates the weights of all the edges, all of them 1, alongside the adjacency list
+	private void allocateWeights() {
+		this.weights = new int[this.nodes.length][];
+		for (int i = 0; i < this.nNodes; i++) {
+			this.weights[i] = new int[this.adjacency[i].length];
+			Arrays.fill(this.weights[i], 0, this.degrees[i], 1);
+		}
+	}
+
+	// Adds nodes and their adjacency lists built by a GraphBuilder: lists[i] holds the sorted and distinct indexes
+	// in "newNodes" of the neighbors of newNodes[i] (for undirected graphs, each edge is in the lists of both endpoints).
+	// Into an empty graph, the lists are installed as they are; otherwise edges are merged one by one.
+	void addAll( Node[] newNodes, int[][] lists ) {
+		boolean install = (this.mEdges == 0 && this.weights == null);
+		this.ensureCapacity(this.nNodes + newNodes.length);
+		int[] index = new int[newNodes.length];
+		for (int i = 0; i < newNodes.length; i++) {
+			index[i] = this.addNodeIndex(newNodes[i]);
+			if ( index[i] != i ) install = false; // duplicate or previous nodes: indexes differ from the builder ones
+		}
+		if ( install ) {
+			long entries = 0, selfLoops = 0;
+			for (int i = 0; i < newNodes.length; i++) {
+				if ( lists[i].length > 0 ) this.adjacency[i] = lists[i]; // empty lists keep their default capacity
+				this.degrees[i] = lists[i].length;
+				entries += lists[i].length;
+				if ( Arrays.binarySearch(lists[i], i) >= 0 ) selfLoops++;
+				for (int k = 0; k < lists[i].length; k++) this.unite(i, lists[i][k]);
+			}
+			this.mEdges = (int) (this.undirected ? (entries + selfLoops) / 2 : entries);
+			this.modCount++;
+		} else {
+			for (int i = 0; i < newNodes.length; i++) {
+				for (int k = 0; k < lists[i].length; k++) this.addEdge(index[i], index[lists[i][k]]);
+			}
+		}
+	}
+
+	// Returns the root of the component set of the node with a given dense index, halving the path on the way.
+	// Halving only makes nodes point to farther ancestors, so concurrent queries may race on it harmlessly.
+	private int findComponent( int i ) {
+		int[] parents = this.componentParents;
+		while ( parents[i] != i ) {
+			int grandParent = parents[parents[i]];
+			parents[i] = grandParent;
+			i = grandParent;
+		}
+		return i;
+	}
+
+	// Unites the component sets of two nodes by their dense indexes, linking the smaller set to the larger one
+	private void unite( int u, int v ) {
+		int ru = this.findComponent(u), rv = this.findComponent(v);
+		if ( ru == rv ) return;
+		if ( this.componentSizes[ru] < this.componentSizes[rv] ) {
+			int temp = ru;
+			ru = rv;
+			rv = temp;
+		}
+		this.componentParents[rv] = ru;
+		this.componentSizes[ru] += this.componentSizes[rv];
+		this.nComponents--;
+	}
+
+	// Appends "to" to the adjacency list of "from" (and its weight, if the graph has weights), growing it if needed
+	private void appendNeighbor( int from, int to, int weight ) {
+		int[] neighbors = this.adjacency[from];
+		if ( this.degrees[from] == neighbors.length ) {
+			neighbors = Arrays.copyOf(neighbors, neighbors.length * 2);
+			this.adjacency[from] = neighbors;
+			if ( this.weights != null ) this.weights[from] = Arrays.copyOf(this.weights[from], neighbors.length);
+		}
+		if ( this.weights != null ) this.weights[from][this.degrees[from]] = weight;
+		neighbors[this.degrees[from]++] = to;
+		if ( this.degrees[from] >= HUB_DEGREE ) {
+			int[] set = (this.neighborSets == null) ? null : this.neighborSets[from];
+			if ( set != null && 2 * this.degrees[from] <= set.length ) {
+				addToNeighborSet(set, to);
+			} else {
+				// The set is (re)built from the list, which already has "to", when the node becomes a hub or the set gets half full
+				if ( set != null ) this.neighborSets[from] = null;
+				this.ensureNeighborSet(from);
+			}
+		}
+	}
+
+	// Builds the neighbor set of a hub from its adjacency list, if it has none, at most a quarter full
+	private void ensureNeighborSet( int from ) {
+		if ( this.neighborSets == null ) this.neighborSets = new int[this.nodes.length][];
+		if ( this.neighborSets[from] != null ) return;
+		int[] set = new int[Integer.highestOneBit(4 * this.degrees[from] - 1) << 1];
+		int[] neighbors = this.adjacency[from];
+		for (int k = 0; k < this.degrees[from]; k++) addToNeighborSet(set, neighbors[k]);
+		this.neighborSets[from] = set;
+	}
+
+	// Inserts a dense index into a neighbor set (whose length is a power of 2 and which is never full)
+	private static void addToNeighborSet( int[] set, int index ) {
+		int mask = set.length - 1;
+		int slot = hashIndex(index) & mask;
+		while ( set[slot] != 0 ) {
+			if ( set[slot] == index + 1 ) return;
+			slot = (slot + 1) & mask;
+		}
+		set[slot] = index + 1;
+	}
+
+	// Scrambles the bits of a dense index, since consecutive indexes would otherwise fill consecutive slots
+	private static int hashIndex( int index ) {
+		return index * 0x9E3779B9;
+	}
+
 	// Prints a human-readable text representing the graph
 	public void println() {
 		System.out.println(this.stringfy());
@@ -102,367 +296,667 @@ public class Graph {
 	public String toString() {
 		return this.getLabel() + "={" + this.getN() + " node(s)," + this.getM() + " edge(s)}";
 	}
-	
+
 	// Produces a human-readable string representing the graph
 	public String stringfy() {
-		return this.label + "=" + this.graphMap.toString();
+		StringBuilder result = new StringBuilder(this.label).append("={");
+		for (int i = 0; i < this.nNodes; i++) {
+			if (i > 0) result.append(", ");
+			result.append(this.nodes[i]).append('=').append(new NeighborSet(i));
+		}
+		return result.append('}').toString();
 	}
-	
+
 	// Returns the label of the graph
 	public String getLabel() {
 		return this.label;
 	}
-	
+
+	// Produces true if the graph is undirected, false otherwise
+	public boolean isUndirected() {
+		return this.undirected;
+	}
+
 	// Returns the graph amount of vertices in the graph
 	public int getN() {
 		return this.nNodes;
 	}
-	
+
 	// Returns the graph amount of edges in the graph
 	public int getM() {
 		return this.mEdges;
 	}
 
-	// Returns an specific node of the graph by its id or null if not existent 
+	// Produces true if any edge of the graph has a weight other than 1
+	public boolean isWeighted() {
+		return this.weights != null;
+	}
+
+	// Returns the weight of the edge from node "from" to node "to", or -1 if there is no such edge
+	public int getWeight(Node from, Node to) {
+		int u = this.indexOf(from), v = this.indexOf(to);
+		if ( u < 0 || v < 0 ) return -1;
+		int[] neighbors = this.adjacency[u];
+		for (int k = this.degrees[u] - 1; k >= 0; k--) {
+			if ( neighbors[k] == v ) return this.weightAt(u, k);
+		}
+		return -1;
+	}
+
+	// Returns an specific node of the graph by its id or null if not existent
 	public Node getNodeById(String id) {
-			return nodesMap.get(id);
+		Integer index = this.indexMap.get(id);
+		if ( index == null ) return null;
+		else return this.nodes[index];
 	}
-	
-	// Returns a set with all the nodes of the graph
+
+	// Returns a set with all the nodes of the graph (a read-only view, in insertion order)
 	public Set<Node> getNodes() {
-		Set<Node> keySet = this.graphMap.keySet();
-		return keySet;
+		return new NodeSet();
 	}
-	
-	// Returns a set with all the neighbors of a given node
+
+	// Returns a set with all the neighbors of a given node (a read-only view), or null if the node doesn't belong to the graph
 	public Set<Node> getNeighbors(Node node) {
-		Set<Node> neighbors = this.graphMap.get(node);
-		return neighbors;
+		int index = this.indexOf(node);
+		if ( index < 0 ) return null;
+		else return new NeighborSet(index);
 	}
 
 	// Produces true if graph contains a given node, false otherwise
 	public boolean containsNode(Node aNode) {
-		return this.nodesMap.containsKey(aNode.getId());
+		return this.indexMap.containsKey(aNode.getId());
 	}
-	
-	// Produces true if graph contains given edge, false otherwise
-	private boolean containsEdge(Node fromNode, Node toNode) {
-		if ( this.nodesMap.containsKey(fromNode.getId()) ) {
-			fromNode = this.nodesMap.get(fromNode.getId());
-			if ( this.nodesMap.containsKey(toNode.getId()) ) {
-				toNode = this.nodesMap.get(toNode.getId());
-				Set<Node> neighbors = this.graphMap.get(fromNode);
-				if ( neighbors != null ) return neighbors.contains(toNode);
-				else return false;
-			} else return false;
-		} else return false;
+
+	// Produces true if graph contains given edge, false otherwise: a lookup in the neighbor set of hubs that have one,
+	// otherwise a scan of the adjacency list, O(degree). Only addEdge builds neighbor sets, so concurrent readers never write.
+	private boolean containsEdge(int from, int to) {
+		int[][] sets = this.neighborSets;
+		int[] set = (sets == null) ? null : sets[from];
+		if ( set != null ) {
+			int mask = set.length - 1;
+			for (int slot = hashIndex(to) & mask; set[slot] != 0; slot = (slot + 1) & mask) {
+				if ( set[slot] == to + 1 ) return true;
+			}
+			return false;
+		}
+		int[] neighbors = this.adjacency[from];
+		for (int k = this.degrees[from] - 1; k >= 0; k--) {
+			if ( neighbors[k] == to ) return true;
+		}
+		return false;
 	}
-	
+
+	// Dense index access (used by other graph representations of this package):
+	// =========================================================================
+	// Returns the dense index of a given node or -1 if it doesn't belong to the graph
+	int indexOf(Node node) {
+		if ( node == null ) return -1;
+		Integer index = this.indexMap.get(node.getId());
+		if ( index == null ) return -1;
+		else return index;
+	}
+
+	// Returns the node with a given dense index
+	Node nodeAt(int index) {
+		return this.nodes[index];
+	}
+
+	// Returns the number of neighbors of the node with a given dense index
+	int degreeOf(int index) {
+		return this.degrees[index];
+	}
+
+	// Returns the adjacency list of the node with a given dense index; only its first degreeOf(index) entries are valid
+	int[] neighborsOf(int index) {
+		return this.adjacency[index];
+	}
+
+	// Returns the weight of the edge to the k-th neighbor of the node with a given dense index
+	int weightAt(int index, int k) {
+		return (this.weights == null) ? 1 : this.weights[index][k];
+	}
+
+	// Read-only set of all nodes of the graph
+	private class NodeSet extends AbstractSet<Node> {
+		public int size() {
+			return nNodes;
+		}
+		public boolean contains(Object o) {
+			return (o instanceof Node) && containsNode((Node) o);
+		}
+		public Iterator<Node> iterator() {
+			return new Iterator<Node>() {
+				private int next = 0;
+				public boolean hasNext() {
+					return next < nNodes;
+				}
+				public Node next() {
+					if ( !hasNext() ) throw new NoSuchElementException();
+					return nodes[next++];
+				}
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+	// Read-only set of the neighbors of the node with a given dense index
+	private class NeighborSet extends AbstractSet<Node> {
+		private final int index;
+		NeighborSet(int index) {
+			this.index = index;
+		}
+		public int size() {
+			return degrees[index];
+		}
+		public boolean contains(Object o) {
+			if ( !(o instanceof Node) ) return false;
+			int other = indexOf((Node) o);
+			return other >= 0 && containsEdge(index, other);
+		}
+		public Iterator<Node> iterator() {
+			return new Iterator<Node>() {
+				private int next = 0;
+				public boolean hasNext() {
+					return next < degrees[index];
+				}
+				public Node next() {
+					if ( !hasNext() ) throw new NoSuchElementException();
+					return nodes[adjacency[index][next++]];
+				}
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+	// Produces an immutable compressed-sparse-row snapshot of the graph, for read-heavy traversals.
+	// Note: later changes to the graph are not reflected in the snapshot, and edge weights are not part of it.
+	public CompactGraph freeze() {
+		return new CompactGraph(this);
+	}
+
+	// Writes the graph to a binary file that can be loaded back instantly by GraphFile.load, as a CompactGraph
+	public void save(File file) throws IOException {
+		GraphFile.save(this, file);
+	}
+
 	// Traversal Algorithms - Methods and auxiliary structures:
 	// ==========================================================
-	// Temporary structure to control already visited nodes during a traversal algorithm (DFS and BFS)
-	private Set<Node> visitedSet = null;
-	
-	/*
-	 *  Pre and Post control structures (used by DFS)
-	 */
-	
-	// Maps nodes by their id to their pre value.
-	private Map<String, Integer> preMap = null;
-	// Stores the next pre value to be assigned to a visited node by DFS
-	private int nextPreValue = 0;
-	// Stores the lowest value between the pre value of a node u and the pre value of an ancestor w of u and there is a back-edge from some descendant of u to w.
-	// Used by DFS to determine articulation nodes
-	private Map<String, Integer> lowMap = null;
-	//TODO private Map<String, Integer> postMap = null;
-	
-	
-	/*
-	 *  Articulation nodes set (used by DFS)
-	 */
-	private Set<Node> articulationNodes = null;
-	
-	
 	/*
-	 *  Connected Components structures (used by DFS)
+	 *  Every traversal keeps its state (visited set, parents, pre and low values, components...) in a Traversal of
+	 *  its own, so depthFirst, breadthFirst and getShortestPath can be called by many threads at the same time,
+	 *  as long as the graph is not changed meanwhile.
+	 *  dfs and bfs also publish their result as the last DFS or BFS of the graph, queried by getCCs,
+	 *  getArticulationNodes... and reused by getShortestPath.
 	 */
-	int ccNumber = -1; // only valid after the graph is traversed by a complete DFS or BFS
-	private Vector<Graph> CCs = null;
-	
-	
-	/*
-	 *  Parents map (used by BFS and DFS)
-	 *  Keys are the children and each value is their corresponding parent in a DFS or BFS tree.
-	 *  Used to determine shortest paths in BFS and to determine articulation points in DFS.
-	 */
-	Map<Node,Node> parentsMap = null;
-	
-	
-	// Returns the number of connected components of the graph computed by a complete DFS traversal or -1 if the graph has never been traversed by DFS
-	public int getNumberOfCCs() {
-		if ( !this.visitedSet.isEmpty() ) {
-			return this.ccNumber+1;
-		} else return -1;
+	private volatile Traversal lastDFS = null;
+	private volatile Traversal lastBFS = null;
+	// Receives the statistics of every traversal (DFS, BFS and shortest path searches), if any
+	private volatile TraversalListener listener = null;
+
+	// Sets the listener that receives the statistics of every traversal of the graph, ex. a TraversalMetrics (null for none).
+	// Statistics are only timed and built when there is a listener.
+	public void setTraversalListener(TraversalListener listener) {
+		this.listener = listener;
 	}
-	
-	// Returns the connected components of the graph computed by a complete DFS traversal (null if the graph has never been traversed by DFS)
-	public Vector<Graph> getCCs() {
-		return this.CCs;
+
+	public TraversalListener getTraversalListener() {
+		return this.listener;
 	}
-	
-	// Returns the number of articulation nodes of the graph computed by a complete DFS traversal (-1 if the graph has never been traversed by DFS)
-	public int getNumberOfArticulationNodes() {
-		int nArtNodes = -1;
-		if( this.articulationNodes != null ) {
-			nArtNodes = this.articulationNodes.size();
-		}
-		
-		return nArtNodes;
+
+	// Returns the bytes of a BitSet (or bitmap) of "n" bits, for the memory estimates of the traversals
+	private static long bitSetBytes(int n) {
+		return 8L * ((n + 63) >>> 6);
 	}
-	
-	// Returns the set of articulation nodes of the graph computed by a complete DFS traversal (null if the graph has never been traversed by DFS)
-	public Set<Node> getArticulationNodes() {
-		return this.articulationNodes;
+
+	// Returns the number of changes to the graph, to tell whether a traversal is still valid
+	int getModCount() {
+		return this.modCount;
 	}
-	
-	// Produces true if given node has already been visited in a graph traversal
-	private boolean isVisited(Node node) {
-		boolean contains = this.visitedSet.contains(node);
-		return contains;
+
+	// Returns the number of connected components of the graph (weakly connected ones, for directed graphs).
+	// Components are kept up to date as nodes and edges are added, so no traversal is needed: O(1).
+	public int getNumberOfCCs() {
+		return this.nComponents;
 	}
 
-	// Mark a given node as "visited" in a graph traversal
-	private void markVisited(Node node) {
-		this.visitedSet.add(node);
+	// Produces true if there is a path between two nodes, ignoring edge directions; false if any of them doesn't belong to the graph.
+	// Components are kept up to date as nodes and edges are added, so no traversal is needed: O(alpha(n)) amortized.
+	public boolean areConnected(Node u, Node v) {
+		int iu = this.indexOf(u), iv = this.indexOf(v);
+		return iu >= 0 && iv >= 0 && this.findComponent(iu) == this.findComponent(iv);
 	}
-	
-	private void setPreValue(Node node) {
-		String id = node.getId();
-		this.preMap.put(id, this.nextPreValue);
-		this.lowMap.put(id, this.nextPreValue);
-		this.nextPreValue++;
+
+	// Produces true if the graph has a single connected component (ignoring edge directions), or no nodes at all
+	public boolean isConnected() {
+		return this.nComponents <= 1;
 	}
-	
-	private int getPreValue(Node node) {
-		String id = node.getId();
-		int preValue = this.preMap.get(id);
-		return preValue;
+
+	// Returns the connected components of the graph computed by a complete DFS traversal (null if the graph has never been traversed by DFS).
+	// Note: each component is a copy of a sub-graph of the original graph, built on the first call after a DFS.
+	// Use getCCViews() or connectedComponents() to get the components without copying the graph.
+	public Vector<Graph> getCCs() {
+		Traversal last = this.lastDFS;
+		return (last == null) ? null : last.getCCs();
 	}
-	
-	private boolean isDFSRoot(Node node) {
-		// A node in a DFS tree is only a root iff it doesn't have a parent
-		Node parent = this.parentsMap.get(node);
-		return (parent == null);
+
+	// Returns the connected components of the graph computed by a complete DFS traversal as views of the graph
+	// (null if the graph has never been traversed by DFS): nothing is copied, so they cost nothing to build.
+	public Vector<SubgraphView> getCCViews() {
+		Traversal last = this.lastDFS;
+		return (last == null) ? null : last.getCCViews();
 	}
-	
-	/* 
-	 * Used in DFS to determine articulation nodes
-	 * TODO: O(n)?
-	 */
-	private boolean hasMoreThanOneTreeChild(Node node) {
-		Collection<Node> parents = this.parentsMap.values();
-		
-		// Iterate through the parents' collection. If it finds 'node' more than once, return true; false otherwise.
-		// In other words, if 'node' is parent to 2 or more other nodes, it has more than one child.
-		Node parent = null;
-		int childrenCount = 0;
-		for( Iterator<Node> itParents = parents.iterator(); itParents.hasNext(); ) {
-			parent = itParents.next();
-			String parentId = parent.getId();
-			String nodeId = node.getId();
-			if( parentId.equals(nodeId) ) {
-				childrenCount++;
-				if( childrenCount > 1 ) {
-					return true;
-				}
-			}
+
+	// Returns the subgraph induced by some nodes of the graph, as a view of the graph (see SubgraphView): searches on it
+	// only follow edges between those nodes, with no copy of the adjacency. Nodes that don't belong to the graph are ignored.
+	public SubgraphView subgraph(String label, Collection<Node> nodes) {
+		BitSet mask = new BitSet(this.nNodes);
+		for (Node node : nodes) {
+			int index = this.indexOf(node);
+			if (index >= 0) mask.set(index);
 		}
-		
-		return false;
+		return new SubgraphView(this, label, mask);
 	}
 	
+	// Computes the connected components of the graph as a component id per node, using a concurrent union-find
+	// with the tasks of a given pool. Doesn't depend on (nor changes) the state of previous traversals.
+	public ConnectedComponents connectedComponents(ForkJoinPool pool) {
+		return new ConnectedComponents(this, pool);
+	}
+
+	// Computes the biconnectivity index of an undirected graph: its blocks, articulation nodes, bridges and block-cut tree,
+	// for repeated what-if queries (ex: does removing a node disconnect two others?). Doesn't depend on (nor changes)
+	// the state of previous traversals.
+	public BiconnectedComponents biconnectedComponents() {
+		return new BiconnectedComponents(this);
+	}
+
+	// Returns the number of articulation nodes of the graph computed by a complete DFS traversal (-1 if the graph has never been traversed by DFS)
+	public int getNumberOfArticulationNodes() {
+		Traversal last = this.lastDFS;
+		return (last == null) ? -1 : last.getNumberOfArticulationNodes();
+	}
+
+	// Returns the set of articulation nodes of the graph computed by a complete DFS traversal (null if the graph has never been traversed by DFS)
+	public Set<Node> getArticulationNodes() {
+		Traversal last = this.lastDFS;
+		return (last == null) ? null : last.getArticulationNodes();
+	}
+
 	// Performs a Depth-First Search (DFS) in the graph and returns the DFS-Forest.
 	// The DFS-Forest produced is as a List of other Graphs, which are the disconnected DFS-Trees produced by the traversal
 	public List<Graph> dfs(Node start) {
-		if (start == null || !this.containsNode(start)) return null;
-		//Initialize and reset traversal control structures:
-		List<Graph> dfsForest = new LinkedList<Graph>();
-		this.visitedSet = new HashSet<Node>();
-		this.preMap = new HashMap<String, Integer>();
-		this.lowMap = new HashMap<String, Integer>();
-		this.articulationNodes = new HashSet<Node>();
-		this.nextPreValue = 1;
-		//this.postMap = new HashMap<String, Integer>();
-		this.parentsMap = new HashMap<Node, Node>();
-		this.ccNumber = -1;
-		this.CCs = new Vector<Graph>();
+		Traversal traversal = this.depthFirst(start);
+		if (traversal == null) return null;
+		this.lastDFS = traversal;
+		return traversal.getForest();
+	}
+
+	// Performs a complete DFS in the graph, starting from node "start", and returns its result: the DFS-Forest,
+	// connected components and articulation nodes (null if the node doesn't belong to the graph).
+	// Doesn't change the state of the graph, so it may be called by many threads at the same time.
+	public Traversal depthFirst(Node start) {
+		int s = this.indexOf(start);
+		if (s < 0) return null;
+		TraversalListener listener = this.listener;
+		long startTime = (listener == null) ? 0 : System.nanoTime();
+		int n = this.nNodes;
+		int[] parents = new int[n];
+		Arrays.fill(parents, -1);
+		Traversal traversal = new Traversal(this, s, this.modCount, false, new BitSet(n), parents);
+		int[] stack = new int[n];
+		int[] nextNeighbor = new int[n]; // position of the next neighbor to be scanned, for each node in the stack
 
 		// Iterate through all nodes in the graph, starting from "s"
-		for (Iterator<Node> it = this.getNodes().iterator(); it.hasNext();  ) {
-			Node next = null;
-			if (ccNumber == -1) next = start; // this is to force start from "s"
-			else next = it.next();
-			boolean visited = this.isVisited(next);
+		for (int i = -1; i < n; i++) {
+			int next = (i == -1) ? s : i; // this is to force start from "s"
+			boolean visited = traversal.isVisited(next);
 			if( !visited ) {
 				// Initialize a new Connected Component
-				this.ccNumber++;
-				this.CCs.add(new Graph("CC"+ccNumber, !this.undirected)); // Note: Connected components are sub-graphs of original graph and of the same type as it 
-				Graph dfsTree = new Graph("dfsTree"+(this.ccNumber+1), true); // Note: DFS-Tree is directed for the purpose of clarity only
-				dfsVisit(next, dfsTree);
-				dfsForest.add(dfsTree);
+				traversal.ccNumber++;
+				Graph dfsTree = new Graph("dfsTree"+(traversal.ccNumber+1), true); // Note: DFS-Tree is directed for the purpose of clarity only
+				dfsVisit(traversal, next, dfsTree, stack, nextNeighbor);
+				traversal.forest.add(dfsTree);
 			}
 		}
-		
-		/************* Articulation nodes ****************/
-		/*
-		this.articulationNodes = new HashSet<Node>();
-		Graph tree = null;
-		for( Iterator<Graph> itForest = dfsForest.iterator(); itForest.hasNext();  ) {
-			tree = itForest.next();
-			Set<Node> treeNodes = tree.getNodes();
-			Node treeNode = null;
-			for( Iterator<Node> itTree = treeNodes.iterator(); itTree.hasNext(); ) {
-				treeNode = itTree.next();
-				
-				if( this.isDFSRoot(treeNode) && this.hasMoreThanOneTreeChild(treeNode) ) {
-					// If treeNode is root and has more than one child, then it is an articulation node.
-					// See references/articulation-points-or-cut-vertices-in-a-graph.pdf
-					this.articulationNodes.add(treeNode);
-				}
-			}
-		}
-		*/
-		/***************************************************/
-		
-		return dfsForest;
+
+		if (listener != null) // parents, stack, nextNeighbor, pre, low and component ids, plus the visited set
+			listener.traversalFinished(this, TraversalStats.of(TraversalStats.DFS, traversal, System.nanoTime() - startTime, 24L * n + bitSetBytes(n)));
+		return traversal;
 	}
-	
-	private void dfsVisit(Node node, Graph dfsTree) {		
-		this.markVisited(node);
-		this.setPreValue(node);
-		dfsTree.addNode(node);
-		
-		for (Iterator<Node> neighbors = this.getNeighbors(node).iterator(); neighbors.hasNext();  ) {
-			Node next = neighbors.next();
-			// Always insert edge 'node'-'next' into current Connected Component
-			this.CCs.get(this.ccNumber).addEdge(node,next);
-			boolean visited = this.isVisited(next);
-			
-			String nodeId = node.getId();
-			String nextId = next.getId();
-			if( !visited ) {
-				// Insert edge 'node'-'next' into dfsTree
-				dfsTree.addEdge(node, next);
-				
-				//Add node as next's parent to the parents map
-				this.parentsMap.put(next, node);
-				
-				// Visit next node
-				dfsVisit(next, dfsTree);
-				
-			/************* Articulation nodes ****************/
-				// node == u
-				// next == v
-				// See references/articulation-points-or-cut-vertices-in-a-graph.pdf
-				
-				int lowU = this.lowMap.get(nodeId);
-				int lowV = this.lowMap.get(nextId); 
-				int lowest = Math.min(lowU, lowV);
-				this.lowMap.put(nodeId, lowest);
-				
-				if( this.isDFSRoot(node) && this.hasMoreThanOneTreeChild(node) ) {
-					// If treeNode is root and has more than one child, then it is an articulation node.
-					// See references/articulation-points-or-cut-vertices-in-a-graph.pdf
-					this.articulationNodes.add(node);
+
+	// Visits all nodes reachable from "root" in depth-first order, using an explicit stack instead of recursion,
+	// so the traversal depth is not bounded by the thread stack size.
+	// Articulation nodes are found in the same pass, in O(n+m): see references/articulation-points-or-cut-vertices-in-a-graph.pdf
+	private void dfsVisit(Traversal t, int root, Graph dfsTree, int[] stack, int[] nextNeighbor) {
+		int rootChildren = 0; // a root is an articulation node iff it has more than one child in the DFS tree
+		int top = 0;
+		stack[top] = root;
+		nextNeighbor[root] = 0;
+		t.ccIds[root] = t.ccNumber;
+		t.markVisited(root);
+		t.setPreValue(root);
+		dfsTree.addNode(this.nodes[root]);
+
+		while( top >= 0 ) {
+			int node = stack[top];
+			if( nextNeighbor[node] < this.degrees[node] ) {
+				int next = this.adjacency[node][nextNeighbor[node]++];
+				boolean visited = t.isVisited(next);
+
+				if( !visited ) {
+					// Insert edge 'node'-'next' into dfsTree
+					dfsTree.addEdge(this.nodes[node], this.nodes[next]);
+
+					//Add node as next's parent to the parents array
+					t.parents[next] = node;
+					if( node == root ) rootChildren++;
+
+					// Visit next node: push it into the stack
+					t.ccIds[next] = t.ccNumber;
+					t.markVisited(next);
+					t.setPreValue(next);
+					nextNeighbor[next] = 0;
+					stack[++top] = next;
+					if( top > t.maxDepth ) t.maxDepth = top;
 				}
-				
-				int preValueU = this.getPreValue(node);
-				if( !this.isDFSRoot(node) && lowV >= preValueU ) {
-					this.articulationNodes.add(node);
+				else if( !t.isDFSRoot(node) && next != t.parents[node] ) {
+					// Back edge from u = 'node' to an ancestor v = 'next'
+					t.lowValues[node] = Math.min(t.lowValues[node], t.getPreValue(next));
 				}
 			}
 			else {
-				Node parentU = this.parentsMap.get(node);
-				if( parentU != null ) {
-					String parentUId = parentU.getId();
-					if( !nextId.equals(parentUId) ) {
-						int lowU = this.lowMap.get(nodeId);
-						int preValueV = this.getPreValue(next);
-						int lowest = Math.min(lowU, preValueV);
-						this.lowMap.put(nodeId, lowest);
+				// All neighbors of 'node' were scanned: pop it and return to its parent
+				top--;
+				t.edgesScanned += this.degrees[node];
+				int parent = t.parents[node];
+				if( parent >= 0 ) {
+					/************* Articulation nodes ****************/
+					// parent == u
+					// node == v
+					int lowV = t.lowValues[node];
+					t.lowValues[parent] = Math.min(t.lowValues[parent], lowV);
+					if( !t.isDFSRoot(parent) && lowV >= t.getPreValue(parent) ) {
+						t.articulationNodes.add(this.nodes[parent]);
 					}
+					/*************************************************/
 				}
 			}
-			/*************************************************/
+		}
 
+		if( rootChildren > 1 ) {
+			// If root has more than one child, then it is an articulation node.
+			t.articulationNodes.add(this.nodes[root]);
 		}
 	}
-	
+
 	// Performs a Breadth-First Search (BFS) in the graph and returns the BFS-Tree levels in the form of a vector:
 	// Each level[i] is the set of nodes at distance "i" from node "start".
 	public Vector<Set<Node>> bfs(Node start) {
-		if (start == null || !this.containsNode(start)) return null;
-		//Initialize and reset traversal control structures:
-		this.visitedSet = new HashSet<Node>();
-		this.parentsMap = new HashMap<Node,Node>();
-		Map<Node,Integer> distances = new HashMap<Node,Integer>();
+		Traversal traversal = this.breadthFirst(start);
+		if (traversal == null) return null;
+		this.lastBFS = traversal;
+		return traversal.getLevels();
+	}
+
+	// Performs a BFS in the graph from node "start" and returns its result: the BFS-Tree levels and parents, that give
+	// the shortest paths from "start" (null if the node doesn't belong to the graph).
+	// Doesn't change the state of the graph, so it may be called by many threads at the same time.
+	public Traversal breadthFirst(Node start) {
+		int s = this.indexOf(start);
+		if (s < 0) return null;
+		return this.breadthFirst(s, true);
+	}
+
+	// Performs a BFS from the dense index "s"; the listener, if any, only gets its statistics if "report" (searches
+	// made for another query, as getShortestPath does, report the query instead)
+	private Traversal breadthFirst(int s, boolean report) {
+		TraversalListener listener = report ? this.listener : null;
+		long startTime = (listener == null) ? 0 : System.nanoTime();
+		int n = this.nNodes;
+		int[] parents = new int[n];
+		Arrays.fill(parents, -1);
+		Traversal traversal = new Traversal(this, s, this.modCount, true, new BitSet(n), parents);
+		int[] distances = new int[n];
 		Vector<Set<Node>> bfsLevels = new Vector<Set<Node>>();
-		Deque<Node> queue = new LinkedList<Node>();
+		int[] queue = new int[n]; // every node is enqueued at most once, so the queue never wraps
+		int head = 0, tail = 0;
+		long edgesScanned = 0;
 		Set<Node> level = null;
 
-		// Iterates through all nodes in the graph, starting from "s"
-		for (Iterator<Node> it = this.getNodes().iterator(); it.hasNext();  ) {
-			Node next = null;
-			if (level == null) next = start; // this is to force start from "s"
-			else break;                      // may stop if finds another connected component that is not reachable from node "s"
-			boolean visited = isVisited(next);
-			if( !visited ) {
-				this.markVisited(next);
-				queue.add(next);
-				// Initial distance and first level of BFS tree
-				distances.put(next,0);
-				level = new HashSet<Node>();
-				level.add(next);
-				bfsLevels.add(level);
-				while ( !queue.isEmpty() ) {
-					Node u = queue.remove();
-					for (Iterator<Node> neighbors = this.getNeighbors(u).iterator(); neighbors.hasNext();  ) {
-						Node v = neighbors.next();
-						boolean explored = isVisited(v);
-						if( !explored ) {
-							this.parentsMap.put(v,u); // v's parent is u
-							distances.put(v,distances.get(u)+1);
-							if (bfsLevels.size()<distances.get(v)+1) bfsLevels.add(new HashSet<Node>()); // initializes a new level
-							level = bfsLevels.get(distances.get(v));
-							level.add(v);
-							this.markVisited(v);
-							queue.add(v);
-						}
-					}
+		traversal.markVisited(s);
+		queue[tail++] = s;
+		// Initial distance and first level of BFS tree
+		distances[s] = 0;
+		level = new HashSet<Node>();
+		level.add(this.nodes[s]);
+		bfsLevels.add(level);
+		while ( head < tail ) {
+			int u = queue[head++];
+			int[] neighbors = this.adjacency[u];
+			int distanceV = distances[u] + 1;
+			edgesScanned += this.degrees[u];
+			for (int k = 0; k < this.degrees[u]; k++) {
+				int v = neighbors[k];
+				boolean explored = traversal.isVisited(v);
+				if( !explored ) {
+					parents[v] = u; // v's parent is u
+					distances[v] = distanceV;
+					if (bfsLevels.size() < distanceV+1) bfsLevels.add(new HashSet<Node>()); // initializes a new level
+					level = bfsLevels.get(distanceV);
+					level.add(this.nodes[v]);
+					traversal.markVisited(v);
+					queue[tail++] = v;
 				}
 			}
 		}
-		return bfsLevels;
+		traversal.levels = bfsLevels;
+		traversal.edgesScanned = edgesScanned;
+		if (listener != null) // parents, distances and queue, plus the visited set
+			listener.traversalFinished(this, TraversalStats.of(TraversalStats.BFS, traversal, System.nanoTime() - startTime, 12L * n + bitSetBytes(n)));
+		return traversal;
+	}
+
+	// Starts a lazy BFS from node "start" that produces the nodes in BFS order as they are asked for, with their distances,
+	// so the caller may stop at any depth or node without exploring (nor building the levels of) the whole component;
+	// null if the node doesn't belong to the graph. Doesn't change the state of the graph (see BreadthFirstIterator).
+	public BreadthFirstIterator breadthFirstIterator(Node start) {
+		int s = this.indexOf(start);
+		return (s < 0) ? null : new BreadthFirstIterator(this, s);
+	}
+
+	// Performs a level-synchronous parallel BFS with the tasks of a given pool and returns the BFS-Tree levels
+	// exactly as bfs(Node) does, except that each level is a read-only set backed by the BFS visiting order.
+	// For undirected graphs, large levels are expanded bottom-up (see ParallelBFS).
+	public Vector<Set<Node>> bfs(Node start, ForkJoinPool pool) {
+		Traversal traversal = this.breadthFirst(start, pool);
+		if (traversal == null) return null;
+		this.lastBFS = traversal;
+		return traversal.getLevels();
+	}
+
+	// Performs a parallel BFS from node "start" with the tasks of a given pool and returns its result, as breadthFirst(Node) does
+	public Traversal breadthFirst(Node start, ForkJoinPool pool) {
+		int s = this.indexOf(start);
+		if (s < 0) return null;
+		TraversalListener listener = this.listener;
+		long startTime = (listener == null) ? 0 : System.nanoTime();
+		int modCount = this.modCount;
+		ParallelBFS search = new ParallelBFS(this, pool);
+		search.run(s);
+		Traversal traversal = new Traversal(this, s, modCount, true, search.getVisitedSet(), search.getParents());
+		traversal.levels = search.getLevels();
+		traversal.edgesScanned = search.getEdgesScanned();
+		if (listener != null) { // parents, distances, visiting order and level ends, plus the visited bitmap and its copy
+			int n = traversal.parents.length;
+			listener.traversalFinished(this, TraversalStats.of(TraversalStats.PARALLEL_BFS, traversal, System.nanoTime() - startTime, 16L * n + 2 * bitSetBytes(n)));
+		}
+		return traversal;
 	}
 	
 	// Returns the shortest path from node "start" to node "end"; null if any node doesn't belong to the graph
-	// or "end" it is not reachable from "start"
+	// or "end" it is not reachable from "start".
+	// Reuses the tree of the last BFS only if it started from node "start" and the graph has not changed since then;
+	// otherwise, for undirected graphs, runs a bidirectional BFS that stops as soon as both searches meet.
+	// Directed graphs run a new BFS from "start", that becomes the last BFS.
+	// May be called by many threads at the same time (see Traversal).
+	// The listener, if any, gets the statistics of the "search" and "path" (building) phases (a reused tree has an empty search).
 	public LinkedList<Node> getShortestPath(Node start, Node end) {
-		if (start == null || !this.containsNode(start) ||     // node "start" doesn't belong to the graph
-				end == null || !this.containsNode(end) )      // node "end" doesn't belong to the graph
+		int s = this.indexOf(start);
+		int t = this.indexOf(end);
+		if (s < 0 ||      // node "start" doesn't belong to the graph
+				t < 0 )   // node "end" doesn't belong to the graph
 			return null;
-		if (this.parentsMap == null ||                                 // BFS has not been executed yet 
-				((start != end)&&!this.parentsMap.containsKey(end)) )  // or it has not started from node "start"
-			this.bfs(start);                                        // Note: if node "end" is not reachable from node "start" will be checked at the end!
-		// Builds the result list going backwards through node parents list
-		LinkedList<Node> result = new LinkedList<Node>();
-		Node node = end;
-		while ( node != null ) {
-			result.push(node);
-			node = this.parentsMap.get(node);
+		TraversalListener listener = this.listener;
+		long startTime = (listener == null) ? 0 : System.nanoTime();
+		// Nodes visited, edges scanned and levels expanded by the search, time it ended and bytes it allocated
+		long[] stats = (listener == null) ? null : new long[5];
+		LinkedList<Node> result;
+		Traversal tree = this.lastBFS;
+		if ( tree != null && tree.isBFSTreeFrom(s) ) {
+			if ( stats != null ) stats[3] = System.nanoTime();
+			result = tree.getPathTo(end);
+		} else if ( this.undirected ) {
+			result = this.bidirectionalPath(s, t, stats);
+		} else {
+			tree = this.breadthFirst(s, false);               // Note: if node "end" is not reachable from node "start" will be checked at the end!
+			this.lastBFS = tree;
+			if ( stats != null ) {
+				stats[0] = tree.visitedSet.cardinality();
+				stats[1] = tree.edgesScanned;
+				stats[2] = tree.getLevels().size();
+				stats[3] = System.nanoTime();
+				stats[4] = 12L * this.nNodes + bitSetBytes(this.nNodes);
+			}
+			result = tree.getPathTo(end);
+		}
+		if ( listener != null ) {
+			long endTime = System.nanoTime();
+			listener.traversalFinished(this, new TraversalStats(TraversalStats.SHORTEST_PATH, start, (int) stats[0], stats[1], null, (int) stats[2],
+					new String[] { "search", "path" }, new long[] { stats[3] - startTime, endTime - stats[3] }, stats[4]));
 		}
-		if ( result.getFirst() != start) return null; // there is no path from "start" to "end" --> node "end" is not reachable from node "start"!
-		else return result;
+		return result;
 	}
 	
+	// Bidirectional BFS for undirected graphs: alternately expands a whole level of the smaller frontier, from "s" or from "t".
+	// The first edge found between both searches closes a shortest path: before that level no node was reached by both,
+	// so no path is shorter than the current forward depth + 1 + backward depth, and the closing edge is at most that long.
+	// If "stats" is not null, it gets the statistics of the search (see getShortestPath).
+	private LinkedList<Node> bidirectionalPath(int s, int t, long[] stats) {
+		LinkedList<Node> result = new LinkedList<Node>();
+		if ( s == t ) {
+			if ( stats != null ) stats[3] = System.nanoTime();
+			result.add(this.nodes[s]);
+			return result;
+		}
+		byte[] side = new byte[this.nNodes]; // 0 for nodes not reached yet, 1 if reached from "s", 2 if reached from "t"
+		int[] parent = new int[this.nNodes]; // parent of each reached node in the search that reached it
+		int[][] queues = { new int[this.nNodes], new int[this.nNodes] };
+		int[] heads = { 0, 0 }, tails = { 1, 1 };
+		queues[0][0] = s;
+		queues[1][0] = t;
+		side[s] = 1;
+		side[t] = 2;
+		parent[s] = parent[t] = -1;
+		int meetU = -1, meetV = -1; // the closing edge u-v: u reached from "s" and v reached from "t"
+		long edgesScanned = 0;
+		int levels = 0;
+		while ( meetU < 0 && heads[0] < tails[0] && heads[1] < tails[1] ) {
+			int from = (tails[0] - heads[0] <= tails[1] - heads[1]) ? 0 : 1; // expands the smaller frontier
+			int[] queue = queues[from];
+			byte mySide = (byte) (from + 1);
+			int levelEnd = tails[from];
+			for (int head = heads[from]; head < levelEnd && meetU < 0; head++) {
+				int u = queue[head];
+				int[] neighbors = this.adjacency[u];
+				int k = 0;
+				for (; k < this.degrees[u]; k++) {
+					int v = neighbors[k];
+					if ( side[v] == 0 ) {
+						side[v] = mySide;
+						parent[v] = u;
+						queue[tails[from]++] = v;
+					} else if ( side[v] != mySide ) {
+						meetU = (from == 0) ? u : v;
+						meetV = (from == 0) ? v : u;
+						k++;
+						break;
+					}
+				}
+				edgesScanned += k;
+			}
+			heads[from] = levelEnd;
+			levels++;
+		}
+		if ( stats != null ) { // side, parents and both queues
+			stats[0] = tails[0] + tails[1];
+			stats[1] = edgesScanned;
+			stats[2] = levels;
+			stats[3] = System.nanoTime();
+			stats[4] = 13L * this.nNodes;
+		}
+		if ( meetU < 0 ) return null; // node "end" is not reachable from node "start"!
+		for (int node = meetU; node >= 0; node = parent[node]) result.push(this.nodes[node]);
+		for (int node = meetV; node >= 0; node = parent[node]) result.add(this.nodes[node]);
+		return result;
+	}
+
+	// Weighted shortest paths:
+	// ========================
+	// Computes the shortest paths over the edge weights from node "source" to every node, by Dijkstra's algorithm
+	// (null if the node doesn't belong to the graph). May be called by many threads at the same time.
+	public ShortestPaths dijkstra(Node source) {
+		int s = this.indexOf(source);
+		if (s < 0) return null;
+		long[] distances = new long[this.nNodes];
+		int[] parents = new int[this.nNodes];
+		this.dijkstra(s, -1, distances, parents);
+		return new ShortestPaths(this, s, distances, parents);
+	}
+
+	// Returns a shortest path over the edge weights from node "start" to node "end"; null if any node doesn't belong
+	// to the graph or "end" is not reachable from "start". The search stops as soon as the distance of "end" is final.
+	public LinkedList<Node> getShortestWeightedPath(Node start, Node end) {
+		int s = this.indexOf(start);
+		int t = this.indexOf(end);
+		if (s < 0 || t < 0) return null;
+		long[] distances = new long[this.nNodes];
+		int[] parents = new int[this.nNodes];
+		this.dijkstra(s, t, distances, parents);
+		if ( distances[t] == Long.MAX_VALUE ) return null; // node "end" is not reachable from node "start"!
+		LinkedList<Node> result = new LinkedList<Node>();
+		for (int node = t; node >= 0; node = parents[node]) result.push(this.nodes[node]);
+		return result;
+	}
+
+	// Dijkstra's algorithm from "s" with a monotone radix heap (see RadixHeap), filling the distances (Long.MAX_VALUE
+	// if unreachable) and parents arrays. Stops as soon as node "t" is settled (never if "t" is -1).
+	private void dijkstra(int s, int t, long[] distances, int[] parents) {
+		Arrays.fill(distances, Long.MAX_VALUE);
+		Arrays.fill(parents, -1);
+		RadixHeap heap = new RadixHeap();
+		distances[s] = 0;
+		heap.push(0, s);
+		while ( !heap.isEmpty() ) {
+			int u = heap.pop();
+			long distanceU = heap.lastKey();
+			if ( distanceU > distances[u] ) continue; // stale entry: u was settled before with a smaller distance
+			if ( u == t ) break;
+			int[] neighbors = this.adjacency[u];
+			int[] uWeights = (this.weights == null) ? null : this.weights[u];
+			for (int k = 0; k < this.degrees[u]; k++) {
+				int v = neighbors[k];
+				long distanceV = distanceU + ((uWeights == null) ? 1 : uWeights[k]);
+				if ( distanceV < distances[v] ) {
+					distances[v] = distanceV;
+					parents[v] = u;
+					heap.push(distanceV, v);
+				}
+			}
+		}
+	}
+
 }
@@ -0,0 +1,187 @@
+package datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Bulk-loads a Graph from nodes and edges added concurrently by many threads:
+ * - nodes get dense indexes in [0, n) chosen by the caller, and edges are given between those indexes, so
+ *   adding them needs no hashing and no locking: each thread appends packed edges to a buffer of its own;
+ * - addTo then counts the degree of every node, fills exact-size adjacency lists and sorts and removes the
+ *   duplicate edges of every list in parallel, before handing them over to the graph all at once.
+ * Nodes and edges must all be added before addTo is called (ex: by tasks already joined).
+ * addTo takes the edges added so far out of the buffers of the threads (see detachBuffers), so the threads of a
+ * long-lived pool don't keep them; they stay in the builder, and edges added later go to new buffers.
+ */
+public final class GraphBuilder {
+
+	// Constants:
+	// ==========
+	// Number of nodes processed by a single task
+	private static final int GRAIN = 4096;
+	private static final int INITIAL_BUFFER = 1024;
+
+	// Data definitions:
+	// =================
+	private Node[] nodes;
+	private int nNodes;
+	private final boolean undirected;
+
+	// Edges added by each thread, packed as (from << 32 | to): the buffer of each thread is also its value of localBuffer
+	// until addTo detaches it
+	private final List<EdgeBuffer> buffers = new ArrayList<EdgeBuffer>();
+	private volatile ThreadLocal<EdgeBuffer> localBuffer = this.newLocalBuffer();
+
+	// Functions:
+	// ==========
+	// Creates a builder for an undirected graph of "n" nodes
+	public GraphBuilder(int n) {
+		this(n, false);
+	}
+
+	// Creates a builder for a graph of "n" nodes, that may be directed (more nodes may be added by addNode)
+	public GraphBuilder(int n, boolean directed) {
+		this.nodes = new Node[Math.max(n, 16)];
+		this.nNodes = n;
+		this.undirected = !directed;
+	}
+
+	// Creates the thread-local buffers of the edges added by each thread, registered in "buffers"
+	private ThreadLocal<EdgeBuffer> newLocalBuffer() {
+		return new ThreadLocal<EdgeBuffer>() {
+			protected EdgeBuffer initialValue() {
+				EdgeBuffer buffer = new EdgeBuffer(new long[INITIAL_BUFFER], 0);
+				synchronized (buffers) {
+					buffers.add(buffer);
+				}
+				return buffer;
+			}
+		};
+	}
+
+	// Returns the number of nodes of the graph being built
+	public int getN() {
+		return this.nNodes;
+	}
+
+	// Adds a node to the graph being built and returns its dense index (the previous getN())
+	// Note: it must not be called while other threads are setting nodes or adding edges.
+	public synchronized int addNode(Node node) {
+		if (this.nNodes == this.nodes.length) this.nodes = Arrays.copyOf(this.nodes, this.nNodes * 2);
+		this.nodes[this.nNodes] = node;
+		return this.nNodes++;
+	}
+
+	// Sets the node with a given dense index. Different threads may set nodes with different indexes.
+	public void setNode(int index, Node node) {
+		this.nodes[index] = node;
+	}
+
+	// Adds an edge between the nodes with dense indexes "from" and "to". May be called by any thread.
+	public void addEdge(int from, int to) {
+		if (from < 0 || from >= this.nNodes || to < 0 || to >= this.nNodes)
+			throw new IndexOutOfBoundsException("Edge (" + from + ", " + to + ") out of [0, " + this.nNodes + ")");
+		this.localBuffer.get().add(((long) from << 32) | to);
+	}
+
+	// Produces a new graph with all the nodes and edges added to the builder
+	public Graph build(String label, ForkJoinPool pool) {
+		Graph graph = new Graph(label, !this.undirected);
+		this.addTo(graph, pool);
+		return graph;
+	}
+
+	// Adds all the nodes and edges added to the builder to a given graph, using the tasks of a given pool
+	// Note: the graph must have the same mode (directed or undirected) of the builder.
+	public void addTo(Graph graph, ForkJoinPool pool) {
+		if (graph.isUndirected() != this.undirected) throw new IllegalArgumentException("Graph " + graph + " has a different mode");
+		int n = this.nNodes;
+		for (int i = 0; i < n; i++) {
+			if (this.nodes[i] == null) throw new IllegalStateException("Node " + i + " was not set");
+		}
+		// Undirected edges are stored in the lists of both endpoints (self loops only once), as Graph.addEdge does
+		int[] degrees = new int[n];
+		for (EdgeBuffer buffer : this.buffers) {
+			for (int e = 0; e < buffer.size; e++) {
+				int from = (int) (buffer.edges[e] >>> 32), to = (int) buffer.edges[e];
+				degrees[from]++;
+				if (this.undirected && from != to) degrees[to]++;
+			}
+		}
+		int[][] lists = new int[n][];
+		for (int i = 0; i < n; i++) lists[i] = new int[degrees[i]];
+		Arrays.fill(degrees, 0);
+		for (EdgeBuffer buffer : this.buffers) {
+			for (int e = 0; e < buffer.size; e++) {
+				int from = (int) (buffer.edges[e] >>> 32), to = (int) buffer.edges[e];
+				lists[from][degrees[from]++] = to;
+				if (this.undirected && from != to) lists[to][degrees[to]++] = from;
+			}
+		}
+		pool.invoke(new SortLists(lists, 0, n));
+		graph.addAll(Arrays.copyOf(this.nodes, n), lists);
+		this.detachBuffers();
+	}
+
+	// Moves the edges of every buffer to a buffer that only the builder refers to, and starts new thread-local buffers.
+	// A thread keeps its value of a ThreadLocal for as long as it lives (or until a stale entry happens to be expunged),
+	// so otherwise the workers of a long-lived pool would keep up to 8 bytes per edge of every builder they ran for.
+	private void detachBuffers() {
+		synchronized (this.buffers) {
+			for (int b = 0; b < this.buffers.size(); b++) {
+				EdgeBuffer buffer = this.buffers.get(b);
+				this.buffers.set(b, new EdgeBuffer(buffer.edges, buffer.size));
+				buffer.edges = null;
+				buffer.size = 0;
+			}
+		}
+		this.localBuffer = this.newLocalBuffer();
+	}
+
+	// A growable array of packed edges, appended to by a single thread
+	private static final class EdgeBuffer {
+		private long[] edges;
+		private int size;
+
+		EdgeBuffer(long[] edges, int size) {
+			this.edges = edges;
+			this.size = size;
+		}
+
+		void add(long edge) {
+			if (this.size == this.edges.length) this.edges = Arrays.copyOf(this.edges, this.size * 2);
+			this.edges[this.size++] = edge;
+		}
+	}
+
+	// Sorts the adjacency lists of nodes in [from, to) and removes their duplicate neighbors
+	private static final class SortLists extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[][] lists;
+		private final int from, to;
+		SortLists(int[][] lists, int from, int to) {
+			this.lists = lists;
+			this.from = from;
+			this.to = to;
+		}
+		protected void compute() {
+			if (this.to - this.from > GRAIN) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new SortLists(this.lists, this.from, middle), new SortLists(this.lists, middle, this.to));
+				return;
+			}
+			for (int i = this.from; i < this.to; i++) {
+				int[] list = this.lists[i];
+				Arrays.sort(list);
+				int size = 0;
+				for (int k = 0; k < list.length; k++) {
+					if (size == 0 || list[k] != list[size - 1]) list[size++] = list[k];
+				}
+				if (size < list.length) this.lists[i] = Arrays.copyOf(list, size);
+			}
+		}
+	}
+}
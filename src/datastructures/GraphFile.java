@@ -0,0 +1,222 @@
+package datastructures;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/*
+ * A compact binary file format for graphs that is memory-mapped and traversed in place, with no parsing:
+ * loading a graph maps the file and returns a CompactGraph backed by the mapped pages, so it takes
+ * milliseconds whatever the graph size, and several JVMs loading the same file share the page cache.
+ * Node objects are only created when a traversal returns them.
+ *
+ * Layout (all ints are 32-bit little-endian; sections are in this order):
+ * - header: MAGIC, VERSION, flags (1 if undirected), n, m, number of adjacency entries (T), label length in bytes (L)
+ * - label: L bytes of UTF-8, padded with zeros to a multiple of 4
+ * - offsets: n+1 ints; targets: T ints (the CSR adjacency of CompactGraph)
+ * - id offsets: n+1 ints into the id bytes; sorted ids: n dense ids ordered by their id bytes (for lookups by id)
+ * - id bytes: UTF-8 bytes of all node ids, by dense id
+ */
+public final class GraphFile {
+
+	// Constants:
+	// ==========
+	public static final int MAGIC = 0x48505247; // "GRPH"
+	public static final int VERSION = 1;
+	private static final int HEADER_INTS = 7;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	// Creates plain Nodes for the graphs loaded without a NodeFactory
+	private static final NodeFactory NODES = new NodeFactory() {
+		public Node createNode(String id) {
+			return new Node(id);
+		}
+	};
+
+	// Functions:
+	// ==========
+	private GraphFile() {
+	}
+
+	// Writes a graph to a file in the binary format, replacing it if it exists
+	public static void save(Graph graph, File file) throws IOException {
+		save(graph.freeze(), file);
+	}
+
+	// Writes a CSR snapshot of a graph to a file in the binary format, replacing it if it exists
+	public static void save(CompactGraph graph, File file) throws IOException {
+		int n = graph.getN();
+		final byte[][] ids = new byte[n][];
+		long idBytes = 0;
+		for (int i = 0; i < n; i++) {
+			ids[i] = graph.nodeAt(i).getId().getBytes(UTF8);
+			idBytes += ids[i].length;
+		}
+		Integer[] sorted = new Integer[n];
+		for (int i = 0; i < n; i++) sorted[i] = i;
+		Arrays.sort(sorted, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return compareBytes(ids[a], ids[b]);
+			}
+		});
+		byte[] label = graph.getLabel().getBytes(UTF8);
+		CompactGraph.IntSequence offsets = graph.offsets();
+		CompactGraph.IntSequence targets = graph.targets();
+		long size = 4L * HEADER_INTS + padded(label.length) + 4L * (offsets.size() + targets.size())
+				+ 4L * (2 * n + 1) + idBytes;
+		if (size > Integer.MAX_VALUE) throw new IOException("Graph " + graph + " is too large for a single mapped file");
+
+		file.delete();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			out.order(ByteOrder.LITTLE_ENDIAN);
+			out.putInt(MAGIC).putInt(VERSION).putInt(graph.isUndirected() ? 1 : 0);
+			out.putInt(n).putInt(graph.getM()).putInt(targets.size()).putInt(label.length);
+			out.put(label);
+			out.position(out.position() + padded(label.length) - label.length);
+			IntBuffer ints = out.asIntBuffer();
+			for (int k = 0; k < offsets.size(); k++) ints.put(offsets.get(k));
+			for (int k = 0; k < targets.size(); k++) ints.put(targets.get(k));
+			int idOffset = 0;
+			for (int i = 0; i < n; i++) {
+				ints.put(idOffset);
+				idOffset += ids[i].length;
+			}
+			ints.put(idOffset);
+			for (int i = 0; i < n; i++) ints.put(sorted[i]);
+			out.position(out.position() + 4 * ints.position());
+			for (int i = 0; i < n; i++) out.put(ids[i]);
+			out.force();
+		}
+	}
+
+	// Maps a graph file and returns it as a CompactGraph of plain Nodes
+	public static CompactGraph load(File file) throws IOException {
+		return load(file, NODES);
+	}
+
+	// Maps a graph file and returns it as a CompactGraph whose nodes are created by a given factory
+	public static CompactGraph load(File file, NodeFactory factory) throws IOException {
+		MappedByteBuffer in;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) throw new IOException(file + " is too large for a single mapped file");
+			in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} // Note: the mapping stays valid after the channel is closed
+		in.order(ByteOrder.LITTLE_ENDIAN);
+		if (in.remaining() < 4 * HEADER_INTS || in.getInt() != MAGIC) throw new IOException(file + " is not a graph file");
+		if (in.getInt() != VERSION) throw new IOException(file + " has an unsupported graph file version");
+		boolean undirected = (in.getInt() & 1) != 0;
+		int n = in.getInt();
+		int m = in.getInt();
+		int nTargets = in.getInt();
+		byte[] label = new byte[in.getInt()];
+		in.get(label);
+		in.position(in.position() + padded(label.length) - label.length);
+
+		MappedInts offsets = slice(in, n + 1);
+		MappedInts targets = slice(in, nTargets);
+		MappedInts idOffsets = slice(in, n + 1);
+		MappedInts sortedIds = slice(in, n);
+		ByteBuffer idBytes = in.slice();
+		return new CompactGraph(new String(label, UTF8), undirected, m, new MappedDictionary(factory, idOffsets, sortedIds, idBytes),
+				offsets, targets);
+	}
+
+	// Returns the next "count" ints of a buffer as mapped ints, advancing the buffer past them
+	private static MappedInts slice(ByteBuffer in, int count) {
+		ByteBuffer section = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+		section.limit(4 * count);
+		in.position(in.position() + 4 * count);
+		return new MappedInts(section);
+	}
+
+	private static int padded(int length) {
+		return (length + 3) & ~3;
+	}
+
+	// Compares two byte strings as unsigned bytes, in lexicographic order
+	private static int compareBytes(byte[] a, byte[] b) {
+		for (int k = 0; k < a.length && k < b.length; k++) {
+			int diff = (a[k] & 0xFF) - (b[k] & 0xFF);
+			if (diff != 0) return diff;
+		}
+		return a.length - b.length;
+	}
+
+	// A section of little-endian ints of a mapped file, read with absolute gets on the byte buffer (no IntBuffer view
+	// in between, so reading an int is a single call that the JIT turns into a load)
+	private static final class MappedInts implements CompactGraph.IntSequence {
+		private final ByteBuffer bytes;
+
+		MappedInts(ByteBuffer bytes) {
+			this.bytes = bytes;
+		}
+		public int size() {
+			return this.bytes.limit() >> 2;
+		}
+		public int get(int index) {
+			return this.bytes.getInt(index << 2);
+		}
+	}
+
+	// A node dictionary read from the mapped id sections: nodes are created on first access and then cached,
+	// and ids are found by binary search over the sorted ids, with no hash map to build at load time
+	private static final class MappedDictionary implements CompactGraph.NodeDictionary {
+		private final NodeFactory factory;
+		private final MappedInts idOffsets;
+		private final MappedInts sortedIds;
+		private final ByteBuffer idBytes;
+		private final Node[] nodes;
+
+		MappedDictionary(NodeFactory factory, MappedInts idOffsets, MappedInts sortedIds, ByteBuffer idBytes) {
+			this.factory = factory;
+			this.idOffsets = idOffsets;
+			this.sortedIds = sortedIds;
+			this.idBytes = idBytes;
+			this.nodes = new Node[sortedIds.size()];
+		}
+
+		public int size() {
+			return this.nodes.length;
+		}
+
+		public Node nodeAt(int index) {
+			Node node = this.nodes[index];
+			if (node == null) {
+				node = this.factory.createNode(new String(this.idAt(index), UTF8));
+				this.nodes[index] = node;
+			}
+			return node;
+		}
+
+		public int indexOf(String id) {
+			byte[] key = id.getBytes(UTF8);
+			int low = 0, high = this.nodes.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				int index = this.sortedIds.get(middle);
+				int comparison = compareBytes(this.idAt(index), key);
+				if (comparison < 0) low = middle + 1;
+				else if (comparison > 0) high = middle - 1;
+				else return index;
+			}
+			return -1;
+		}
+
+		private byte[] idAt(int index) {
+			int from = this.idOffsets.get(index);
+			byte[] id = new byte[this.idOffsets.get(index + 1) - from];
+			for (int k = 0; k < id.length; k++) id[k] = this.idBytes.get(from + k);
+			return id;
+		}
+	}
+}
@@ -0,0 +1,311 @@
+package datastructures;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Streaming importers of graph files into a Graph, in any of these text formats:
+ * - edge list: one edge "u v" per line (further columns, like weights, are ignored; a line "u" is an isolated node);
+ * - adjacency list: one line "u v1 v2 ... vk" per node, with an edge from "u" to each of the others;
+ * - DIMACS: a problem line "p <format> n m", nodes 1..n and one edge per line as "e u v" or "a u v [weight]".
+ * Tokens are separated by blanks or commas, and lines starting with "#" or "%" (or "c" in DIMACS) are comments.
+ *
+ * Files are read through a FileChannel and tokens are scanned straight from the read bytes: no line is turned into
+ * a String nor split, and a node id String is only created the first time the node is seen. Edges are collected in a
+ * GraphBuilder, so the adjacency lists are built all at once at the end.
+ */
+public final class GraphReader {
+
+	// Constants:
+	// ==========
+	private static final int BUFFER_BYTES = 1 << 16;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	// Functions:
+	// ==========
+	private GraphReader() {
+	}
+
+	// Reads a graph in the edge list format, directed or undirected
+	public static Graph readEdgeList(File file, String label, boolean directed) throws IOException {
+		GraphBuilder builder = new GraphBuilder(0, directed);
+		try (Tokenizer tokens = new Tokenizer(file)) {
+			NodeTable table = new NodeTable(builder);
+			while (tokens.nextLine()) {
+				if (!tokens.nextToken() || tokens.isComment()) continue;
+				int u = table.indexOf(tokens);
+				if (tokens.nextToken()) builder.addEdge(u, table.indexOf(tokens));
+			}
+		}
+		return build(builder, label);
+	}
+
+	// Reads a graph in the adjacency list format, directed or undirected
+	public static Graph readAdjacencyList(File file, String label, boolean directed) throws IOException {
+		GraphBuilder builder = new GraphBuilder(0, directed);
+		try (Tokenizer tokens = new Tokenizer(file)) {
+			NodeTable table = new NodeTable(builder);
+			while (tokens.nextLine()) {
+				if (!tokens.nextToken() || tokens.isComment()) continue;
+				int u = table.indexOf(tokens);
+				while (tokens.nextToken()) builder.addEdge(u, table.indexOf(tokens));
+			}
+		}
+		return build(builder, label);
+	}
+
+	// Reads a graph in the DIMACS format, directed or undirected. Node ids are "1".."n".
+	public static Graph readDimacs(File file, String label, boolean directed) throws IOException {
+		GraphBuilder builder = new GraphBuilder(0, directed);
+		try (Tokenizer tokens = new Tokenizer(file)) {
+			int n = -1;
+			while (tokens.nextLine()) {
+				if (!tokens.nextToken() || tokens.isComment() || tokens.is("c")) continue;
+				if (tokens.is("p")) {
+					if (n >= 0) throw tokens.error("repeated problem line");
+					tokens.nextToken(); // format, ex: "edge" or "sp"
+					n = tokens.nextInt();
+					for (int i = 1; i <= n; i++) builder.addNode(new Node(Integer.toString(i)));
+				} else if (tokens.is("e") || tokens.is("a")) {
+					if (n < 0) throw tokens.error("edge before the problem line");
+					int u = tokens.nextInt(), v = tokens.nextInt();
+					if (u < 1 || u > n || v < 1 || v > n) throw tokens.error("node out of [1, " + n + "]");
+					builder.addEdge(u - 1, v - 1);
+				} else {
+					throw tokens.error("unknown line type");
+				}
+			}
+		}
+		return build(builder, label);
+	}
+
+	private static Graph build(GraphBuilder builder, String label) {
+		ForkJoinPool pool = new ForkJoinPool();
+		try {
+			return builder.build(label, pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// Scans a file line by line and token by token, holding the current token as bytes
+	private static final class Tokenizer implements AutoCloseable {
+		private final FileChannel channel;
+		private final byte[] bytes = new byte[BUFFER_BYTES];
+		private final ByteBuffer buffer = ByteBuffer.wrap(this.bytes);
+		private int position = 0, limit = 0;
+		private boolean started = false, lineEnded = false;
+		private long lineNumber = 0;
+		// The current token: token[0..length)
+		byte[] token = new byte[64];
+		int length = 0;
+
+		Tokenizer(File file) throws IOException {
+			this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		}
+
+		// Returns the next byte (0..255) without consuming it, or -1 at the end of the file
+		private int peek() throws IOException {
+			while (this.position == this.limit) {
+				this.buffer.clear();
+				int read = this.channel.read(this.buffer);
+				if (read < 0) return -1;
+				this.position = 0;
+				this.limit = read;
+			}
+			return this.bytes[this.position] & 0xFF;
+		}
+
+		private static boolean isSeparator(int c) {
+			return c == ' ' || c == '\t' || c == ',' || c == '\r';
+		}
+
+		// Moves to the beginning of the next line, skipping what is left of the current one; false at the end of the file
+		boolean nextLine() throws IOException {
+			int c;
+			if (this.started) {
+				while ((c = this.peek()) != -1 && c != '\n') this.position++;
+				if (c == -1) return false;
+				this.position++;
+			}
+			this.started = true;
+			this.lineEnded = false;
+			this.lineNumber++;
+			return this.peek() != -1;
+		}
+
+		// Reads the next token of the current line; false if the line has no more tokens
+		boolean nextToken() throws IOException {
+			if (this.lineEnded) return false;
+			int c;
+			while (isSeparator(c = this.peek())) this.position++;
+			if (c == '\n' || c == -1) {
+				this.lineEnded = true;
+				return false;
+			}
+			this.length = 0;
+			while ((c = this.peek()) != -1 && c != '\n' && !isSeparator(c)) {
+				if (this.length == this.token.length) this.token = Arrays.copyOf(this.token, this.length * 2);
+				this.token[this.length++] = (byte) c;
+				this.position++;
+			}
+			return true;
+		}
+
+		// Produces true if the current token starts a comment
+		boolean isComment() {
+			return this.token[0] == '#' || this.token[0] == '%';
+		}
+
+		// Produces true if the current token is a given ASCII word
+		boolean is(String word) {
+			if (this.length != word.length()) return false;
+			for (int k = 0; k < this.length; k++) {
+				if (this.token[k] != word.charAt(k)) return false;
+			}
+			return true;
+		}
+
+		// Reads the next token of the current line as a non-negative int
+		int nextInt() throws IOException {
+			if (!this.nextToken()) throw this.error("missing number");
+			int value = 0;
+			for (int k = 0; k < this.length; k++) {
+				int digit = this.token[k] - '0';
+				if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) throw this.error("invalid number");
+				value = value * 10 + digit;
+			}
+			return value;
+		}
+
+		IOException error(String message) {
+			return new IOException("Line " + this.lineNumber + ": " + message);
+		}
+
+		public void close() throws IOException {
+			this.channel.close();
+		}
+	}
+
+	// Maps node ids, as token bytes, to the dense indexes of a GraphBuilder, adding a node for every new id.
+	// Uses open addressing, so known ids are found without creating any String:
+	// - canonical decimal ids (as in most graph files) are looked up by their value, in a single probe sequence;
+	// - any other id is looked up by its bytes.
+	private static final class NodeTable {
+		private final GraphBuilder builder;
+		// Decimal id slots: (value << 32 | dense index + 1), 0 means an empty slot
+		private long[] numbers = new long[2048];
+		private int nNumbers = 0;
+		// Bytes of the other ids, by their position in this table: ids[starts[p]..starts[p+1]), of the node indexes[p]
+		private byte[] ids = new byte[BUFFER_BYTES];
+		private int[] starts = new int[1025];
+		private int[] indexes = new int[1024];
+		private int size = 0;
+		// Hash slots of the other ids: position + 1 in this table (0 means an empty slot)
+		private int[] slots = new int[2048];
+
+		NodeTable(GraphBuilder builder) {
+			this.builder = builder;
+		}
+
+		// Returns the dense index of the node whose id is the current token, adding it if it is new
+		int indexOf(Tokenizer tokens) {
+			long value = decimalValue(tokens.token, tokens.length);
+			if (value >= 0) return this.indexOfNumber(value, tokens);
+			int mask = this.slots.length - 1;
+			int i = hash(tokens.token, 0, tokens.length) & mask;
+			for (; this.slots[i] != 0; i = (i + 1) & mask) {
+				int p = this.slots[i] - 1;
+				if (this.matches(p, tokens.token, tokens.length)) return this.indexes[p];
+			}
+			int index = this.newNode(tokens);
+			if (this.starts[this.size] + tokens.length > this.ids.length)
+				this.ids = Arrays.copyOf(this.ids, Math.max(this.ids.length * 2, this.starts[this.size] + tokens.length));
+			System.arraycopy(tokens.token, 0, this.ids, this.starts[this.size], tokens.length);
+			if (this.size + 1 == this.indexes.length) {
+				this.indexes = Arrays.copyOf(this.indexes, this.indexes.length * 2);
+				this.starts = Arrays.copyOf(this.starts, this.indexes.length + 1);
+			}
+			this.starts[this.size + 1] = this.starts[this.size] + tokens.length;
+			this.indexes[this.size] = index;
+			this.slots[i] = ++this.size;
+			if (2 * this.size > this.slots.length) this.rehash();
+			return index;
+		}
+
+		private int indexOfNumber(long value, Tokenizer tokens) {
+			int mask = this.numbers.length - 1;
+			int i = mix(value) & mask;
+			for (; this.numbers[i] != 0; i = (i + 1) & mask) {
+				if ((this.numbers[i] >>> 32) == value) return (int) this.numbers[i] - 1;
+			}
+			int index = this.newNode(tokens);
+			this.numbers[i] = (value << 32) | (index + 1);
+			if (2 * ++this.nNumbers > this.numbers.length) {
+				long[] old = this.numbers;
+				this.numbers = new long[old.length * 2];
+				mask = this.numbers.length - 1;
+				for (int k = 0; k < old.length; k++) {
+					if (old[k] == 0) continue;
+					int j = mix(old[k] >>> 32) & mask;
+					while (this.numbers[j] != 0) j = (j + 1) & mask;
+					this.numbers[j] = old[k];
+				}
+			}
+			return index;
+		}
+
+		private int newNode(Tokenizer tokens) {
+			return this.builder.addNode(new Node(new String(tokens.token, 0, tokens.length, UTF8)));
+		}
+
+		private boolean matches(int p, byte[] token, int length) {
+			int start = this.starts[p];
+			if (this.starts[p + 1] - start != length) return false;
+			for (int k = 0; k < length; k++) {
+				if (this.ids[start + k] != token[k]) return false;
+			}
+			return true;
+		}
+
+		private void rehash() {
+			this.slots = new int[this.slots.length * 2];
+			int mask = this.slots.length - 1;
+			for (int p = 0; p < this.size; p++) {
+				int i = hash(this.ids, this.starts[p], this.starts[p + 1]) & mask;
+				while (this.slots[i] != 0) i = (i + 1) & mask;
+				this.slots[i] = p + 1;
+			}
+		}
+
+		// Returns the value of a token in canonical decimal form (no sign nor leading zeros) below 2^31, or -1 otherwise
+		private static long decimalValue(byte[] token, int length) {
+			if (length > 10 || (token[0] == '0' && length > 1)) return -1;
+			long value = 0;
+			for (int k = 0; k < length; k++) {
+				int digit = token[k] - '0';
+				if (digit < 0 || digit > 9) return -1;
+				value = value * 10 + digit;
+			}
+			return (value <= Integer.MAX_VALUE) ? value : -1;
+		}
+
+		private static int mix(long value) {
+			int h = (int) value * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+
+		// FNV-1a hash of bytes[from..to)
+		private static int hash(byte[] bytes, int from, int to) {
+			int h = 0x811C9DC5;
+			for (int k = from; k < to; k++) h = (h ^ bytes[k]) * 0x01000193;
+			return h ^ (h >>> 16);
+		}
+	}
+}
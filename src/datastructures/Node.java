@@ -13,11 +13,18 @@ public class Node {
 		this.id = nodeId;
 	}
 	
+	// Two nodes are equal iff they have the same id
 	public boolean equals(Object anObject) {
+		if ( !(anObject instanceof Node) ) return false;
 		Node temp = (Node) anObject;
 		return this.id.equals(temp.getId());
 	}
 	
+	// Consistent with equals: nodes with the same id have the same hash code
+	public int hashCode() {
+		return this.id.hashCode();
+	}
+	
 	public String toString() {
 		return this.id;
 	}
@@ -0,0 +1,7 @@
+package datastructures;
+
+// Creates the node of a given id, so that graphs loaded from files (see GraphFile) get nodes of the right class
+public interface NodeFactory {
+
+	Node createNode(String id);
+}
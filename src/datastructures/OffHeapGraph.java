@@ -0,0 +1,331 @@
+package datastructures;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/*
+ * Builds graphs whose node ids and adjacency lists live in off-heap memory (direct ByteBuffers), so the heap size and
+ * the GC pauses don't grow with the number of edges: nodes and edges are added by id, and build() sorts and
+ * deduplicates the adjacency lists into a CompactGraph, with the same traversal methods of Graph.
+ * Node objects are created (by a NodeFactory) only when a traversal returns them, and are not cached.
+ * Note: traversals still keep their own O(n) arrays (pre values, parents...) on the heap.
+ *
+ * Memory is allocated in chunks of up to 1 GB, so the graph is not bounded by the 2 GB of a single buffer, only by the
+ * int positions of CompactGraph: up to 2^31-1 adjacency entries (about a billion undirected edges).
+ * Off-heap memory counts against -XX:MaxDirectMemorySize, not -Xmx, and is released when the builder and the graph
+ * it built become unreachable (direct buffers are freed by the garbage collector).
+ * Not thread-safe: a graph is built by a single thread (the CompactGraph built may be shared, as usual).
+ */
+public final class OffHeapGraph {
+
+	// Constants:
+	// ==========
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	// Creates plain Nodes for the graphs built without a NodeFactory
+	private static final NodeFactory NODES = new NodeFactory() {
+		public Node createNode(String id) {
+			return new Node(id);
+		}
+	};
+
+	// Data definitions:
+	// =================
+	private final String label;
+	private final boolean undirected;
+	private final Dictionary dictionary;
+	// Edges added so far by dense ids of their endpoints: edges[2k] -> edges[2k+1] (null after build)
+	private Ints edges = new Ints();
+
+	// Functions:
+	// ==========
+	// Creates an empty builder of a graph of plain Nodes
+	public OffHeapGraph(String label, boolean directed) {
+		this(label, directed, NODES);
+	}
+
+	// Creates an empty builder of a graph whose nodes are created by a given factory
+	public OffHeapGraph(String label, boolean directed, NodeFactory factory) {
+		this.label = label;
+		this.undirected = !directed;
+		this.dictionary = new Dictionary(factory);
+	}
+
+	// Adds a node with a given id, if it is not already in the graph
+	public void addNode(String id) {
+		this.checkNotBuilt();
+		this.dictionary.add(id);
+	}
+
+	// Adds an edge between the nodes with given ids, creating them if needed. Repeated edges are removed by build.
+	public void addEdge(String fromId, String toId) {
+		this.checkNotBuilt();
+		if (this.edges.size() > Integer.MAX_VALUE - 2) throw new IllegalStateException("Too many edges for graph " + this.label);
+		this.edges.add(this.dictionary.add(fromId));
+		this.edges.add(this.dictionary.add(toId));
+	}
+
+	// Returns the number of nodes added so far
+	public int getN() {
+		return this.dictionary.size();
+	}
+
+	// Returns the number of edges added so far, with repetitions
+	public int getEdgesAdded() {
+		return (this.edges == null) ? 0 : this.edges.size() / 2;
+	}
+
+	private void checkNotBuilt() {
+		if (this.edges == null) throw new IllegalStateException("Graph " + this.label + " was already built");
+	}
+
+	// Builds the CSR adjacency of the graph in off-heap memory and returns it as a CompactGraph.
+	// Adjacency lists are sorted and without repeated edges. The builder can't be used anymore.
+	public CompactGraph build() {
+		this.checkNotBuilt();
+		int n = this.dictionary.size();
+		int nEdges = this.edges.size() / 2;
+		// Counts the adjacency entries of each node: offsets[i+1] is the degree of "i", then the end of its list
+		Ints offsets = new Ints();
+		offsets.resize(n + 1);
+		for (int e = 0; e < nEdges; e++) {
+			int from = this.edges.get(2 * e), to = this.edges.get(2 * e + 1);
+			offsets.set(from + 1, offsets.get(from + 1) + 1);
+			if (this.undirected && from != to) offsets.set(to + 1, offsets.get(to + 1) + 1);
+		}
+		long total = 0;
+		for (int i = 1; i <= n; i++) {
+			total += offsets.get(i);
+			if (total > Integer.MAX_VALUE) throw new IllegalStateException("Too many adjacency entries for graph " + this.label);
+			offsets.set(i, (int) total);
+		}
+		// Fills the adjacency lists, with the next free position of each one in "cursors"
+		Ints targets = new Ints();
+		targets.resize((int) total);
+		Ints cursors = new Ints();
+		cursors.resize(n);
+		for (int i = 0; i < n; i++) cursors.set(i, offsets.get(i));
+		for (int e = 0; e < nEdges; e++) {
+			int from = this.edges.get(2 * e), to = this.edges.get(2 * e + 1);
+			int position = cursors.get(from);
+			targets.set(position, to);
+			cursors.set(from, position + 1);
+			if (this.undirected && from != to) {
+				position = cursors.get(to);
+				targets.set(position, from);
+				cursors.set(to, position + 1);
+			}
+		}
+		this.edges = null;
+		cursors = null;
+		// Sorts every list and removes repeated edges, compacting the targets in place:
+		// list "i" is read from its old range before offsets[i] is overwritten with its new start
+		int[] list = new int[16];
+		int write = 0, readFrom = 0;
+		long selfLoops = 0;
+		for (int i = 0; i < n; i++) {
+			int readTo = offsets.get(i + 1);
+			int degree = readTo - readFrom;
+			if (list.length < degree) list = new int[Math.max(degree, 2 * list.length)];
+			for (int k = 0; k < degree; k++) list[k] = targets.get(readFrom + k);
+			Arrays.sort(list, 0, degree);
+			offsets.set(i, write);
+			for (int k = 0; k < degree; k++) {
+				if (k > 0 && list[k] == list[k - 1]) continue;
+				targets.set(write++, list[k]);
+				if (list[k] == i) selfLoops++;
+			}
+			readFrom = readTo;
+		}
+		offsets.set(n, write);
+		targets.resize(write);
+		int m = (int) (this.undirected ? (write + selfLoops) / 2 : write);
+		return new CompactGraph(this.label, this.undirected, m, this.dictionary, offsets, targets);
+	}
+
+	// Growable off-heap memory addressed by byte positions: a first direct buffer that doubles up to a whole chunk,
+	// then more chunks. Ints and longs are aligned, so they never cross chunks; new memory is always zeroed.
+	static final class Memory {
+		private static final int CHUNK_BITS = 30;
+		private static final int CHUNK_BYTES = 1 << CHUNK_BITS;
+		private static final int CHUNK_MASK = CHUNK_BYTES - 1;
+		private static final int MINIMUM_BYTES = 1 << 12;
+
+		private ByteBuffer[] chunks = new ByteBuffer[0];
+		private long capacity = 0;
+
+		void ensureCapacity(long bytes) {
+			if (bytes <= this.capacity) return;
+			if (this.chunks.length == 0 || this.capacity < CHUNK_BYTES) {
+				long size = Math.max(MINIMUM_BYTES, 2 * this.capacity);
+				while (size < bytes && size < CHUNK_BYTES) size *= 2;
+				ByteBuffer first = ByteBuffer.allocateDirect((int) Math.min(size, CHUNK_BYTES)).order(ByteOrder.nativeOrder());
+				if (this.chunks.length > 0) {
+					ByteBuffer old = this.chunks[0].duplicate();
+					old.clear();
+					first.put(old);
+					first.clear();
+				}
+				this.chunks = new ByteBuffer[] { first };
+				this.capacity = first.capacity();
+			}
+			while (this.capacity < bytes) {
+				this.chunks = Arrays.copyOf(this.chunks, this.chunks.length + 1);
+				this.chunks[this.chunks.length - 1] = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.nativeOrder());
+				this.capacity += CHUNK_BYTES;
+			}
+		}
+
+		int getInt(long position) {
+			return this.chunks[(int) (position >>> CHUNK_BITS)].getInt((int) position & CHUNK_MASK);
+		}
+
+		void putInt(long position, int value) {
+			this.chunks[(int) (position >>> CHUNK_BITS)].putInt((int) position & CHUNK_MASK, value);
+		}
+
+		long getLong(long position) {
+			return this.chunks[(int) (position >>> CHUNK_BITS)].getLong((int) position & CHUNK_MASK);
+		}
+
+		void putLong(long position, long value) {
+			this.chunks[(int) (position >>> CHUNK_BITS)].putLong((int) position & CHUNK_MASK, value);
+		}
+
+		byte get(long position) {
+			return this.chunks[(int) (position >>> CHUNK_BITS)].get((int) position & CHUNK_MASK);
+		}
+
+		void put(long position, byte value) {
+			this.chunks[(int) (position >>> CHUNK_BITS)].put((int) position & CHUNK_MASK, value);
+		}
+	}
+
+	// A growable sequence of ints in off-heap memory
+	static final class Ints implements CompactGraph.IntSequence {
+		private final Memory memory = new Memory();
+		private int size = 0;
+
+		public int size() {
+			return this.size;
+		}
+		// Reads the chunk directly rather than through Memory.getInt, as traversals of built graphs call it per edge
+		public int get(int index) {
+			long position = 4L * index;
+			return this.memory.chunks[(int) (position >>> Memory.CHUNK_BITS)].getInt((int) position & Memory.CHUNK_MASK);
+		}
+		void set(int index, int value) {
+			this.memory.putInt(4L * index, value);
+		}
+		void add(int value) {
+			this.memory.ensureCapacity(4L * (this.size + 1));
+			this.memory.putInt(4L * this.size++, value);
+		}
+		// Changes the size of the sequence; new ints are 0, unless the sequence was longer before
+		void resize(int size) {
+			this.memory.ensureCapacity(4L * size);
+			this.size = size;
+		}
+	}
+
+	// A node dictionary in off-heap memory: the UTF-8 bytes of all the ids, by dense id, and an open addressing hash
+	// table from ids to dense ids. Nodes are created by the factory whenever they are asked for.
+	static final class Dictionary implements CompactGraph.NodeDictionary {
+		private final NodeFactory factory;
+		private int size = 0;
+		// Ids of the node with dense id "i" are bytes idBytes[idOffsets[i]..idOffsets[i+1]) (idOffsets are longs)
+		private final Memory idOffsets = new Memory();
+		private final Memory idBytes = new Memory();
+		// Hash of the id of each node, and the table: each slot is 0 if empty or a dense id plus 1 (linear probing)
+		private final Ints hashes = new Ints();
+		private Ints table = new Ints();
+
+		Dictionary(NodeFactory factory) {
+			this.factory = factory;
+			this.idOffsets.ensureCapacity(8);
+			this.table.resize(16);
+		}
+
+		public int size() {
+			return this.size;
+		}
+
+		public Node nodeAt(int index) {
+			return this.factory.createNode(new String(this.idAt(index), UTF8));
+		}
+
+		public int indexOf(String id) {
+			byte[] key = id.getBytes(UTF8);
+			return this.table.get(this.slotOf(key, hash(key))) - 1;
+		}
+
+		// Returns the dense id of a given id, adding it if it is new
+		int add(String id) {
+			byte[] key = id.getBytes(UTF8);
+			int hash = hash(key);
+			int slot = this.slotOf(key, hash);
+			int entry = this.table.get(slot);
+			if (entry != 0) return entry - 1;
+			if (this.size == Integer.MAX_VALUE - 1) throw new IllegalStateException("Too many nodes");
+			int index = this.size++;
+			long from = this.idOffsets.getLong(8L * index);
+			this.idBytes.ensureCapacity(from + key.length);
+			for (int k = 0; k < key.length; k++) this.idBytes.put(from + k, key[k]);
+			this.idOffsets.ensureCapacity(8L * (index + 2));
+			this.idOffsets.putLong(8L * (index + 1), from + key.length);
+			this.hashes.add(hash);
+			this.table.set(slot, index + 1);
+			if (2L * this.size > this.table.size()) this.rehash(2 * this.table.size());
+			return index;
+		}
+
+		// Returns the slot of the table with a given id, or the empty slot where it would be
+		private int slotOf(byte[] key, int hash) {
+			int mask = this.table.size() - 1;
+			for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+				int entry = this.table.get(slot);
+				if (entry == 0 || (this.hashes.get(entry - 1) == hash && this.hasId(entry - 1, key))) return slot;
+			}
+		}
+
+		private void rehash(int capacity) {
+			Ints larger = new Ints();
+			larger.resize(capacity);
+			int mask = capacity - 1;
+			for (int index = 0; index < this.size; index++) {
+				int slot = this.hashes.get(index) & mask;
+				while (larger.get(slot) != 0) slot = (slot + 1) & mask;
+				larger.set(slot, index + 1);
+			}
+			this.table = larger;
+		}
+
+		private boolean hasId(int index, byte[] key) {
+			long from = this.idOffsets.getLong(8L * index);
+			if (this.idOffsets.getLong(8L * (index + 1)) - from != key.length) return false;
+			for (int k = 0; k < key.length; k++) {
+				if (this.idBytes.get(from + k) != key[k]) return false;
+			}
+			return true;
+		}
+
+		private byte[] idAt(int index) {
+			long from = this.idOffsets.getLong(8L * index);
+			byte[] id = new byte[(int) (this.idOffsets.getLong(8L * (index + 1)) - from)];
+			for (int k = 0; k < id.length; k++) id[k] = this.idBytes.get(from + k);
+			return id;
+		}
+
+		// Spreads the bits of the hash of an id, since the table uses its lowest bits
+		private static int hash(byte[] key) {
+			int h = Arrays.hashCode(key);
+			h ^= h >>> 16;
+			h *= 0x85ebca6b;
+			h ^= h >>> 13;
+			h *= 0xc2b2ae35;
+			return h ^ (h >>> 16);
+		}
+	}
+}
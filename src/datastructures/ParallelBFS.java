@@ -0,0 +1,269 @@
+package datastructures;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * A level-synchronous Breadth-First Search (BFS) over the dense indexes of a Graph, where each
+ * frontier level is expanded in parallel by the tasks of a ForkJoinPool.
+ * - Nodes are claimed with a compare-and-set on an atomic visited bitmap, so each node gets exactly one parent;
+ * - For undirected graphs the search is direction-optimizing: when the frontier gets large it switches to
+ *   bottom-up steps, where every unvisited node looks for a parent in the frontier, and back to top-down
+ *   steps when the frontier shrinks again (see Beamer, Asanovic and Patterson, "Direction-Optimizing BFS").
+ * Used by Graph.bfs(Node, ForkJoinPool).
+ */
+final class ParallelBFS {
+
+	// Constants:
+	// ==========
+	// Number of frontier nodes (top-down) or graph nodes (bottom-up, a multiple of 64) processed by a single task
+	private static final int GRAIN = 2048;
+	// Heuristic thresholds for switching between top-down and bottom-up steps
+	private static final int ALPHA = 14;
+	private static final int BETA = 24;
+
+	// Data definitions:
+	// =================
+	private final Graph graph;
+	private final ForkJoinPool pool;
+	private final int n;
+
+	// Visited bitmap: bit "i" of word i/64 is set iff node "i" has been claimed by some task
+	private final AtomicLongArray visited;
+	// BFS tree and distances by dense index (-1 for the source and unreached nodes)
+	private final int[] parents;
+	private final int[] distances;
+	// Visiting order: levelEnds[k] is the position in "order" where level "k" ends
+	private final int[] order;
+	private final int[] levelEnds;
+	private int levels = 0;
+	// Adjacency entries read by all the steps
+	private long edgesScanned = 0;
+
+	// Functions:
+	// ==========
+	ParallelBFS(Graph graph, ForkJoinPool pool) {
+		this.graph = graph;
+		this.pool = pool;
+		this.n = graph.getN();
+		this.visited = new AtomicLongArray((this.n + 63) >>> 6);
+		this.parents = new int[this.n];
+		this.distances = new int[this.n];
+		this.order = new int[this.n];
+		this.levelEnds = new int[this.n + 1];
+		Arrays.fill(this.parents, -1);
+		Arrays.fill(this.distances, -1);
+	}
+
+	// Claims node "v" for the current level: produces true iff this call was the one that marked it as visited
+	private boolean tryMarkVisited(int v) {
+		int word = v >>> 6;
+		long bit = 1L << v;
+		while (true) {
+			long current = this.visited.get(word);
+			if ((current & bit) != 0) return false;
+			if (this.visited.compareAndSet(word, current, current | bit)) return true;
+		}
+	}
+
+	private boolean isVisited(int v) {
+		return (this.visited.get(v >>> 6) & (1L << v)) != 0;
+	}
+
+	// Runs the BFS from the node with dense index "source"
+	void run(int source) {
+		this.tryMarkVisited(source);
+		this.distances[source] = 0;
+		this.order[0] = source;
+		int head = 0, tail = 1;
+		long unexploredEdges = 0; // adjacency entries of nodes not yet visited (m_u)
+		for (int i = 0; i < this.n; i++) unexploredEdges += this.graph.degreeOf(i);
+		long frontierEdges = this.graph.degreeOf(source); // adjacency entries of the current frontier (m_f)
+		unexploredEdges -= frontierEdges;
+		boolean bottomUp = false;
+		long[] frontierBits = null;
+
+		while (head < tail) {
+			int frontierSize = tail - head;
+			if (this.graph.isUndirected()) {
+				if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) bottomUp = true;
+				else if (bottomUp && frontierSize < this.n / BETA) bottomUp = false;
+			}
+			Step[] steps;
+			if (bottomUp) {
+				if (frontierBits == null) frontierBits = new long[(this.n + 63) >>> 6];
+				else Arrays.fill(frontierBits, 0L);
+				for (int k = head; k < tail; k++) frontierBits[this.order[k] >>> 6] |= 1L << this.order[k];
+				steps = new Step[(this.n + GRAIN - 1) / GRAIN];
+				for (int t = 0; t < steps.length; t++)
+					steps[t] = new BottomUpStep(t * GRAIN, Math.min(this.n, (t + 1) * GRAIN), frontierBits, this.levels);
+			} else {
+				steps = new Step[(frontierSize + GRAIN - 1) / GRAIN];
+				for (int t = 0; t < steps.length; t++)
+					steps[t] = new TopDownStep(head + t * GRAIN, Math.min(tail, head + (t + 1) * GRAIN), this.levels);
+			}
+			this.pool.invoke(new Level(steps));
+
+			// Appends the nodes found by every step to the visiting order: they form the next frontier
+			this.levelEnds[this.levels++] = tail;
+			head = tail;
+			frontierEdges = 0;
+			for (int t = 0; t < steps.length; t++) {
+				System.arraycopy(steps[t].found, 0, this.order, tail, steps[t].count);
+				tail += steps[t].count;
+				frontierEdges += steps[t].foundEdges;
+				this.edgesScanned += steps[t].scannedEdges;
+			}
+			unexploredEdges -= frontierEdges;
+		}
+	}
+
+	// Returns the BFS levels: each level[i] is a read-only set of the nodes at distance "i" from the source
+	Vector<Set<Node>> getLevels() {
+		Vector<Set<Node>> bfsLevels = new Vector<Set<Node>>(this.levels);
+		int from = 0;
+		for (int k = 0; k < this.levels; k++) {
+			bfsLevels.add(new LevelSet(from, this.levelEnds[k], k));
+			from = this.levelEnds[k];
+		}
+		return bfsLevels;
+	}
+
+	// Returns the number of adjacency entries read by the BFS
+	long getEdgesScanned() {
+		return this.edgesScanned;
+	}
+
+	// Returns the BFS tree as a parents array by dense index
+	int[] getParents() {
+		return this.parents;
+	}
+
+	// Returns the set of visited nodes by dense index
+	BitSet getVisitedSet() {
+		long[] words = new long[this.visited.length()];
+		for (int w = 0; w < words.length; w++) words[w] = this.visited.get(w);
+		return BitSet.valueOf(words);
+	}
+
+	// Expands a whole level by running all its steps in parallel
+	private static final class Level extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Step[] steps;
+		Level(Step[] steps) {
+			this.steps = steps;
+		}
+		protected void compute() {
+			invokeAll(this.steps);
+		}
+	}
+
+	// A chunk of work of a level, which collects the nodes of the next frontier it finds in its own buffer
+	private abstract class Step extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		protected final int from, to, level;
+		int[] found = new int[64];
+		int count = 0;
+		long foundEdges = 0;
+		long scannedEdges = 0; // adjacency entries read by the step
+		Step(int from, int to, int level) {
+			this.from = from;
+			this.to = to;
+			this.level = level;
+		}
+		// Records "v" as a child of "u" in the next level
+		protected void found(int v, int u) {
+			parents[v] = u;
+			distances[v] = this.level + 1;
+			if (this.count == this.found.length) this.found = Arrays.copyOf(this.found, this.count * 2);
+			this.found[this.count++] = v;
+			this.foundEdges += graph.degreeOf(v);
+		}
+	}
+
+	// Top-down step: the frontier nodes order[from..to) claim their unvisited neighbors
+	private final class TopDownStep extends Step {
+		private static final long serialVersionUID = 1L;
+		TopDownStep(int from, int to, int level) {
+			super(from, to, level);
+		}
+		protected void compute() {
+			for (int k = this.from; k < this.to; k++) {
+				int u = order[k];
+				int[] neighbors = graph.neighborsOf(u);
+				this.scannedEdges += graph.degreeOf(u);
+				for (int e = graph.degreeOf(u) - 1; e >= 0; e--) {
+					int v = neighbors[e];
+					if (!isVisited(v) && tryMarkVisited(v)) this.found(v, u);
+				}
+			}
+		}
+	}
+
+	// Bottom-up step: the unvisited nodes in [from..to) look for any neighbor in the frontier bitmap
+	private final class BottomUpStep extends Step {
+		private static final long serialVersionUID = 1L;
+		private final long[] frontierBits;
+		BottomUpStep(int from, int to, long[] frontierBits, int level) {
+			super(from, to, level);
+			this.frontierBits = frontierBits;
+		}
+		protected void compute() {
+			for (int v = this.from; v < this.to; v++) {
+				if (isVisited(v)) continue;
+				int[] neighbors = graph.neighborsOf(v);
+				int e = graph.degreeOf(v) - 1;
+				for (; e >= 0; e--) {
+					int u = neighbors[e];
+					if ((this.frontierBits[u >>> 6] & (1L << u)) != 0) {
+						tryMarkVisited(v); // nobody else scans "v" in this step
+						this.found(v, u);
+						break;
+					}
+				}
+				this.scannedEdges += graph.degreeOf(v) - Math.max(e, 0);
+			}
+		}
+	}
+
+	// Read-only set of the nodes of a BFS level, backed by a slice of the visiting order
+	private final class LevelSet extends AbstractSet<Node> {
+		private final int from, to, level;
+		LevelSet(int from, int to, int level) {
+			this.from = from;
+			this.to = to;
+			this.level = level;
+		}
+		public int size() {
+			return this.to - this.from;
+		}
+		public boolean contains(Object o) {
+			if (!(o instanceof Node)) return false;
+			int index = graph.indexOf((Node) o);
+			return index >= 0 && index < n && distances[index] == this.level;
+		}
+		public Iterator<Node> iterator() {
+			return new Iterator<Node>() {
+				private int next = from;
+				public boolean hasNext() {
+					return this.next < to;
+				}
+				public Node next() {
+					if (!this.hasNext()) throw new NoSuchElementException();
+					return graph.nodeAt(order[this.next++]);
+				}
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,412 @@
+package datastructures;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.Vector;
+
+import datastructures.ShardWorker.Batch;
+
+/*
+ * A Graph split into shards, each one owned by a ShardWorker in a thread or in a process of its own, that runs BFS and
+ * connected components as bulk-synchronous supersteps: in every superstep the coordinator sends each worker the
+ * batch of messages for its nodes, every worker processes them and answers the messages for the next superstep,
+ * and the coordinator routes them to their shards. Workers only talk to the coordinator, through loopback sockets,
+ * so they may as well be on other machines.
+ *
+ * Nodes are assigned to shards by the hash of their ids or by ranges of their ids in lexicographic order.
+ * The shards are a copy of the graph when it was partitioned: later changes to the graph are not seen.
+ * Not thread-safe: the supersteps of one search at a time go through the same sockets.
+ */
+public final class PartitionedGraph implements Closeable {
+
+	// Constants:
+	// ==========
+	// How nodes are assigned to shards
+	public enum Partitioning { HASH, RANGE }
+
+	private static final int BUFFER_BYTES = 1 << 16;
+	// Time given to every worker to finish after it is shut down, before it is abandoned (threads) or killed (processes)
+	private static final long SHUTDOWN_MILLIS = 5000;
+
+	// Data definitions:
+	// =================
+	private final Graph graph;
+	private final int shards;
+	// Global id (see ShardWorker) of each node by dense index, and dense index of each node by shard and local index
+	private final int[] globalIds;
+	private final int[][] denseIndexes;
+	// Connections to the workers, and their threads or processes
+	private final Socket[] sockets;
+	private final DataInputStream[] ins;
+	private final DataOutputStream[] outs;
+	private final Thread[] threads;
+	private final Process[] processes;
+	// Server sockets of the worker threads, until they accept the coordinator (closed to stop a worker that never did)
+	private final ServerSocket[] servers;
+	// Number of supersteps of the last search
+	private int supersteps = 0;
+
+	// Functions:
+	// ==========
+	// Partitions a graph into shards owned by workers running in threads of this JVM
+	public static PartitionedGraph withThreads(Graph graph, int shards, Partitioning partitioning) throws IOException {
+		return new PartitionedGraph(graph, shards, partitioning, false);
+	}
+
+	// Partitions a graph into shards owned by workers running in processes of their own, on this machine
+	// (with the java command and class path of this JVM)
+	public static PartitionedGraph withProcesses(Graph graph, int shards, Partitioning partitioning) throws IOException {
+		return new PartitionedGraph(graph, shards, partitioning, true);
+	}
+
+	private PartitionedGraph(Graph graph, int shards, Partitioning partitioning, boolean processes) throws IOException {
+		if (shards < 1) throw new IllegalArgumentException("Invalid number of shards " + shards);
+		this.graph = graph;
+		this.shards = shards;
+		int n = graph.getN();
+		int[] shardOf = partition(graph, shards, partitioning);
+		int[] sizes = new int[shards];
+		this.globalIds = new int[n];
+		for (int i = 0; i < n; i++) this.globalIds[i] = sizes[shardOf[i]]++ * shards + shardOf[i];
+		this.denseIndexes = new int[shards][];
+		for (int s = 0; s < shards; s++) this.denseIndexes[s] = new int[sizes[s]];
+		for (int i = 0; i < n; i++) this.denseIndexes[shardOf[i]][this.globalIds[i] / shards] = i;
+
+		this.sockets = new Socket[shards];
+		this.ins = new DataInputStream[shards];
+		this.outs = new DataOutputStream[shards];
+		this.threads = new Thread[shards];
+		this.processes = new Process[shards];
+		this.servers = new ServerSocket[shards];
+		try {
+			for (int s = 0; s < shards; s++) {
+				int port = processes ? this.startProcess(s) : this.startThread(s);
+				this.sockets[s] = new Socket(InetAddress.getLoopbackAddress(), port);
+				this.sockets[s].setTcpNoDelay(true);
+				this.ins[s] = new DataInputStream(new BufferedInputStream(this.sockets[s].getInputStream(), BUFFER_BYTES));
+				this.outs[s] = new DataOutputStream(new BufferedOutputStream(this.sockets[s].getOutputStream(), BUFFER_BYTES));
+			}
+			for (int s = 0; s < shards; s++) this.load(s);
+			this.expectAcks();
+		} catch (IOException e) {
+			this.close();
+			throw e;
+		}
+	}
+
+	// Assigns a shard to every node by dense index
+	private static int[] partition(final Graph graph, int shards, Partitioning partitioning) {
+		int n = graph.getN();
+		int[] shardOf = new int[n];
+		if (partitioning == Partitioning.HASH) {
+			for (int i = 0; i < n; i++) shardOf[i] = (graph.nodeAt(i).getId().hashCode() & Integer.MAX_VALUE) % shards;
+		} else {
+			Integer[] sorted = new Integer[n];
+			for (int i = 0; i < n; i++) sorted[i] = i;
+			Arrays.sort(sorted, new Comparator<Integer>() {
+				public int compare(Integer a, Integer b) {
+					return graph.nodeAt(a).getId().compareTo(graph.nodeAt(b).getId());
+				}
+			});
+			for (int k = 0; k < n; k++) shardOf[sorted[k]] = (int) ((long) k * shards / n);
+		}
+		return shardOf;
+	}
+
+	private int startThread(int shard) throws IOException {
+		final ServerSocket server = ShardWorker.listen();
+		this.servers[shard] = server;
+		this.threads[shard] = new Thread("ShardWorker-" + shard) {
+			public void run() {
+				try (Socket socket = server.accept()) {
+					server.close();
+					new ShardWorker().serve(socket);
+				} catch (IOException e) {
+					// the coordinator finds it out when it reads the answer of the worker
+				}
+			}
+		};
+		this.threads[shard].setDaemon(true);
+		this.threads[shard].start();
+		return server.getLocalPort();
+	}
+
+	private int startProcess(int shard) throws IOException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ShardWorker.class.getName());
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		this.processes[shard] = builder.start();
+		// The worker prints its port as soon as it listens to it
+		String line = new BufferedReader(new InputStreamReader(this.processes[shard].getInputStream())).readLine();
+		if (line == null) throw new IOException("Worker process of shard " + shard + " exited before listening");
+		try {
+			return Integer.parseInt(line.trim());
+		} catch (NumberFormatException e) {
+			throw new IOException("Worker process of shard " + shard + " printed \"" + line + "\" instead of its port", e);
+		}
+	}
+
+	// Sends a shard to its worker (see ShardWorker.load)
+	private void load(int shard) throws IOException {
+		DataOutputStream out = this.outs[shard];
+		int[] nodes = this.denseIndexes[shard];
+		out.writeInt(ShardWorker.LOAD);
+		out.writeInt(shard);
+		out.writeInt(this.shards);
+		out.writeInt(nodes.length);
+		out.writeInt(this.graph.isUndirected() ? 1 : 0);
+		for (int i : nodes) {
+			int[] neighbors = this.graph.neighborsOf(i);
+			out.writeInt(this.graph.degreeOf(i));
+			for (int k = 0; k < this.graph.degreeOf(i); k++) out.writeInt(this.globalIds[neighbors[k]]);
+		}
+		if (!this.graph.isUndirected()) {
+			// Workers of directed graphs also get the in-neighbors of their nodes, for weakly connected components
+			int n = this.graph.getN();
+			int[] inDegrees = new int[n];
+			for (int i = 0; i < n; i++) {
+				int[] neighbors = this.graph.neighborsOf(i);
+				for (int k = 0; k < this.graph.degreeOf(i); k++) {
+					if (this.shardOf(neighbors[k]) == shard) inDegrees[neighbors[k]]++;
+				}
+			}
+			int[][] inLists = new int[nodes.length][];
+			for (int l = 0; l < nodes.length; l++) inLists[l] = new int[inDegrees[nodes[l]]];
+			int[] filled = new int[nodes.length];
+			for (int i = 0; i < n; i++) {
+				int[] neighbors = this.graph.neighborsOf(i);
+				for (int k = 0; k < this.graph.degreeOf(i); k++) {
+					int j = neighbors[k];
+					if (this.shardOf(j) != shard) continue;
+					int l = this.globalIds[j] / this.shards;
+					inLists[l][filled[l]++] = this.globalIds[i];
+				}
+			}
+			for (int[] list : inLists) {
+				out.writeInt(list.length);
+				for (int source : list) out.writeInt(source);
+			}
+		}
+		out.flush();
+	}
+
+	private int shardOf(int i) {
+		return this.globalIds[i] % this.shards;
+	}
+
+	private int denseIndexOf(int globalId) {
+		return this.denseIndexes[globalId % this.shards][globalId / this.shards];
+	}
+
+	// Produces an human-readable string with global useful information about the partitioned graph
+	public String toString() {
+		StringBuilder result = new StringBuilder("Partitioned(").append(this.graph.getLabel()).append(")={");
+		for (int s = 0; s < this.shards; s++) result.append((s == 0) ? "" : ", ").append(this.denseIndexes[s].length);
+		return result.append(" node(s) in ").append(this.shards).append(" shard(s)}").toString();
+	}
+
+	public int getShards() {
+		return this.shards;
+	}
+
+	// Returns the shard that owns a given node (-1 if the node didn't belong to the graph when it was partitioned)
+	public int getShard(Node node) {
+		int i = this.graph.indexOf(node);
+		return (i < 0 || i >= this.globalIds.length) ? -1 : this.shardOf(i);
+	}
+
+	// Returns the number of nodes of a given shard
+	public int getShardSize(int shard) {
+		return this.denseIndexes[shard].length;
+	}
+
+	// Returns the number of supersteps of the last search
+	public int getSupersteps() {
+		return this.supersteps;
+	}
+
+	// Performs a distributed BFS and returns the BFS-Tree levels exactly as Graph.bfs does:
+	// each level[i] is the set of nodes at distance "i" from node "start" (null if it doesn't belong to the graph)
+	public Vector<Set<Node>> bfs(Node start) throws IOException {
+		Vector<Set<Node>> bfsLevels = new Vector<Set<Node>>();
+		return (this.bfs(start, -1, bfsLevels, null)) ? bfsLevels : null;
+	}
+
+	// Returns the shortest path from node "start" to node "end" by a distributed BFS that stops at the level of "end";
+	// null if any node doesn't belong to the graph or "end" is not reachable from "start"
+	public LinkedList<Node> getShortestPath(Node start, Node end) throws IOException {
+		int t = this.graph.indexOf(end);
+		if (t < 0 || t >= this.globalIds.length) return null;
+		int[] parents = new int[this.globalIds.length];
+		Arrays.fill(parents, -2);
+		if (!this.bfs(start, t, null, parents) || parents[t] == -2) return null; // node "end" is not reachable from node "start"!
+		LinkedList<Node> result = new LinkedList<Node>();
+		for (int node = t; node >= 0; node = parents[node]) result.push(this.graph.nodeAt(node));
+		return result;
+	}
+
+	// Runs a BFS from node "start" by supersteps, one per level, until no messages are left or node "t" (if not -1)
+	// is reached. Fills the levels and the parents by dense index (-1 for "start"), if not null.
+	// Returns false if "start" didn't belong to the graph when it was partitioned.
+	private boolean bfs(Node start, int t, Vector<Set<Node>> levels, int[] parents) throws IOException {
+		int s = this.graph.indexOf(start);
+		if (s < 0 || s >= this.globalIds.length) return false;
+		for (int shard = 0; shard < this.shards; shard++) this.send(shard, ShardWorker.BFS_START, null);
+		this.expectAcks();
+		Batch[] messages = this.newBatches();
+		messages[this.shardOf(s)].add(this.globalIds[s], -1);
+		this.supersteps = 0;
+		boolean reached = false;
+		while (!reached) {
+			for (int shard = 0; shard < this.shards; shard++) this.send(shard, ShardWorker.BFS_STEP, messages[shard]);
+			this.supersteps++;
+			Set<Node> level = (levels == null) ? null : new HashSet<Node>();
+			long inFlight = 0;
+			Batch[] next = this.newBatches();
+			for (int shard = 0; shard < this.shards; shard++) {
+				Batch found = Batch.read(this.ins[shard]);
+				for (int k = 0; k < found.size; k += 2) {
+					int node = this.denseIndexOf(found.data[k]);
+					if (level != null) level.add(this.graph.nodeAt(node));
+					if (parents != null) parents[node] = (found.data[k + 1] < 0) ? -1 : this.denseIndexOf(found.data[k + 1]);
+					if (node == t) reached = true;
+				}
+				inFlight += this.receive(shard, next);
+			}
+			if (level != null && !level.isEmpty()) levels.add(level);
+			if (inFlight == 0) break;
+			messages = next;
+		}
+		return true;
+	}
+
+	// Computes the connected components (weakly connected ones, for directed graphs) by distributed label propagation:
+	// every worker first unites the nodes of its shard, then sets exchange their least global ids until none changes
+	public ConnectedComponents connectedComponents() throws IOException {
+		for (int shard = 0; shard < this.shards; shard++) this.send(shard, ShardWorker.CC_START, null);
+		this.supersteps = 0;
+		while (true) {
+			Batch[] messages = this.newBatches();
+			long inFlight = 0;
+			for (int shard = 0; shard < this.shards; shard++) inFlight += this.receive(shard, messages);
+			if (inFlight == 0) break;
+			for (int shard = 0; shard < this.shards; shard++) this.send(shard, ShardWorker.CC_STEP, messages[shard]);
+			this.supersteps++;
+		}
+		int[] labels = new int[this.globalIds.length];
+		for (int shard = 0; shard < this.shards; shard++) this.send(shard, ShardWorker.CC_LABELS, null);
+		for (int shard = 0; shard < this.shards; shard++) {
+			DataInputStream in = this.ins[shard];
+			int n = in.readInt();
+			for (int l = 0; l < n; l++) labels[this.denseIndexes[shard][l]] = this.denseIndexOf(in.readInt());
+		}
+		return new ConnectedComponents(this.graph, labels);
+	}
+
+	// Sends a command, with a batch of messages if not null
+	private void send(int shard, int command, Batch messages) throws IOException {
+		this.outs[shard].writeInt(command);
+		if (messages != null) messages.write(this.outs[shard]);
+		this.outs[shard].flush();
+	}
+
+	// Reads the batches of messages of a worker for every shard into "messages" (see ShardWorker.writeBatches)
+	// and returns the number of messages, including the ones the worker kept for its own shard
+	private long receive(int shard, Batch[] messages) throws IOException {
+		long count = 0;
+		for (int s = 0; s < this.shards; s++) {
+			if (s == shard) {
+				count += this.ins[shard].readInt();
+			} else {
+				Batch batch = Batch.read(this.ins[shard]);
+				messages[s].addAll(batch);
+				count += batch.size / 2;
+			}
+		}
+		return count;
+	}
+
+	private void expectAcks() throws IOException {
+		for (int shard = 0; shard < this.shards; shard++) {
+			if (this.ins[shard].readInt() != ShardWorker.ACK) throw new IOException("Unexpected answer of the worker of shard " + shard);
+		}
+	}
+
+	private Batch[] newBatches() {
+		Batch[] batches = new Batch[this.shards];
+		for (int s = 0; s < this.shards; s++) batches[s] = new Batch();
+		return batches;
+	}
+
+	// Shuts the workers down and waits for their threads or processes to finish, for SHUTDOWN_MILLIS at most.
+	// Also cleans up after a failed setup: workers that never got their connection are stopped (threads) or killed (processes).
+	public void close() throws IOException {
+		for (int s = 0; s < this.shards; s++) {
+			if (this.sockets[s] != null) {
+				try {
+					this.sockets[s].setSoTimeout((int) SHUTDOWN_MILLIS);
+					this.send(s, ShardWorker.SHUTDOWN, null);
+					this.ins[s].readInt();
+				} catch (IOException e) {
+					// the worker is already gone, or doesn't answer
+				}
+				this.sockets[s].close();
+				this.sockets[s] = null;
+			} else if (this.processes[s] != null) {
+				this.processes[s].destroy();
+			}
+			if (this.servers[s] != null) {
+				this.servers[s].close(); // a worker thread still waiting for its connection fails to accept it, and ends
+				this.servers[s] = null;
+			}
+		}
+		long deadline = System.currentTimeMillis() + SHUTDOWN_MILLIS;
+		try {
+			for (int s = 0; s < this.shards; s++) {
+				if (this.threads[s] != null) {
+					this.threads[s].join(Math.max(1, deadline - System.currentTimeMillis())); // daemon threads: abandoned if they don't end
+					this.threads[s] = null;
+				}
+				if (this.processes[s] != null) {
+					waitFor(this.processes[s], deadline);
+					this.processes[s] = null;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			for (Process process : this.processes) if (process != null) process.destroy();
+		}
+	}
+
+	// Waits for a process to exit until a given time, and kills it if it didn't
+	private static void waitFor(Process process, long deadline) throws InterruptedException {
+		while (true) {
+			try {
+				process.exitValue();
+				return;
+			} catch (IllegalThreadStateException e) {
+				// still running
+			}
+			if (System.currentTimeMillis() >= deadline) {
+				process.destroy();
+				return;
+			}
+			Thread.sleep(10);
+		}
+	}
+}
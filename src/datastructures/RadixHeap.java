@@ -0,0 +1,91 @@
+package datastructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/*
+ * A monotone priority queue of int values with non-negative long keys, for Dijkstra's algorithm: keys pushed
+ * are never smaller than the key of the last value popped. Values are kept in 65 buckets by the highest bit in
+ * which their key differs from the last popped key; popping only rescans a bucket when the lowest one is empty,
+ * moving its values to lower buckets, so each value is moved at most 64 times: O(log C) amortized per operation
+ * for keys up to C, with no comparisons between values.
+ *
+ * Keys and values are stored in primitive arrays, so pushing and popping allocate nothing (besides growing a bucket).
+ * There is no decrease-key: a value is pushed again with its smaller key, and the caller skips stale entries.
+ */
+final class RadixHeap {
+
+	// Constants:
+	// ==========
+	private static final int BUCKETS = 65;
+	private static final int INITIAL_BUCKET = 16;
+
+	// Data definitions:
+	// =================
+	// Bucket 0 holds the values with key "last"; bucket b > 0 the ones whose key differs from "last" first at bit b-1
+	private final long[][] keys = new long[BUCKETS][];
+	private final int[][] values = new int[BUCKETS][];
+	private final int[] sizes = new int[BUCKETS];
+	private long last = 0;
+	private int size = 0;
+
+	// Functions:
+	// ==========
+	RadixHeap() {
+		for (int b = 0; b < BUCKETS; b++) {
+			this.keys[b] = new long[INITIAL_BUCKET];
+			this.values[b] = new int[INITIAL_BUCKET];
+		}
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	// Returns the key of the last popped value
+	long lastKey() {
+		return this.last;
+	}
+
+	// Adds a value with a given key, that must not be smaller than the key of the last popped value
+	void push(long key, int value) {
+		if (key < this.last) throw new IllegalArgumentException("Key " + key + " is smaller than the last popped key " + this.last);
+		this.add(this.bucketOf(key), key, value);
+		this.size++;
+	}
+
+	// Removes and returns a value with the smallest key (see lastKey)
+	int pop() {
+		if (this.size == 0) throw new NoSuchElementException();
+		if (this.sizes[0] == 0) {
+			int b = 1;
+			while (this.sizes[b] == 0) b++;
+			long[] bucketKeys = this.keys[b];
+			int[] bucketValues = this.values[b];
+			int n = this.sizes[b];
+			long min = bucketKeys[0];
+			for (int i = 1; i < n; i++) min = Math.min(min, bucketKeys[i]);
+			this.last = min;
+			this.sizes[b] = 0;
+			// Every key of bucket b now differs from "last" at a lower bit, so it moves to a lower bucket
+			for (int i = 0; i < n; i++) this.add(this.bucketOf(bucketKeys[i]), bucketKeys[i], bucketValues[i]);
+		}
+		this.size--;
+		return this.values[0][--this.sizes[0]];
+	}
+
+	private int bucketOf(long key) {
+		return (key == this.last) ? 0 : 64 - Long.numberOfLeadingZeros(key ^ this.last);
+	}
+
+	private void add(int b, long key, int value) {
+		int n = this.sizes[b];
+		if (n == this.keys[b].length) {
+			this.keys[b] = Arrays.copyOf(this.keys[b], n * 2);
+			this.values[b] = Arrays.copyOf(this.values[b], n * 2);
+		}
+		this.keys[b][n] = key;
+		this.values[b][n] = value;
+		this.sizes[b] = n + 1;
+	}
+}
@@ -0,0 +1,292 @@
+package datastructures;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+/*
+ * A worker of a PartitionedGraph: owns one shard of the nodes with their adjacency lists, and runs its part of every
+ * bulk-synchronous superstep of a BFS or connected components search when the coordinator asks for it, over a socket.
+ * It runs in a thread of the coordinator JVM or in a process of its own (see main), with the same protocol.
+ *
+ * Nodes are known by global ids: the node with local index "l" in shard "s" of "k" shards has global id l*k+s,
+ * so the shard of any node (and its local index) is found with no lookup table.
+ * Messages are batches of pairs of ints: (node, parent) for BFS and (node, label) for connected components.
+ */
+public final class ShardWorker {
+
+	// Constants:
+	// ==========
+	// Commands of the protocol: each one is an int followed by its arguments, and is answered before the next one
+	static final int LOAD = 1;
+	static final int BFS_START = 2;
+	static final int BFS_STEP = 3;
+	static final int CC_START = 4;
+	static final int CC_STEP = 5;
+	static final int CC_LABELS = 6;
+	static final int SHUTDOWN = 7;
+	static final int ACK = 0;
+
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	// Data definitions:
+	// =================
+	private int shard, shards, n;
+	// Out-neighbors of each local node, by global id, in CSR form (see CompactGraph)
+	private int[] outOffsets, outTargets;
+	// Neighbors of each local node regardless of the edge directions, for connected components (the same arrays for undirected graphs)
+	private int[] linkOffsets, linkTargets;
+
+	// BFS state: parent of each local node by global id (-1 for the source, -2 if not visited yet), and the
+	// messages to nodes of this shard kept for the next superstep instead of going through the coordinator
+	private int[] parents;
+	private Batch pending;
+
+	// Connected components state: union-find of the local nodes over the edges inside the shard, the label of each
+	// local root (least global id known in its component), whether it changed in the current superstep, and the
+	// local nodes with edges to other shards
+	private int[] roots;
+	private int[] labels;
+	private boolean[] changed;
+	private int[] boundary;
+
+	// Functions:
+	// ==========
+	// Runs a worker in a process of its own: prints the port it listens to on the loopback interface, then serves
+	// the first connection until the coordinator shuts it down
+	public static void main(String[] args) throws IOException {
+		ServerSocket server = listen();
+		System.out.println(server.getLocalPort());
+		System.out.flush();
+		try (Socket socket = server.accept()) {
+			server.close();
+			new ShardWorker().serve(socket);
+		}
+	}
+
+	// Opens a server socket on an ephemeral port of the loopback interface
+	static ServerSocket listen() throws IOException {
+		return new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+	}
+
+	// Answers the commands of the coordinator until it shuts the worker down
+	void serve(Socket socket) throws IOException {
+		socket.setTcpNoDelay(true);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_BYTES));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_BYTES));
+		while (true) {
+			int command = in.readInt();
+			switch (command) {
+			case LOAD: this.load(in); out.writeInt(ACK); break;
+			case BFS_START: this.startBFS(); out.writeInt(ACK); break;
+			case BFS_STEP: this.stepBFS(Batch.read(in), out); break;
+			case CC_START: this.startCC(out); break;
+			case CC_STEP: this.stepCC(Batch.read(in), out); break;
+			case CC_LABELS:
+				out.writeInt(this.n);
+				for (int l = 0; l < this.n; l++) out.writeInt(this.labels[this.find(l)]);
+				break;
+			case SHUTDOWN: out.writeInt(ACK); out.flush(); return;
+			default: throw new IOException("Unknown command " + command);
+			}
+			out.flush();
+		}
+	}
+
+	// Reads the shard: its number, the number of shards and of local nodes, whether the graph is undirected,
+	// then the out-neighbors of every local node (and for directed graphs, their in-neighbors too)
+	private void load(DataInputStream in) throws IOException {
+		this.shard = in.readInt();
+		this.shards = in.readInt();
+		this.n = in.readInt();
+		boolean undirected = in.readInt() != 0;
+		this.outOffsets = new int[this.n + 1];
+		this.outTargets = readLists(in, this.n, this.outOffsets);
+		if (undirected) {
+			this.linkOffsets = this.outOffsets;
+			this.linkTargets = this.outTargets;
+		} else {
+			int[] inOffsets = new int[this.n + 1];
+			int[] inTargets = readLists(in, this.n, inOffsets);
+			this.linkOffsets = new int[this.n + 1];
+			this.linkTargets = new int[this.outTargets.length + inTargets.length];
+			for (int l = 0; l < this.n; l++) {
+				int position = this.linkOffsets[l] = this.outOffsets[l] + inOffsets[l];
+				int outDegree = this.outOffsets[l + 1] - this.outOffsets[l], inDegree = inOffsets[l + 1] - inOffsets[l];
+				System.arraycopy(this.outTargets, this.outOffsets[l], this.linkTargets, position, outDegree);
+				System.arraycopy(inTargets, inOffsets[l], this.linkTargets, position + outDegree, inDegree);
+			}
+			this.linkOffsets[this.n] = this.linkTargets.length;
+		}
+		this.parents = new int[this.n];
+	}
+
+	// Reads "n" lists of ints, each one as its length followed by its elements, into CSR form
+	private static int[] readLists(DataInputStream in, int n, int[] offsets) throws IOException {
+		int[] targets = new int[16];
+		for (int l = 0; l < n; l++) {
+			int degree = in.readInt();
+			if (offsets[l] + degree > targets.length) targets = Arrays.copyOf(targets, Math.max(offsets[l] + degree, 2 * targets.length));
+			for (int k = 0; k < degree; k++) targets[offsets[l] + k] = in.readInt();
+			offsets[l + 1] = offsets[l] + degree;
+		}
+		return Arrays.copyOf(targets, offsets[n]);
+	}
+
+	private void startBFS() {
+		Arrays.fill(this.parents, -2);
+		this.pending = new Batch();
+	}
+
+	// A BFS superstep: the (node, parent) messages for nodes of this shard visit the ones not visited yet, which form
+	// this shard's part of the new level; then the new level is expanded into messages for the next superstep.
+	// Answers the new level as (node, parent) pairs and then, for each shard, the number of messages for it
+	// followed by the messages themselves (only the number for this shard, whose messages are kept here).
+	private void stepBFS(Batch messages, DataOutputStream out) throws IOException {
+		Batch level = new Batch();
+		this.visit(messages, level);
+		this.visit(this.pending, level);
+		level.write(out);
+		Batch[] next = this.newBatches();
+		for (int k = 0; k < level.size; k += 2) {
+			int node = level.data[k], l = node / this.shards;
+			for (int e = this.outOffsets[l]; e < this.outOffsets[l + 1]; e++) {
+				int target = this.outTargets[e];
+				int owner = target % this.shards;
+				if (owner != this.shard || this.parents[target / this.shards] == -2) next[owner].add(target, node);
+			}
+		}
+		this.pending = next[this.shard];
+		this.writeBatches(next, out);
+	}
+
+	private void visit(Batch messages, Batch level) {
+		for (int k = 0; k < messages.size; k += 2) {
+			int node = messages.data[k], l = node / this.shards;
+			if (this.parents[l] == -2) {
+				this.parents[l] = messages.data[k + 1];
+				level.add(node, messages.data[k + 1]);
+			}
+		}
+	}
+
+	// Starts a connected components search: unites the local nodes over the edges inside the shard, labels every set
+	// with its least global id and answers the labels of the boundary nodes for their neighbors in other shards
+	private void startCC(DataOutputStream out) throws IOException {
+		this.roots = new int[this.n];
+		for (int l = 0; l < this.n; l++) this.roots[l] = l;
+		int nBoundary = 0;
+		this.boundary = new int[this.n];
+		for (int l = 0; l < this.n; l++) {
+			boolean remote = false;
+			for (int e = this.linkOffsets[l]; e < this.linkOffsets[l + 1]; e++) {
+				int target = this.linkTargets[e];
+				if (target % this.shards == this.shard) this.union(l, target / this.shards);
+				else remote = true;
+			}
+			if (remote) this.boundary[nBoundary++] = l;
+		}
+		this.boundary = Arrays.copyOf(this.boundary, nBoundary);
+		// Local indexes grow with global ids, so the least local index of a set has its least global id
+		this.labels = new int[this.n];
+		for (int l = this.n - 1; l >= 0; l--) this.labels[this.find(l)] = l * this.shards + this.shard;
+		this.changed = new boolean[this.n];
+		Arrays.fill(this.changed, true);
+		this.sendLabels(out);
+	}
+
+	// A connected components superstep: every (node, label) message lowers the label of the set of its node, and the
+	// sets whose labels changed send them to the neighbors of their boundary nodes in other shards
+	private void stepCC(Batch messages, DataOutputStream out) throws IOException {
+		for (int k = 0; k < messages.size; k += 2) {
+			int root = this.find(messages.data[k] / this.shards);
+			if (messages.data[k + 1] < this.labels[root]) {
+				this.labels[root] = messages.data[k + 1];
+				this.changed[root] = true;
+			}
+		}
+		this.sendLabels(out);
+	}
+
+	// Answers, for each shard, the messages with the new labels of the sets that changed, and clears the changes
+	private void sendLabels(DataOutputStream out) throws IOException {
+		Batch[] next = this.newBatches();
+		for (int l : this.boundary) {
+			int root = this.find(l);
+			if (!this.changed[root]) continue;
+			for (int e = this.linkOffsets[l]; e < this.linkOffsets[l + 1]; e++) {
+				int target = this.linkTargets[e];
+				if (target % this.shards != this.shard) next[target % this.shards].add(target, this.labels[root]);
+			}
+		}
+		Arrays.fill(this.changed, false);
+		this.writeBatches(next, out);
+	}
+
+	private int find(int l) {
+		while (this.roots[l] != l) {
+			this.roots[l] = this.roots[this.roots[l]];
+			l = this.roots[l];
+		}
+		return l;
+	}
+
+	// Unites the sets of two local nodes, linking the root with larger index to the other one
+	private void union(int u, int v) {
+		u = this.find(u);
+		v = this.find(v);
+		if (u < v) this.roots[v] = u;
+		else if (v < u) this.roots[u] = v;
+	}
+
+	private Batch[] newBatches() {
+		Batch[] batches = new Batch[this.shards];
+		for (int s = 0; s < this.shards; s++) batches[s] = new Batch();
+		return batches;
+	}
+
+	// Writes the batches for every shard; only the number of messages of the one for this shard
+	private void writeBatches(Batch[] batches, DataOutputStream out) throws IOException {
+		for (int s = 0; s < this.shards; s++) {
+			if (s == this.shard) out.writeInt(batches[s].size / 2);
+			else batches[s].write(out);
+		}
+	}
+
+	// A growable batch of pairs of ints, written as the number of pairs followed by the ints
+	static final class Batch {
+		int[] data = new int[16];
+		int size = 0; // number of ints: twice the number of pairs
+
+		void add(int first, int second) {
+			if (this.size + 2 > this.data.length) this.data = Arrays.copyOf(this.data, 2 * this.data.length);
+			this.data[this.size++] = first;
+			this.data[this.size++] = second;
+		}
+
+		void addAll(Batch other) {
+			if (this.size + other.size > this.data.length) this.data = Arrays.copyOf(this.data, Math.max(this.size + other.size, 2 * this.data.length));
+			System.arraycopy(other.data, 0, this.data, this.size, other.size);
+			this.size += other.size;
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(this.size / 2);
+			for (int k = 0; k < this.size; k++) out.writeInt(this.data[k]);
+		}
+
+		static Batch read(DataInputStream in) throws IOException {
+			Batch batch = new Batch();
+			batch.size = 2 * in.readInt();
+			batch.data = new int[Math.max(batch.size, 16)];
+			for (int k = 0; k < batch.size; k++) batch.data[k] = in.readInt();
+			return batch;
+		}
+	}
+}
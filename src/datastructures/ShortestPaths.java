@@ -0,0 +1,57 @@
+package datastructures;
+
+import java.util.LinkedList;
+
+/*
+ * The result of a single-source shortest path search over the edge weights of a Graph (see Graph.dijkstra):
+ * the distance of every node to the source and the tree of shortest paths.
+ * It is not changed after it is returned, so it can be shared by many threads.
+ */
+public final class ShortestPaths {
+
+	// Data definitions:
+	// =================
+	private final Graph graph;
+	private final int source; // dense index of the source node
+	// Distance of each node by dense index to the source (Long.MAX_VALUE if unreachable)
+	private final long[] distances;
+	// Parent of each node by dense index in the shortest path tree (-1 for the source and unreachable nodes)
+	private final int[] parents;
+
+	// Functions:
+	// ==========
+	ShortestPaths(Graph graph, int source, long[] distances, int[] parents) {
+		this.graph = graph;
+		this.source = source;
+		this.distances = distances;
+		this.parents = parents;
+	}
+
+	// Returns the source node of the search
+	public Node getSource() {
+		return this.graph.nodeAt(this.source);
+	}
+
+	// Returns the sum of the edge weights of a shortest path from the source to a given node;
+	// -1 if the node doesn't belong to the graph or it is not reachable from the source
+	public long getDistance(Node node) {
+		int index = this.graph.indexOf(node);
+		if ( index < 0 || index >= this.distances.length || this.distances[index] == Long.MAX_VALUE ) return -1;
+		else return this.distances[index];
+	}
+
+	// Returns a shortest path from the source to node "end" (both included);
+	// null if "end" doesn't belong to the graph or it is not reachable from the source
+	public LinkedList<Node> getPathTo(Node end) {
+		if ( this.getDistance(end) < 0 ) return null;
+		// Builds the result list going backwards through node parents list
+		LinkedList<Node> result = new LinkedList<Node>();
+		for (int node = this.graph.indexOf(end); node >= 0; node = this.parents[node])
+			result.push(this.graph.nodeAt(node));
+		return result;
+	}
+
+	public String toString() {
+		return "Shortest paths of " + this.graph.getLabel() + " from " + this.getSource();
+	}
+}
@@ -0,0 +1,392 @@
+package datastructures;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Vector;
+
+/*
+ * The subgraph of a Graph induced by some of its nodes: the nodes of a mask (see Graph.subgraph) or of a connected
+ * component (see Graph.getCCViews and ConnectedComponents.getView), with every edge of the graph between two of them.
+ * Nothing is copied: the view reads the adjacency of the graph and skips the nodes outside it, so it costs nothing
+ * to build and any search on it is scoped to it.
+ *
+ * The view follows the edges of the graph as they are, but its nodes are the ones it was given when it was created:
+ * nodes added to the graph later are not in it.
+ *
+ * Like Graph, every search keeps its state in a result of its own (a ViewTraversal), so searches can run concurrently
+ * on a view as long as the graph is not changed meanwhile; dfs and bfs publish theirs as the last DFS or BFS of the view.
+ * The state of a search is sized with the view when it is much smaller than the graph (see SMALL_VIEW_RATIO), and with
+ * the graph otherwise. Listing the nodes of a mask view costs O(|V(graph)|/64), and of a component view O(|V(graph)|):
+ * this is done once for getN and the search slots, and on every call of getNodes().iterator() and getM.
+ */
+public final class SubgraphView {
+
+	// Constants:
+	// ==========
+	// Searches index their state by the nodes of the view, instead of by the dense indexes of the graph, if the graph
+	// has more than SMALL_VIEW_RATIO times as many nodes as the view: a binary search per edge then costs less than
+	// arrays sized with the graph
+	public static final int SMALL_VIEW_RATIO = 8;
+
+	// Data definitions:
+	// =================
+	private final Graph graph;
+	private final String label;
+	// The nodes of the view by dense index of the graph: the ones set in the mask, or else the ones whose component id is "component"
+	private final BitSet mask;
+	private final int[] componentIds;
+	private final int component;
+	// Quantity of nodes (n) and edges (m) of the view, counted the first time they are asked for (-1 until then);
+	// edges are counted again if the graph changed since then (see mModCount)
+	private volatile int nNodes = -1;
+	private int mEdges = -1;
+	private int mModCount = -1;
+	// Sorted dense indexes of the nodes of the view, listed the first time a search of a small view needs them (see searchSlots)
+	private volatile int[] members = null;
+
+	// Functions:
+	// ==========
+	// Creates a view of the nodes set in a mask (by dense index)
+	SubgraphView(Graph graph, String label, BitSet mask) {
+		this.graph = graph;
+		this.label = label;
+		this.mask = mask;
+		this.componentIds = null;
+		this.component = -1;
+	}
+
+	// Creates a view of the nodes with a given component id (by dense index), which has "size" nodes (-1 if unknown)
+	SubgraphView(Graph graph, String label, int[] componentIds, int component, int size) {
+		this.graph = graph;
+		this.label = label;
+		this.mask = null;
+		this.componentIds = componentIds;
+		this.component = component;
+		this.nNodes = size;
+	}
+
+	// Produces true if the node with a given dense index of the graph belongs to the view
+	private boolean includes(int index) {
+		if (this.mask != null) return this.mask.get(index);
+		else return index < this.componentIds.length && this.componentIds[index] == this.component;
+	}
+
+	// Returns the first dense index of a node of the view that is not lower than "from", or -1 if there are none
+	private int nextNode(int from) {
+		if (this.mask != null) return this.mask.nextSetBit(from);
+		for (int i = from; i < this.componentIds.length; i++) if (this.componentIds[i] == this.component) return i;
+		return -1;
+	}
+
+	// Returns the dense index of a node of the view or -1 if it doesn't belong to the view
+	int indexOf(Node node) {
+		int index = this.graph.indexOf(node);
+		return (index >= 0 && this.includes(index)) ? index : -1;
+	}
+
+	// Produces an human-readable string with global useful information about the view
+	public String toString() {
+		return this.getLabel() + "={" + this.getN() + " node(s)," + this.getM() + " edge(s)}";
+	}
+
+	// Returns the label of the view
+	public String getLabel() {
+		return this.label;
+	}
+
+	// Returns the graph this is a view of
+	public Graph getGraph() {
+		return this.graph;
+	}
+
+	// Produces true if the graph is undirected, false otherwise
+	public boolean isUndirected() {
+		return this.graph.isUndirected();
+	}
+
+	// Returns the amount of nodes in the view
+	public int getN() {
+		if (this.nNodes < 0) {
+			int n = 0;
+			if (this.mask != null) n = this.mask.cardinality();
+			else for (int i = this.nextNode(0); i >= 0; i = this.nextNode(i + 1)) n++;
+			this.nNodes = n;
+		}
+		return this.nNodes;
+	}
+
+	// Returns the amount of edges of the graph between nodes of the view, counted as Graph.getM does
+	public synchronized int getM() {
+		if (this.mEdges < 0 || this.mModCount != this.graph.getModCount()) {
+			this.mModCount = this.graph.getModCount();
+			long entries = 0, selfLoops = 0;
+			for (int i = this.nextNode(0); i >= 0; i = this.nextNode(i + 1)) {
+				int[] neighbors = this.graph.neighborsOf(i);
+				for (int k = 0; k < this.graph.degreeOf(i); k++) {
+					if (!this.includes(neighbors[k])) continue;
+					entries++;
+					if (neighbors[k] == i) selfLoops++;
+				}
+			}
+			// Undirected edges are stored in both adjacency lists, except for self-loops
+			this.mEdges = (int) (this.isUndirected() ? (entries + selfLoops) / 2 : entries);
+		}
+		return this.mEdges;
+	}
+
+	// Produces true if the view contains a given node, false otherwise
+	public boolean containsNode(Node node) {
+		return this.indexOf(node) >= 0;
+	}
+
+	// Returns a read-only set with all the nodes of the view, backed by the graph
+	public Set<Node> getNodes() {
+		return new AbstractSet<Node>() {
+			public int size() {
+				return getN();
+			}
+			public boolean contains(Object o) {
+				return (o instanceof Node) && containsNode((Node) o);
+			}
+			public Iterator<Node> iterator() {
+				return new FilteredIterator(null, graph.getN());
+			}
+		};
+	}
+
+	// Returns a read-only set with the neighbors of a given node inside the view, backed by the graph
+	// (null if the node doesn't belong to the view)
+	public Set<Node> getNeighbors(final Node node) {
+		final int index = this.indexOf(node);
+		if (index < 0) return null;
+		return new AbstractSet<Node>() {
+			public int size() {
+				int size = 0;
+				int[] neighbors = graph.neighborsOf(index);
+				for (int k = 0; k < graph.degreeOf(index); k++) if (includes(neighbors[k])) size++;
+				return size;
+			}
+			public boolean contains(Object o) {
+				return (o instanceof Node) && containsNode((Node) o) && graph.getNeighbors(node).contains(o);
+			}
+			public Iterator<Node> iterator() {
+				return new FilteredIterator(graph.neighborsOf(index), graph.degreeOf(index));
+			}
+		};
+	}
+
+	// Iterates the nodes of the view among the first "length" dense indexes of an array, or among [0, length) if it is null
+	private final class FilteredIterator implements Iterator<Node> {
+		private final int[] indexes;
+		private final int length;
+		private int next = -1;
+		FilteredIterator(int[] indexes, int length) {
+			this.indexes = indexes;
+			this.length = length;
+			this.advance();
+		}
+		private int at(int k) {
+			return (this.indexes == null) ? k : this.indexes[k];
+		}
+		private void advance() {
+			if (this.indexes == null) {
+				this.next = nextNode(this.next + 1);
+				if (this.next < 0) this.next = this.length;
+			}
+			else do this.next++; while (this.next < this.length && !includes(this.at(this.next)));
+		}
+		public boolean hasNext() {
+			return this.next < this.length;
+		}
+		public Node next() {
+			if (!this.hasNext()) throw new NoSuchElementException();
+			Node node = graph.nodeAt(this.at(this.next));
+			this.advance();
+			return node;
+		}
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	// Traversal Algorithms - Methods and auxiliary structures:
+	// ==========================================================
+	// Last complete DFS and BFS of the view, queried by getNumberOfCCs and getArticulationNodes and reused by getShortestPath
+	private volatile ViewTraversal lastDFS = null;
+	private volatile ViewTraversal lastBFS = null;
+
+	// Returns the slots that index the state of a search (see ViewTraversal): null for the dense indexes of the graph,
+	// or the sorted dense indexes of the nodes of the view, if the view is small next to the graph (see SMALL_VIEW_RATIO)
+	private int[] searchSlots() {
+		if ((long) this.getN() * SMALL_VIEW_RATIO >= this.graph.getN()) return null;
+		int[] slots = this.members;
+		if (slots == null) {
+			slots = new int[this.getN()];
+			int k = 0;
+			for (int i = this.nextNode(0); i >= 0; i = this.nextNode(i + 1)) slots[k++] = i;
+			this.members = slots;
+		}
+		return slots;
+	}
+
+	// Returns the number of connected components of the view computed by a complete DFS traversal or -1 if the view has never been traversed by DFS
+	public int getNumberOfCCs() {
+		ViewTraversal last = this.lastDFS;
+		return (last == null) ? -1 : last.getNumberOfCCs();
+	}
+
+	// Returns the set of articulation nodes of the view computed by a complete DFS traversal (null if the view has never been traversed by DFS)
+	public Set<Node> getArticulationNodes() {
+		ViewTraversal last = this.lastDFS;
+		return (last == null) ? null : last.getArticulationNodes();
+	}
+
+	// Performs a Depth-First Search (DFS) in the view and returns the DFS-Forest, exactly as Graph.dfs does on the induced subgraph
+	public List<Graph> dfs(Node start) {
+		ViewTraversal traversal = this.depthFirst(start);
+		if (traversal == null) return null;
+		this.lastDFS = traversal;
+		return traversal.getForest();
+	}
+
+	// Performs a complete DFS in the view, starting from node "start", and returns its result: the DFS-Forest, number of
+	// connected components and articulation nodes of the view, computed in the same pass (null if the node doesn't belong
+	// to the view). Doesn't change the state of the view, so it may be called by many threads at the same time.
+	public ViewTraversal depthFirst(Node start) {
+		int s = this.indexOf(start);
+		if (s < 0) return null;
+		ViewTraversal traversal = new ViewTraversal(this, this.graph, s, false, this.searchSlots());
+		traversal.forest = new LinkedList<Graph>();
+		traversal.articulationNodes = new HashSet<Node>();
+		int size = traversal.parents.length;
+		int[] pre = new int[size]; // by slot, 0 if not visited
+		int[] low = new int[size];
+		int[] nextNeighbor = new int[size]; // position of the next neighbor to be scanned, for each node in the stack
+		int[] stack = new int[this.getN()]; // dense indexes
+		int nextPreValue = 1;
+
+		// Iterate through all nodes in the view, starting from "s"
+		for (int root = s, i = 0; root >= 0; root = this.nextNode(i), i = root + 1) {
+			int r = traversal.slot(root);
+			if (pre[r] != 0) continue;
+			traversal.ccNumber++;
+			Graph dfsTree = new Graph("dfsTree" + (traversal.ccNumber + 1), true); // Note: DFS-Tree is directed for the purpose of clarity only
+			dfsTree.addNode(this.graph.nodeAt(root));
+			int rootChildren = 0;
+			int top = 0;
+			stack[top] = root;
+			traversal.visitedSet.set(r);
+			pre[r] = low[r] = nextPreValue++;
+			nextNeighbor[r] = 0;
+			while (top >= 0) {
+				int u = stack[top];
+				int su = traversal.slot(u);
+				if (nextNeighbor[su] < this.graph.degreeOf(u)) {
+					int v = this.graph.neighborsOf(u)[nextNeighbor[su]++];
+					if (!this.includes(v)) continue;
+					int sv = traversal.slot(v);
+					if (pre[sv] == 0) {
+						// Tree edge: descend into v
+						dfsTree.addEdge(this.graph.nodeAt(u), this.graph.nodeAt(v));
+						traversal.parents[sv] = u;
+						traversal.visitedSet.set(sv);
+						pre[sv] = low[sv] = nextPreValue++;
+						nextNeighbor[sv] = 0;
+						stack[++top] = v;
+						if (u == root) rootChildren++;
+					} else if (v != traversal.parents[su] && pre[sv] < low[su]) {
+						// Back edge: see references/articulation-points-or-cut-vertices-in-a-graph.pdf
+						low[su] = pre[sv];
+					}
+				} else {
+					// All neighbors of u were scanned: propagate its low value to its parent
+					top--;
+					int p = traversal.parents[su];
+					if (p >= 0) {
+						int sp = traversal.slot(p);
+						if (low[su] < low[sp]) low[sp] = low[su];
+						if (p != root && low[su] >= pre[sp]) traversal.articulationNodes.add(this.graph.nodeAt(p));
+					}
+				}
+			}
+			// A root is an articulation node iff it has more than one child in the DFS tree
+			if (rootChildren > 1) traversal.articulationNodes.add(this.graph.nodeAt(root));
+			traversal.forest.add(dfsTree);
+		}
+		return traversal;
+	}
+
+	// Performs a BFS inside the view from the dense index "s", until node "t" is reached (if not -1), and returns its
+	// parents and visited set; its levels too, only if it was complete (a partial tree is not reused for later paths).
+	private ViewTraversal bfsVisit(int s, int t) {
+		ViewTraversal traversal = new ViewTraversal(this, this.graph, s, true, this.searchSlots());
+		int[] order = new int[this.getN()]; // dense indexes, in visiting order
+		int[] levelEnds = new int[this.getN()]; // levelEnds[k] is the position in order where level "k" ends
+		traversal.visitedSet.set(traversal.slot(s));
+		order[0] = s;
+		int head = 0, tail = 1, levels = 0;
+		while (head < tail) {
+			int levelEnd = tail; // nodes in order[head..levelEnd) are all at the same distance
+			while (head < levelEnd) {
+				int u = order[head++];
+				int[] neighbors = this.graph.neighborsOf(u);
+				for (int k = 0; k < this.graph.degreeOf(u); k++) {
+					int v = neighbors[k];
+					if (!this.includes(v)) continue;
+					int sv = traversal.slot(v);
+					if (!traversal.visitedSet.get(sv)) {
+						traversal.visitedSet.set(sv);
+						traversal.parents[sv] = u;
+						order[tail++] = v;
+						if (v == t) return traversal;
+					}
+				}
+			}
+			levelEnds[levels++] = levelEnd;
+		}
+		traversal.levels = new Vector<Set<Node>>(levels);
+		int from = 0;
+		for (int k = 0; k < levels; k++) {
+			Set<Node> level = new HashSet<Node>((levelEnds[k] - from) * 4 / 3 + 1);
+			for (; from < levelEnds[k]; from++) level.add(this.graph.nodeAt(order[from]));
+			traversal.levels.add(level);
+		}
+		return traversal;
+	}
+
+	// Performs a Breadth-First Search (BFS) in the view and returns the BFS-Tree levels in the form of a vector:
+	// Each level[i] is the set of nodes of the view at distance "i" from node "start", by edges inside the view.
+	public Vector<Set<Node>> bfs(Node start) {
+		ViewTraversal traversal = this.breadthFirst(start);
+		if (traversal == null) return null;
+		this.lastBFS = traversal;
+		return traversal.getLevels();
+	}
+
+	// Performs a complete BFS in the view, starting from node "start", and returns its result (null if the node doesn't
+	// belong to the view). Doesn't change the state of the view, so it may be called by many threads at the same time.
+	public ViewTraversal breadthFirst(Node start) {
+		int s = this.indexOf(start);
+		if (s < 0) return null;
+		return this.bfsVisit(s, -1);
+	}
+
+	// Returns the shortest path from node "start" to node "end" through nodes of the view; null if any node doesn't
+	// belong to the view or "end" it is not reachable from "start" inside it.
+	// Reuses the last BFS tree if it was rooted at "start" and the graph has not changed since then; otherwise runs
+	// a BFS of its own that stops as soon as it reaches "end".
+	public LinkedList<Node> getShortestPath(Node start, Node end) {
+		int s = this.indexOf(start);
+		int t = this.indexOf(end);
+		if (s < 0 || t < 0) return null;
+		ViewTraversal last = this.lastBFS;
+		if (last == null || !last.isBFSTreeFrom(s)) last = this.bfsVisit(s, t);
+		return last.getPathTo(end);
+	}
+}
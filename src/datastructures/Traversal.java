@@ -0,0 +1,200 @@
+package datastructures;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+/*
+ * The result of a single traversal of a Graph, by DFS (Graph.depthFirst) or BFS (Graph.breadthFirst), together with
+ * the per-traversal state it used while running: visited set, parents, pre and low values, component ids.
+ *
+ * Every traversal creates a Traversal of its own, so any number of traversals can run concurrently over the same
+ * graph, as long as the graph is not changed meanwhile. A Traversal is not changed after it is returned (except for
+ * the components built lazily by getCCs, which is synchronized), so it can be shared by many threads.
+ */
+public final class Traversal {
+
+	// Data definitions:
+	// =================
+	private final Graph graph;
+	private final int source; // dense index of the start node
+	private final int modCount; // graph modification count when the traversal started
+	private final boolean breadthFirst;
+
+	// Nodes (by dense index) reached by the traversal
+	final BitSet visitedSet;
+	// Indexes are the children and each value is the index of their corresponding parent in the DFS or BFS tree (-1 for roots and unreached nodes)
+	final int[] parents;
+
+	// Adjacency entries read by the traversal, and largest DFS stack depth (see TraversalStats)
+	long edgesScanned = 0;
+	int maxDepth = 0;
+
+	// BFS levels: level[i] is the set of nodes at distance "i" from the start node
+	Vector<Set<Node>> levels = null;
+
+	/*
+	 *  DFS structures
+	 */
+	List<Graph> forest = null;
+	// Pre value of each node by dense index (0 if not visited) and the next pre value to be assigned
+	int[] preValues = null;
+	int nextPreValue = 1;
+	// Lowest pre value reachable from the subtree of each node through a back-edge (see Graph.dfsVisit)
+	int[] lowValues = null;
+	Set<Node> articulationNodes = null;
+	// Connected component number of each node by dense index; components are only built if asked for, by getCCs()
+	int ccNumber = -1;
+	int[] ccIds = null;
+	private Vector<Graph> CCs = null;
+
+	// Functions:
+	// ==========
+	// Creates the state of a BFS, or of a DFS with its pre, low and component structures, from dense index "source"
+	Traversal(Graph graph, int source, int modCount, boolean breadthFirst, BitSet visitedSet, int[] parents) {
+		this.graph = graph;
+		this.source = source;
+		this.modCount = modCount;
+		this.breadthFirst = breadthFirst;
+		this.visitedSet = visitedSet;
+		this.parents = parents;
+		if ( !breadthFirst ) {
+			int n = parents.length;
+			this.forest = new LinkedList<Graph>();
+			this.preValues = new int[n];
+			this.lowValues = new int[n];
+			this.articulationNodes = new HashSet<Node>();
+			this.ccIds = new int[n];
+		}
+	}
+
+	// Returns the start node of the traversal
+	public Node getSource() {
+		return this.graph.nodeAt(this.source);
+	}
+
+	// Produces true if this is the result of a BFS, false if it is the result of a DFS
+	public boolean isBreadthFirst() {
+		return this.breadthFirst;
+	}
+
+	// Produces true if the graph has not changed since the traversal, so its results are still valid
+	public boolean isCurrent() {
+		return this.modCount == this.graph.getModCount();
+	}
+
+	// Produces true if a given node was reached by the traversal
+	public boolean isReached(Node node) {
+		int index = this.graph.indexOf(node);
+		return index >= 0 && index < this.parents.length && this.visitedSet.get(index);
+	}
+
+	// Returns the BFS-Tree levels (null for a DFS): each level[i] is the set of nodes at distance "i" from the start node
+	public Vector<Set<Node>> getLevels() {
+		return this.levels;
+	}
+
+	// Returns the DFS-Forest (null for a BFS): the disconnected DFS-Trees produced by the traversal
+	public List<Graph> getForest() {
+		return this.forest;
+	}
+
+	// Returns the path from the start node to node "end" in the BFS or DFS tree (for a BFS, a shortest path);
+	// null if "end" doesn't belong to the graph or it is not reachable from the start node.
+	public LinkedList<Node> getPathTo(Node end) {
+		int t = this.graph.indexOf(end);
+		if ( t < 0 || t >= this.parents.length ) return null;
+		// Builds the result list going backwards through node parents list
+		LinkedList<Node> result = new LinkedList<Node>();
+		int node = t;
+		while ( node >= 0 ) {
+			result.push(this.graph.nodeAt(node));
+			node = this.parents[node];
+		}
+		if ( result.getFirst() != this.graph.nodeAt(this.source) ) return null; // node "end" is not reachable from the start node!
+		else return result;
+	}
+
+	// Returns the number of connected components of the graph found by the DFS (-1 for a BFS)
+	public int getNumberOfCCs() {
+		return this.breadthFirst ? -1 : this.ccNumber + 1;
+	}
+
+	// Returns the number of articulation nodes of the graph found by the DFS (-1 for a BFS)
+	public int getNumberOfArticulationNodes() {
+		return this.breadthFirst ? -1 : this.articulationNodes.size();
+	}
+
+	// Returns the set of articulation nodes of the graph found by the DFS (null for a BFS)
+	public Set<Node> getArticulationNodes() {
+		return this.articulationNodes;
+	}
+
+	// Returns the connected components of the graph found by the DFS (null for a BFS).
+	// Note: each component is a copy of a sub-graph of the original graph, built on the first call.
+	public synchronized Vector<Graph> getCCs() {
+		if ( this.CCs == null && this.ccIds != null ) {
+			Vector<Graph> components = new Vector<Graph>(this.ccNumber+1);
+			for (int cc = 0; cc <= this.ccNumber; cc++)
+				components.add(new Graph("CC"+cc, !this.graph.isUndirected())); // Note: Connected components are sub-graphs of original graph and of the same type as it
+			for (int node = 0; node < this.ccIds.length; node++) {
+				Graph currentCC = components.get(this.ccIds[node]);
+				Node currentNode = this.graph.nodeAt(node);
+				currentCC.addNode(currentNode);
+				// Insert every edge 'node'-'next' into the Connected Component of 'node'
+				int[] neighbors = this.graph.neighborsOf(node);
+				for (int k = 0; k < this.graph.degreeOf(node); k++)
+					currentCC.addEdge(currentNode, this.graph.nodeAt(neighbors[k]), this.graph.weightAt(node, k));
+			}
+			this.CCs = components;
+		}
+		return this.CCs;
+	}
+
+	// Returns the connected components of the graph found by the DFS as views of the graph (null for a BFS).
+	// Unlike getCCs, nothing is copied: every view reads the adjacency of the graph, filtered by the component ids.
+	public Vector<SubgraphView> getCCViews() {
+		if ( this.ccIds == null ) return null;
+		Vector<SubgraphView> components = new Vector<SubgraphView>(this.ccNumber+1);
+		for (int cc = 0; cc <= this.ccNumber; cc++)
+			components.add(new SubgraphView(this.graph, "CC"+cc, this.ccIds, cc, -1));
+		return components;
+	}
+
+	// Produces true if the node with a given dense index has already been visited
+	boolean isVisited(int node) {
+		return this.visitedSet.get(node);
+	}
+
+	// Marks the node with a given dense index as "visited"
+	void markVisited(int node) {
+		this.visitedSet.set(node);
+	}
+
+	void setPreValue(int node) {
+		this.preValues[node] = this.nextPreValue;
+		this.lowValues[node] = this.nextPreValue;
+		this.nextPreValue++;
+	}
+
+	int getPreValue(int node) {
+		return this.preValues[node];
+	}
+
+	boolean isDFSRoot(int node) {
+		// A node in a DFS tree is only a root iff it doesn't have a parent
+		return (this.parents[node] < 0);
+	}
+
+	// Produces true if this BFS tree can answer shortest path queries from dense index "s"
+	boolean isBFSTreeFrom(int s) {
+		return this.breadthFirst && this.source == s && this.isCurrent();
+	}
+
+	public String toString() {
+		return (this.breadthFirst ? "BFS" : "DFS") + " of " + this.graph.getLabel() + " from " + this.getSource();
+	}
+}
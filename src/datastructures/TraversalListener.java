@@ -0,0 +1,13 @@
+package datastructures;
+
+/*
+ * Receives the statistics of every traversal run by a Graph (see Graph.setTraversalListener):
+ * DFS, BFS (sequential or parallel) and shortest path searches.
+ * It is called by the thread that ran the traversal, right after it finishes, so it may be called by many threads
+ * at the same time and should be cheap: ex. TraversalMetrics only adds the statistics to some counters.
+ */
+public interface TraversalListener {
+
+	// Called after a traversal of a given graph finishes, with its statistics
+	void traversalFinished(Graph graph, TraversalStats stats);
+}
@@ -0,0 +1,116 @@
+package datastructures;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * A TraversalListener that keeps running totals of the statistics of the traversals of one or more graphs, by
+ * algorithm: number of traversals, nodes visited, edges scanned, elapsed time (total and maximum) and allocated bytes,
+ * plus the statistics of the last traversal. Cheap enough to be always on, and safe to share among threads:
+ * ex. sample getTotalNanos(TraversalStats.BFS) / getCount(TraversalStats.BFS) to alert on traversal regressions.
+ */
+public class TraversalMetrics implements TraversalListener {
+
+	// Data definitions:
+	// =================
+	// Counters of each algorithm
+	private static final class Counters {
+		final AtomicLong count = new AtomicLong();
+		final AtomicLong nodesVisited = new AtomicLong();
+		final AtomicLong edgesScanned = new AtomicLong();
+		final AtomicLong totalNanos = new AtomicLong();
+		final AtomicLong maxNanos = new AtomicLong();
+		final AtomicLong allocatedBytes = new AtomicLong();
+		volatile TraversalStats last = null;
+	}
+
+	private final ConcurrentHashMap<String, Counters> counters = new ConcurrentHashMap<String, Counters>();
+
+	// Functions:
+	// ==========
+	public void traversalFinished(Graph graph, TraversalStats stats) {
+		Counters c = this.countersOf(stats.getAlgorithm());
+		long nanos = stats.getElapsedNanos();
+		c.count.incrementAndGet();
+		c.nodesVisited.addAndGet(stats.getNodesVisited());
+		c.edgesScanned.addAndGet(stats.getEdgesScanned());
+		c.totalNanos.addAndGet(nanos);
+		c.allocatedBytes.addAndGet(stats.getAllocatedBytes());
+		for (long max = c.maxNanos.get(); nanos > max && !c.maxNanos.compareAndSet(max, nanos); max = c.maxNanos.get());
+		c.last = stats;
+	}
+
+	private Counters countersOf(String algorithm) {
+		Counters c = this.counters.get(algorithm);
+		if (c == null) {
+			Counters created = new Counters();
+			c = this.counters.putIfAbsent(algorithm, created);
+			if (c == null) c = created;
+		}
+		return c;
+	}
+
+	// Returns the names of the algorithms that have been reported, in alphabetical order
+	public Set<String> getAlgorithms() {
+		return new TreeSet<String>(this.counters.keySet());
+	}
+
+	// Returns the number of traversals of an algorithm
+	public long getCount(String algorithm) {
+		Counters c = this.counters.get(algorithm);
+		return (c == null) ? 0 : c.count.get();
+	}
+
+	public long getNodesVisited(String algorithm) {
+		Counters c = this.counters.get(algorithm);
+		return (c == null) ? 0 : c.nodesVisited.get();
+	}
+
+	public long getEdgesScanned(String algorithm) {
+		Counters c = this.counters.get(algorithm);
+		return (c == null) ? 0 : c.edgesScanned.get();
+	}
+
+	// Returns the elapsed time of all the traversals of an algorithm, in nanoseconds
+	public long getTotalNanos(String algorithm) {
+		Counters c = this.counters.get(algorithm);
+		return (c == null) ? 0 : c.totalNanos.get();
+	}
+
+	// Returns the elapsed time of the slowest traversal of an algorithm, in nanoseconds
+	public long getMaxNanos(String algorithm) {
+		Counters c = this.counters.get(algorithm);
+		return (c == null) ? 0 : c.maxNanos.get();
+	}
+
+	// Returns the estimated bytes allocated by all the traversals of an algorithm (see TraversalStats)
+	public long getAllocatedBytes(String algorithm) {
+		Counters c = this.counters.get(algorithm);
+		return (c == null) ? 0 : c.allocatedBytes.get();
+	}
+
+	// Returns the statistics of the last traversal of an algorithm (null if there was none)
+	public TraversalStats getLast(String algorithm) {
+		Counters c = this.counters.get(algorithm);
+		return (c == null) ? null : c.last;
+	}
+
+	// Clears all the counters
+	public void reset() {
+		this.counters.clear();
+	}
+
+	public String toString() {
+		StringBuilder result = new StringBuilder("TraversalMetrics={");
+		for (String algorithm : this.getAlgorithms()) {
+			long count = this.getCount(algorithm);
+			result.append("\n  ").append(algorithm).append(": ").append(count).append(" traversal(s), ");
+			result.append(this.getNodesVisited(algorithm)).append(" node(s) visited, ").append(this.getEdgesScanned(algorithm)).append(" edge(s) scanned, ");
+			result.append(this.getTotalNanos(algorithm) / 1000000).append("ms total, ").append(this.getMaxNanos(algorithm) / 1000000).append("ms max, ");
+			result.append('~').append(this.getAllocatedBytes(algorithm)).append(" byte(s) allocated");
+		}
+		return result.append("\n}").toString();
+	}
+}
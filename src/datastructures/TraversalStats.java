@@ -0,0 +1,127 @@
+package datastructures;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.Vector;
+
+/*
+ * Statistics of a single traversal of a Graph, reported to its TraversalListener: nodes visited, edges scanned,
+ * frontier size of each BFS level, maximum DFS depth, elapsed time of each phase and an estimate of the memory
+ * allocated by the traversal. They are gathered as the traversal runs, at the cost of a few additions per node.
+ * Memory estimates only count the primitive working arrays of the traversal (parents, queues, stacks, visited sets...),
+ * not the Node sets of BFS levels nor the graphs of DFS-Forests.
+ */
+public final class TraversalStats {
+
+	// Constants:
+	// ==========
+	// Names of the traversals reported by a Graph
+	public static final String DFS = "dfs";
+	public static final String BFS = "bfs";
+	public static final String PARALLEL_BFS = "parallel bfs";
+	public static final String SHORTEST_PATH = "shortest path";
+
+	// Data definitions:
+	// =================
+	private final String algorithm;
+	private final Node source;
+	private final int nodesVisited;
+	private final long edgesScanned;   // adjacency entries read by the traversal
+	private final int[] levelSizes;    // number of nodes of each BFS level (null for a DFS)
+	private final int maxDepth;        // largest DFS stack depth, or last BFS level
+	private final String[] phases;     // names of the phases of the traversal, in order
+	private final long[] phaseNanos;   // elapsed time of each phase, in nanoseconds
+	private final long allocatedBytes;
+
+	// Functions:
+	// ==========
+	TraversalStats(String algorithm, Node source, int nodesVisited, long edgesScanned, int[] levelSizes, int maxDepth,
+			String[] phases, long[] phaseNanos, long allocatedBytes) {
+		this.algorithm = algorithm;
+		this.source = source;
+		this.nodesVisited = nodesVisited;
+		this.edgesScanned = edgesScanned;
+		this.levelSizes = levelSizes;
+		this.maxDepth = maxDepth;
+		this.phases = phases;
+		this.phaseNanos = phaseNanos;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	// Builds the statistics of a DFS or BFS that took a given time, with its single phase "visit"
+	static TraversalStats of(String algorithm, Traversal traversal, long nanos, long allocatedBytes) {
+		int[] levelSizes = null;
+		int maxDepth = traversal.maxDepth;
+		Vector<Set<Node>> levels = traversal.getLevels();
+		if (levels != null) {
+			levelSizes = new int[levels.size()];
+			for (int k = 0; k < levelSizes.length; k++) levelSizes[k] = levels.get(k).size();
+			maxDepth = levelSizes.length - 1;
+		}
+		return new TraversalStats(algorithm, traversal.getSource(), traversal.visitedSet.cardinality(), traversal.edgesScanned,
+				levelSizes, maxDepth, new String[] { "visit" }, new long[] { nanos }, allocatedBytes);
+	}
+
+	// Returns the name of the traversal: DFS, BFS, PARALLEL_BFS or SHORTEST_PATH
+	public String getAlgorithm() {
+		return this.algorithm;
+	}
+
+	// Returns the start node of the traversal
+	public Node getSource() {
+		return this.source;
+	}
+
+	public int getNodesVisited() {
+		return this.nodesVisited;
+	}
+
+	// Returns the number of adjacency entries read by the traversal (each undirected edge has two of them)
+	public long getEdgesScanned() {
+		return this.edgesScanned;
+	}
+
+	// Returns the number of nodes of each level of a BFS, that is its frontier size per level (null for other traversals)
+	public int[] getLevelSizes() {
+		return (this.levelSizes == null) ? null : this.levelSizes.clone();
+	}
+
+	// Returns the largest depth of the stack of a DFS, or the distance of the last level of a BFS
+	public int getMaxDepth() {
+		return this.maxDepth;
+	}
+
+	// Returns the names of the phases of the traversal, in order
+	public String[] getPhases() {
+		return this.phases.clone();
+	}
+
+	// Returns the elapsed time of a phase in nanoseconds (0 if the traversal has no such phase)
+	public long getPhaseNanos(String phase) {
+		for (int k = 0; k < this.phases.length; k++) {
+			if (this.phases[k].equals(phase)) return this.phaseNanos[k];
+		}
+		return 0;
+	}
+
+	// Returns the elapsed time of the whole traversal in nanoseconds
+	public long getElapsedNanos() {
+		long total = 0;
+		for (long nanos : this.phaseNanos) total += nanos;
+		return total;
+	}
+
+	// Returns an estimate of the bytes allocated by the primitive working arrays of the traversal
+	public long getAllocatedBytes() {
+		return this.allocatedBytes;
+	}
+
+	public String toString() {
+		StringBuilder result = new StringBuilder(this.algorithm).append(" from ").append(this.source);
+		result.append("={").append(this.nodesVisited).append(" node(s) visited, ").append(this.edgesScanned).append(" edge(s) scanned, ");
+		if (this.levelSizes != null) result.append("level sizes ").append(Arrays.toString(this.levelSizes)).append(", ");
+		result.append("max depth ").append(this.maxDepth).append(", ");
+		for (int k = 0; k < this.phases.length; k++) result.append(this.phases[k]).append(' ').append(this.phaseNanos[k] / 1000).append("us, ");
+		return result.append('~').append(this.allocatedBytes).append(" byte(s) allocated}").toString();
+	}
+}
@@ -0,0 +1,132 @@
+package datastructures;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+/*
+ * The result of a single traversal of a SubgraphView, by DFS (SubgraphView.depthFirst) or BFS (SubgraphView.breadthFirst):
+ * what Traversal is for a Graph.
+ *
+ * The per-node state of the traversal is indexed by "slot": the dense index of the node in the graph or, for a view much
+ * smaller than its graph, the position of the node among the sorted dense indexes of the view (see SubgraphView.searchSlots),
+ * so the memory of a search on a small view is proportional to the view and not to the graph.
+ * A ViewTraversal is not changed after it is returned, so it can be shared by many threads.
+ */
+public final class ViewTraversal {
+
+	// Data definitions:
+	// =================
+	private final SubgraphView view;
+	private final Graph graph;
+	private final int source; // dense index of the start node
+	private final int modCount; // graph modification count when the traversal started
+	private final boolean breadthFirst;
+	// Sorted dense indexes of the nodes of the view, or null if slots are the dense indexes of the graph
+	private final int[] slots;
+
+	// Slots reached by the traversal
+	final BitSet visitedSet;
+	// Dense index of the parent of each slot in the DFS or BFS tree (-1 for roots and unreached nodes)
+	final int[] parents;
+
+	// BFS levels: level[i] is the set of nodes at distance "i" from the start node (null for a DFS, or a BFS stopped
+	// as soon as it reached a target node)
+	Vector<Set<Node>> levels = null;
+
+	// DFS results
+	List<Graph> forest = null;
+	Set<Node> articulationNodes = null;
+	int ccNumber = -1;
+
+	// Functions:
+	// ==========
+	// Creates the state of a BFS or DFS of a view from dense index "source", indexed by the given slots (see above)
+	ViewTraversal(SubgraphView view, Graph graph, int source, boolean breadthFirst, int[] slots) {
+		this.view = view;
+		this.graph = graph;
+		this.source = source;
+		this.modCount = graph.getModCount();
+		this.breadthFirst = breadthFirst;
+		this.slots = slots;
+		int size = (slots == null) ? graph.getN() : slots.length;
+		this.visitedSet = new BitSet(size);
+		this.parents = new int[size];
+		Arrays.fill(this.parents, -1);
+	}
+
+	// Returns the slot of the node of the view with a given dense index
+	int slot(int index) {
+		return (this.slots == null) ? index : Arrays.binarySearch(this.slots, index);
+	}
+
+	// Returns the start node of the traversal
+	public Node getSource() {
+		return this.graph.nodeAt(this.source);
+	}
+
+	// Produces true if this is the result of a BFS, false if it is the result of a DFS
+	public boolean isBreadthFirst() {
+		return this.breadthFirst;
+	}
+
+	// Produces true if the graph has not changed since the traversal, so its results are still valid
+	public boolean isCurrent() {
+		return this.modCount == this.graph.getModCount();
+	}
+
+	// Produces true if a given node was reached by the traversal
+	public boolean isReached(Node node) {
+		int index = this.view.indexOf(node);
+		return index >= 0 && this.visitedSet.get(this.slot(index));
+	}
+
+	// Returns the BFS-Tree levels (null for a DFS): each level[i] is the set of nodes at distance "i" from the start node
+	public Vector<Set<Node>> getLevels() {
+		return this.levels;
+	}
+
+	// Returns the DFS-Forest (null for a BFS): the disconnected DFS-Trees produced by the traversal
+	public List<Graph> getForest() {
+		return this.forest;
+	}
+
+	// Returns the path from the start node to node "end" in the BFS or DFS tree (for a BFS, a shortest path inside the view);
+	// null if "end" doesn't belong to the view or it is not reachable from the start node.
+	public LinkedList<Node> getPathTo(Node end) {
+		int t = this.view.indexOf(end);
+		if ( t < 0 ) return null;
+		// Builds the result list going backwards through node parents list
+		LinkedList<Node> result = new LinkedList<Node>();
+		for (int node = t; node >= 0; node = this.parents[this.slot(node)]) result.push(this.graph.nodeAt(node));
+		if ( result.getFirst() != this.graph.nodeAt(this.source) ) return null; // node "end" is not reachable from the start node!
+		else return result;
+	}
+
+	// Returns the number of connected components of the view found by the DFS (-1 for a BFS)
+	public int getNumberOfCCs() {
+		return this.breadthFirst ? -1 : this.ccNumber + 1;
+	}
+
+	// Returns the number of articulation nodes of the view found by the DFS (-1 for a BFS)
+	public int getNumberOfArticulationNodes() {
+		return this.breadthFirst ? -1 : this.articulationNodes.size();
+	}
+
+	// Returns the set of articulation nodes of the view found by the DFS (null for a BFS)
+	public Set<Node> getArticulationNodes() {
+		return this.articulationNodes;
+	}
+
+	// Produces true if this is a complete BFS tree that can answer shortest path queries from dense index "s"
+	boolean isBFSTreeFrom(int s) {
+		return this.levels != null && this.source == s && this.isCurrent();
+	}
+
+	public String toString() {
+		return (this.breadthFirst ? "BFS" : "DFS") + " of " + this.view.getLabel() + " from " + this.getSource();
+	}
+}
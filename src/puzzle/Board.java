@@ -11,15 +11,19 @@ import datastructures.Node;
 
 // A graph node representing a game board and its configuration:
 // Each position contains a number from 1..(SIZE*SIZE-1) + one empty square denoted by "0"
+// Boards are SIZE x SIZE by default, but may have any ROWS x COLUMNS shape with up to 16 positions:
+// tiles from 10 on are denoted by hexadecimal digits in the board id (ex: "123456789AB0" is the 3 x 4 solution).
 public class Board extends Node {
 
 	// Constants:
 	// ==========
     public static final int SIZE = 3;
+    // Maximum number of positions of a board (each tile must fit in an hexadecimal digit)
+    public static final int MAX_TILES = 16;
     
     // Data definitions:
     // =================
-    /* board is a SIZE x SIZE puzzle game with:
+    /* board is a rows x columns (SIZE x SIZE by default) puzzle game with:
      * - an id (inherited from Node): the linearized version of the board configurations as a string
      * - a board: a two-dimensional matrix
      * - an empty pos: a pair with the (x,y) coordinates of the empty square position
@@ -27,7 +31,9 @@ public class Board extends Node {
      * 1 2 3
      * 4 5 6
      * 7 8 0 --> 0 is the empty square */
-    private int[][] board = new int[SIZE][SIZE];
+    private final int rows;
+    private final int columns;
+    private int[][] board;
     private Pair<Integer,Integer> emptyPos;
     
     /* Example: Node("123456780") is the solution of the game
@@ -40,13 +46,21 @@ public class Board extends Node {
     // ==========    
     // Creates a graph node representing a board configuration in a given time from an string representing the board
     public Board(String aBoard) { //throws Exception {
+    	this(aBoard, SIZE, SIZE);
+    }
+    
+    // Creates a graph node representing a rows x columns board configuration from an string representing the board
+    public Board(String aBoard, int rows, int columns) {
     	super(aBoard);
         //TODO: use assert or Exception???
         //if (_id.length() != 9) throw new Exception("");
-        assert (aBoard.length() == 9);
-        for (int i=0; i<SIZE; i++) {
-            for (int j=0; j<SIZE; j++) {
-                board[i][j] = Integer.parseInt(this.id.substring(i*SIZE+j, i*SIZE+j+1));
+        assert (aBoard.length() == rows*columns && rows*columns <= MAX_TILES);
+        this.rows = rows;
+        this.columns = columns;
+        this.board = new int[rows][columns];
+        for (int i=0; i<rows; i++) {
+            for (int j=0; j<columns; j++) {
+                board[i][j] = Character.digit(this.id.charAt(i*columns+j), 16); // no substring or parseInt per cell
                 if (board[i][j]==0) {
                     emptyPos = new ImmutablePair<Integer,Integer>(i,j);
                 }
@@ -54,6 +68,37 @@ public class Board extends Node {
         }
     }
     
+    // Creates a graph node representing a packed board configuration (see PackedBoard)
+    public Board(long packedBoard) {
+        this(PackedBoard.unpack(packedBoard));
+    }
+    
+    // Creates a graph node representing a packed rows x columns board configuration (see PackedBoard)
+    public Board(long packedBoard, int rows, int columns) {
+        this(PackedBoard.unpack(packedBoard, rows*columns), rows, columns);
+    }
+    
+    // Produces the id of the solution of a rows x columns game: tiles in order and the empty square at the end
+    public static String solution(int rows, int columns) {
+        char[] temp = new char[rows*columns];
+        for (int p=0; p<temp.length-1; p++) temp[p] = Character.toUpperCase(Character.forDigit(p+1, 16));
+        temp[temp.length-1] = '0';
+        return new String(temp);
+    }
+    
+    // Produces the packed form of the board (see PackedBoard)
+    public long toPacked() {
+        return PackedBoard.pack(this.id);
+    }
+    
+    public int getRows() {
+        return this.rows;
+    }
+    
+    public int getColumns() {
+        return this.columns;
+    }
+    
     public int[][] getBoard() {
         return this.board;
     }
@@ -66,18 +111,18 @@ public class Board extends Node {
         return ArrayUtils.toString(this.board);
     }
     
-    // Prints a board as a SIZE x SIZE matrix
+    // Prints a board as a rows x columns matrix
     public void printBoard() {
         String temp = "";
-        for (int i=0; i<SIZE; i++) {
+        for (int i=0; i<rows; i++) {
             if (i==0) temp = "[";
             else temp += " ";
-            for (int j=0; j<SIZE; j++) {
+            for (int j=0; j<columns; j++) {
                 temp += board[i][j];
-                if (i==SIZE-1 && j==SIZE-1) temp += "]";
+                if (i==rows-1 && j==columns-1) temp += "]";
                 else temp += " ";
             }
-            if (i<SIZE-1) temp += "\n";
+            if (i<rows-1) temp += "\n";
         }
         System.out.println( temp );
     }
@@ -102,11 +147,11 @@ public class Board extends Node {
     
     // Produces a new board exchanging positions p1 with p2, if possible; null if p1 or p2 is out of bounds
     public Board exchange(int p1, int p2) {
-    	if ( (0<=p1)&&(p1<SIZE*SIZE)&&(0<=p2)&&(p2<SIZE*SIZE) ) {
+    	if ( (0<=p1)&&(p1<rows*columns)&&(0<=p2)&&(p2<rows*columns) ) {
     		char[] temp = this.id.toCharArray();
 	        temp[p1] = this.id.charAt(p2);
 	        temp[p2] = this.id.charAt(p1);
-	    	return new Board(new String(temp));
+	    	return new Board(new String(temp), rows, columns);
     	} else return null;
     }
     
@@ -114,20 +159,20 @@ public class Board extends Node {
     public Set<Board> nextPossibleBoards() {
             Set<Board> neighbors = new HashSet<Board>();
             //Can move the empty square one position at a time, according to its current position:
-            int emptyPointer = this.emptyPos.getLeft()*SIZE + this.emptyPos.getRight();
+            int emptyPointer = this.emptyPos.getLeft()*columns + this.emptyPos.getRight();
             Board newBd = null;
             // Move down if possible:
-            if ( this.emptyPos.getLeft() < SIZE-1 ) {
-            	newBd = this.exchange(emptyPointer, emptyPointer+SIZE);
+            if ( this.emptyPos.getLeft() < rows-1 ) {
+            	newBd = this.exchange(emptyPointer, emptyPointer+columns);
             	if ( newBd != null) neighbors.add(newBd);
             }
             // Move up if possible:
             if ( this.emptyPos.getLeft() > 0 ) {
-            	newBd = this.exchange(emptyPointer, emptyPointer-SIZE);
+            	newBd = this.exchange(emptyPointer, emptyPointer-columns);
             	if ( newBd != null) neighbors.add(newBd);
             }
             // Move right if possible:
-            if ( this.emptyPos.getRight() < SIZE-1 ) {
+            if ( this.emptyPos.getRight() < columns-1 ) {
 	            newBd = this.exchange(emptyPointer, emptyPointer+1);
 	            if ( newBd != null) neighbors.add(newBd);
             }
@@ -0,0 +1,280 @@
+package puzzle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import datastructures.Node;
+
+// A precomputed table of the distance of every board of a rows x columns game to its solution (Board.solution),
+// computed once by a BFS from the solution and persisted to disk, that answers "distance" and "next optimal move"
+// queries in O(1): any board is solved by greedily following decreasing distances, with no search at all.
+//
+// Only the boards reachable from the solution (half of all the permutations) have an entry, of a single byte:
+// the index of a board is the position of its empty square times (nTiles-1)!/2 plus half the rank of the
+// sequence of its other tiles. Sequences with ranks 2h and 2h+1 only differ by a swap of their last two tiles,
+// so exactly one of them is reachable for each position of the empty square: nTiles!/2 bytes (181440 for 3 x 3).
+//
+// File layout (ints are 32-bit little-endian): MAGIC, VERSION, rows, columns, maximum distance, then the table.
+public class DistanceOracle {
+
+	// Constants:
+	// ==========
+	public static final int MAGIC = 0x54534944; // "DIST"
+	public static final int VERSION = 1;
+	private static final int HEADER_BYTES = 5 * 4;
+	// Largest number of tiles whose table fits in a byte array
+	public static final int MAX_TILES = 12;
+
+	// Data Definitions:
+	// =================
+	private final int rows;
+	private final int columns;
+	private final int nTiles;
+	private final long[] factorials; // factorials[i] = i!, for the ranks of the tile sequences
+	private final int half;          // (nTiles-1)!/2: number of entries for each position of the empty square
+	private final byte[] distances;  // distance to the solution by board index (see indexOf)
+	private final int maxDistance;
+
+	// Functions:
+	// ==========
+	private DistanceOracle(int rows, int columns, byte[] distances, int maxDistance) {
+		this.rows = rows;
+		this.columns = columns;
+		this.nTiles = rows * columns;
+		this.factorials = new long[this.nTiles];
+		this.factorials[0] = 1;
+		for (int i = 1; i < this.nTiles; i++) this.factorials[i] = this.factorials[i - 1] * i;
+		this.half = (int) (this.factorials[this.nTiles - 1] / 2);
+		this.distances = (distances != null) ? distances : new byte[this.nTiles * this.half];
+		this.maxDistance = maxDistance;
+	}
+
+	// Computes the table of the SIZE x SIZE game
+	public static DistanceOracle compute() {
+		return compute(Board.SIZE, Board.SIZE);
+	}
+
+	// Computes the table of a rows x columns game with a BFS from its solution, level by level: the boards of each
+	// level are found by scanning the table for their distance, rather than kept in a queue, so the table is all the
+	// memory needed (nTiles!/2 bytes: 240 MB for 12 tiles, where a queue of packed boards would take 1.9 GB more).
+	// Each level costs a scan of the table, and each board is unranked (stateAt) once, when its level is expanded.
+	public static DistanceOracle compute(int rows, int columns) {
+		checkShape(rows, columns);
+		DistanceOracle oracle = new DistanceOracle(rows, columns, null, 0);
+		int size = oracle.distances.length;
+		Arrays.fill(oracle.distances, (byte) -1); // not reached yet
+		long[] neighbors = new long[PackedBoard.MAX_MOVES];
+		oracle.distances[oracle.indexOf(PackedBoard.pack(Board.solution(rows, columns)))] = 0;
+		int distance = 0;
+		for (boolean grown = true; grown; ) {
+			grown = false;
+			for (int index = 0; index < size; index++) {
+				if (oracle.distances[index] != (byte) distance) continue;
+				int nNeighbors = PackedBoard.nextPossibleBoards(oracle.stateAt(index), rows, columns, neighbors);
+				for (int k = 0; k < nNeighbors; k++) {
+					int next = oracle.indexOf(neighbors[k]);
+					if (oracle.distances[next] == -1) {
+						oracle.distances[next] = (byte) (distance + 1);
+						grown = true;
+					}
+				}
+			}
+			if (grown) distance++;
+		}
+		return new DistanceOracle(rows, columns, oracle.distances, distance);
+	}
+
+	// Loads a table saved by save
+	public static DistanceOracle load(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining() && channel.read(header) >= 0);
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) throw new IOException(file + " is not a distance file");
+			if (header.getInt() != VERSION) throw new IOException(file + " has an unsupported distance file version");
+			int rows = header.getInt(), columns = header.getInt(), maxDistance = header.getInt();
+			checkShape(rows, columns);
+			DistanceOracle oracle = new DistanceOracle(rows, columns, null, maxDistance);
+			if (channel.size() != HEADER_BYTES + oracle.distances.length) throw new IOException(file + " is truncated");
+			ByteBuffer table = ByteBuffer.wrap(oracle.distances);
+			while (table.hasRemaining() && channel.read(table) >= 0);
+			return oracle;
+		}
+	}
+
+	// Loads the table of a rows x columns game from a file, or computes it and saves it to the file if it doesn't exist
+	public static DistanceOracle loadOrCompute(File file, int rows, int columns) throws IOException {
+		if (file.exists()) {
+			DistanceOracle oracle = load(file);
+			if (oracle.rows != rows || oracle.columns != columns)
+				throw new IOException(file + " has the distances of a " + oracle.rows + " x " + oracle.columns + " game");
+			return oracle;
+		}
+		DistanceOracle oracle = compute(rows, columns);
+		oracle.save(file);
+		return oracle;
+	}
+
+	// Writes the table to a file, replacing it if it exists
+	public void save(File file) throws IOException {
+		file.delete();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(this.rows).putInt(this.columns).putInt(this.maxDistance);
+			header.flip();
+			ByteBuffer table = ByteBuffer.wrap(this.distances);
+			while (header.hasRemaining() || table.hasRemaining()) channel.write(new ByteBuffer[] { header, table });
+		}
+	}
+
+	private static void checkShape(int rows, int columns) {
+		if (rows < 2 || columns < 2 || rows * columns > MAX_TILES)
+			throw new IllegalArgumentException("Unsupported game shape " + rows + " x " + columns);
+	}
+
+	// Produces an human-readable string with global useful information about the table
+	public String toString() {
+		return "DistanceOracle(" + this.rows + "x" + this.columns + ")={" + this.size() + " board(s), maximum distance " + this.maxDistance + "}";
+	}
+
+	public int getRows() {
+		return this.rows;
+	}
+
+	public int getColumns() {
+		return this.columns;
+	}
+
+	// Returns the number of boards in the table: all the boards that can reach the solution (nTiles!/2)
+	public int size() {
+		return this.distances.length;
+	}
+
+	// Returns the largest distance of any board to the solution
+	public int getMaxDistance() {
+		return this.maxDistance;
+	}
+
+	// Returns the number of boards at each distance to the solution: counts[i] boards are at distance "i"
+	public long[] getDistanceCounts() {
+		long[] counts = new long[this.maxDistance + 1];
+		for (int index = 0; index < this.distances.length; index++) counts[this.distances[index] & 0xFF]++;
+		return counts;
+	}
+
+	// Returns the distance of a board to the solution, or -1 if it cannot reach the solution or has another shape
+	public int getDistance(Board board) {
+		if (board == null || board.getRows() != this.rows || board.getColumns() != this.columns) return -1;
+		return this.getDistance(board.toPacked());
+	}
+
+	// Returns the distance of a packed board to the solution, or -1 if it cannot reach the solution
+	public int getDistance(long state) {
+		int index = this.indexOf(state);
+		if (index < 0) return -1;
+		else return this.distances[index] & 0xFF;
+	}
+
+	// Returns the board one optimal move closer to the solution than a given board;
+	// null if it is the solution, it cannot reach the solution or has another shape
+	public Board nextMove(Board board) {
+		if (this.getDistance(board) <= 0) return null;
+		return new Board(this.nextMove(board.toPacked()), this.rows, this.columns);
+	}
+
+	// Returns the packed board one optimal move closer to the solution than a given one;
+	// -1 if it is the solution or it cannot reach the solution
+	public long nextMove(long state) {
+		int distance = this.getDistance(state);
+		if (distance <= 0) return -1;
+		long[] neighbors = new long[PackedBoard.MAX_MOVES];
+		int nNeighbors = PackedBoard.nextPossibleBoards(state, this.rows, this.columns, neighbors);
+		for (int k = 0; k < nNeighbors; k++) {
+			if (this.getDistance(neighbors[k]) == distance - 1) return neighbors[k];
+		}
+		throw new IllegalStateException("Inconsistent distance table at " + PackedBoard.unpack(state, this.nTiles));
+	}
+
+	// Produces an optimal path from a given board to the solution (both included), following decreasing distances;
+	// null if the board cannot reach the solution or has another shape
+	public LinkedList<Node> solve(Board start) {
+		if (this.getDistance(start) < 0) return null;
+		LinkedList<Node> result = new LinkedList<Node>();
+		result.add(start);
+		for (long state = this.nextMove(start.toPacked()); state >= 0; state = this.nextMove(state))
+			result.add(new Board(state, this.rows, this.columns));
+		return result;
+	}
+
+	// Returns one of the boards at the maximum distance to the solution
+	public Board getFarthestBoard() {
+		for (int index = 0; index < this.distances.length; index++) {
+			if ((this.distances[index] & 0xFF) == this.maxDistance) return new Board(this.stateAt(index), this.rows, this.columns);
+		}
+		return null;
+	}
+
+	// Returns the index of a packed board in the table, or -1 if it cannot reach the solution.
+	// A board can reach the solution iff the parity of its permutation (with the empty square as tile 0) plus the
+	// distance of its empty square to the last position is the same of the solution: every move swaps two tiles
+	// and moves the empty square by one, so it keeps that sum even, and all boards with the same sum are reachable.
+	private int indexOf(long state) {
+		int empty = -1;
+		long tileRank = 0;
+		int digits = 0; // sum of the digits of tileRank: the number of inversions among the non-empty tiles
+		int unused = ((1 << this.nTiles) - 1) & ~1; // bit "t" is set while tile "t" is not placed yet
+		for (int p = 0, k = 0; p < this.nTiles; p++) {
+			int tile = PackedBoard.tileAt(state, p);
+			if (tile == 0) {
+				empty = p;
+				continue;
+			}
+			int digit = Integer.bitCount(unused & ((1 << tile) - 1));
+			tileRank += digit * this.factorials[this.nTiles - 2 - k++];
+			digits += digit;
+			unused &= ~(1 << tile);
+		}
+		if (!this.isReachable(empty, digits)) return -1;
+		return empty * this.half + (int) (tileRank >>> 1);
+	}
+
+	// Produces the packed board with a given index in the table (the inverse of indexOf)
+	private long stateAt(int index) {
+		int empty = index / this.half;
+		long rank = 2L * (index % this.half);
+		for (;; rank++) { // either the even or the odd rank is reachable
+			long state = 0;
+			int digits = 0;
+			long rest = rank;
+			int unused = ((1 << this.nTiles) - 1) & ~1;
+			for (int p = 0, k = 0; p < this.nTiles; p++) {
+				if (p == empty) continue;
+				long weight = this.factorials[this.nTiles - 2 - k++];
+				int digit = (int) (rest / weight);
+				rest %= weight;
+				digits += digit;
+				// The tile is the (digit+1)-th smallest one not placed yet
+				int candidates = unused;
+				for (int d = 0; d < digit; d++) candidates &= candidates - 1;
+				int tile = Integer.numberOfTrailingZeros(candidates);
+				unused &= ~(1 << tile);
+				state |= (long) tile << (4 * p);
+			}
+			if (this.isReachable(empty, digits)) return state;
+		}
+	}
+
+	// Produces true if a board with the empty square at a given position and a given number of inversions among
+	// its other tiles can reach the solution (see indexOf): the empty square adds "empty" inversions
+	private boolean isReachable(int empty, int inversions) {
+		int last = this.nTiles - 1;
+		int distance = Math.abs(empty / this.columns - last / this.columns) + Math.abs(empty % this.columns - last % this.columns);
+		return ((inversions + empty + distance - last) & 1) == 0;
+	}
+}
@@ -0,0 +1,176 @@
+package puzzle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// A disk-backed Breadth-First Search over all the boards of a rows x columns game reachable from a start board,
+// for games whose state space does not fit on the heap (ex: 12!/2 boards of a 3 x 4 or a 2 x 6 game):
+// - the visited set is a bitmap indexed by permutation rank (see PackedBoard.rank) in a memory-mapped file,
+//   so the operating system pages it in and out as needed: nTiles!/8 bytes (60MB for 12 tiles);
+// - each BFS level (frontier) is a file of packed boards that is written and then read back sequentially.
+// Only the number of boards per level is kept in memory.
+public class ExternalBFS {
+
+	// Constants:
+	// ==========
+	// Largest region of the visited file mapped at once (a MappedByteBuffer is indexed by int)
+	private static final int CHUNK_BYTES = 1 << 30;
+	// Size of the buffers used to read and write the level files
+	private static final int IO_BUFFER_BYTES = 1 << 20;
+
+	// Data Definitions:
+	// =================
+	private final int rows;
+	private final int columns;
+	private final int nTiles;
+	private final File workDirectory; // where each search creates a directory of its own for the visited bitmap and the level files
+
+	// Visited bitmap of the running search, split in chunks of CHUNK_BYTES
+	private MappedByteBuffer[] visited = null;
+	private long nVisited = 0;
+
+	// Functions:
+	// ==========
+	public ExternalBFS(int rows, int columns, File workDirectory) {
+		assert (rows*columns <= Board.MAX_TILES);
+		this.rows = rows;
+		this.columns = columns;
+		this.nTiles = rows * columns;
+		this.workDirectory = workDirectory;
+	}
+
+	// Returns the number of boards visited by the last search
+	public long getNumberOfVisitedBoards() {
+		return this.nVisited;
+	}
+
+	// Performs a BFS from a given board (as a Board id, ex: "123456789AB0") and returns the number of boards
+	// at each distance from it: level[i] is the number of boards at distance "i" from "start".
+	// Its files are created in a new directory inside the work directory, so searches may share the work directory;
+	// the directory and its files are deleted when it returns.
+	public long[] run(String start) throws IOException {
+		File directory = Files.createTempDirectory(this.workDirectory.toPath(), "bfs").toFile();
+		File visitedFile = new File(directory, "visited.bits");
+		File current = new File(directory, "level-0.bin");
+		File next = null;
+		long[] levels = new long[64];
+		int nLevels = 0;
+		try {
+			this.mapVisited(visitedFile);
+			long source = PackedBoard.pack(start);
+			this.markVisited(PackedBoard.rank(source, this.nTiles));
+			this.nVisited = 1;
+			LevelWriter writer = new LevelWriter(current);
+			writer.write(source);
+			long size = writer.close();
+			while (size > 0) {
+				if (nLevels == levels.length) levels = Arrays.copyOf(levels, nLevels * 2);
+				levels[nLevels++] = size;
+				next = new File(directory, "level-" + nLevels + ".bin");
+				size = this.expandLevel(current, next);
+				current.delete();
+				current = next;
+			}
+		} finally {
+			this.visited = null; // Note: mappings are released when the buffers are garbage collected
+			current.delete();
+			if (next != null) next.delete();
+			visitedFile.delete();
+			directory.delete();
+		}
+		return Arrays.copyOf(levels, nLevels);
+	}
+
+	// Writes to file "next" all the boards not visited yet that are neighbors of the ones in file "current"
+	// and returns how many they are
+	private long expandLevel(File current, File next) throws IOException {
+		LevelWriter writer = new LevelWriter(next);
+		long[] neighbors = new long[PackedBoard.MAX_MOVES];
+		try (FileChannel in = FileChannel.open(current.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+			while (in.read(buffer) >= 0) {
+				buffer.flip();
+				while (buffer.remaining() >= 8) {
+					int nNeighbors = PackedBoard.nextPossibleBoards(buffer.getLong(), this.rows, this.columns, neighbors);
+					for (int k = 0; k < nNeighbors; k++) {
+						if (this.markVisited(PackedBoard.rank(neighbors[k], this.nTiles))) {
+							this.nVisited++;
+							writer.write(neighbors[k]);
+						}
+					}
+				}
+				buffer.compact();
+			}
+		} finally {
+			writer.close();
+		}
+		return writer.size;
+	}
+
+	// Creates the visited bitmap file, with all bits cleared, and maps it in memory
+	private void mapVisited(File visitedFile) throws IOException {
+		long bytes = (PackedBoard.numberOfBoards(this.nTiles) + 7) / 8;
+		try (FileChannel channel = FileChannel.open(visitedFile.toPath(), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			this.visited = new MappedByteBuffer[(int) ((bytes + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+			for (int c = 0; c < this.visited.length; c++) {
+				long offset = (long) c * CHUNK_BYTES;
+				this.visited[c] = channel.map(FileChannel.MapMode.READ_WRITE, offset, Math.min(CHUNK_BYTES, bytes - offset));
+			}
+		} // Note: mappings stay valid after the channel is closed
+	}
+
+	// Sets the visited bit of a given rank and returns true if it was not set yet
+	private boolean markVisited(long rank) {
+		long byteIndex = rank >>> 3;
+		MappedByteBuffer chunk = this.visited[(int) (byteIndex / CHUNK_BYTES)];
+		int offset = (int) (byteIndex % CHUNK_BYTES);
+		byte bits = chunk.get(offset);
+		int mask = 1 << (int) (rank & 7);
+		if ((bits & mask) != 0) return false;
+		chunk.put(offset, (byte) (bits | mask));
+		return true;
+	}
+
+	// Appends packed boards to a level file through a buffer, so the file is written sequentially
+	private static final class LevelWriter {
+		private final FileChannel out;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+		private long size = 0;
+
+		LevelWriter(File file) throws IOException {
+			this.out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		void write(long state) throws IOException {
+			if (!this.buffer.hasRemaining()) this.flush();
+			this.buffer.putLong(state);
+			this.size++;
+		}
+
+		private void flush() throws IOException {
+			this.buffer.flip();
+			while (this.buffer.hasRemaining()) this.out.write(this.buffer);
+			this.buffer.clear();
+		}
+
+		// Flushes and closes the file and returns the number of boards written
+		long close() throws IOException {
+			if (this.out.isOpen()) {
+				try {
+					this.flush();
+				} finally {
+					this.out.close();
+				}
+			}
+			return this.size;
+		}
+	}
+}
@@ -1,9 +1,19 @@
 package puzzle;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import datastructures.CompactGraph;
 import datastructures.Graph;
+import datastructures.GraphBuilder;
+import datastructures.GraphFile;
+import datastructures.Node;
+import datastructures.NodeFactory;
 
 // A board puzzle game modeled as a graph:
 // - Each node is a board configuration;
@@ -13,15 +23,25 @@ public class Game extends Graph {
 	// Constants:
 	// ==========
 	public final static int N_TILES = Board.SIZE * Board.SIZE;
-	public final static int INIT_CAPACITY = (int) (util.Math.factorial(N_TILES) / 0.75 + 1);
+	// Largest number of boards for which the graph structures are presized and boards are looked up by permutation rank:
+	// beyond it (ex: 12! boards of a 3 x 4 game) they grow on demand (see ExternalBFS for traversing the whole game)
+	public final static int MAX_INIT_CAPACITY = 1 << 24;
+	public final static int INIT_CAPACITY = initCapacity(N_TILES);
 
 	// Data Definitions:
 	// =================
 	//private Graph gameGraph;
+	private final int rows;
+	private final int columns;
 	
 	// Functions:
 	// ==========
 	public Game(String aName) {
+		this(aName, Board.SIZE, Board.SIZE);
+	}
+	
+	// Creates a game of rows x columns boards
+	public Game(String aName, int rows, int columns) {
 		/*
 		 * From the HashMap class JavaDoc: As a general rule, the default load
 		 * factor (.75) offers a good tradeoff between time and space costs.
@@ -34,21 +54,141 @@ public class Game extends Graph {
 		 * divided by the load factor, no rehash operations will ever occur.
 		 * 
 		 * This means, our optimal initial capacity should be N_TILES!/0.75 + 1
+		 * (Graph already divides the given number of nodes by the load factor).
 		 */
-		super(aName,INIT_CAPACITY);
+		super(aName, initCapacity(rows*columns));
+		this.rows = rows;
+		this.columns = columns;
+	}
+	
+	// Produces the number of nodes to presize a game of nTiles positions for: nTiles!, in long arithmetic
+	// so that it does not overflow from 13 tiles on, and capped at MAX_INIT_CAPACITY
+	private static int initCapacity(int nTiles) {
+		return (int) Math.min(PackedBoard.numberOfBoards(nTiles), MAX_INIT_CAPACITY);
+	}
+	
+	public int getRows() {
+		return this.rows;
+	}
+	
+	public int getColumns() {
+		return this.columns;
+	}
+	
+	// Loads a game saved by Graph.save without populating it again: the graph is traversed directly from the mapped file
+	public static CompactGraph load(File file) throws IOException {
+		return load(file, Board.SIZE, Board.SIZE);
+	}
+	
+	// Loads a game of rows x columns boards saved by Graph.save (see GraphFile)
+	public static CompactGraph load(File file, final int rows, final int columns) throws IOException {
+		return GraphFile.load(file, new NodeFactory() {
+			public Node createNode(String id) {
+				return new Board(id, rows, columns);
+			}
+		});
 	}
 	
 	// Populates the game graph with the given list of boards to be built
-	public void populate(Set<String> permutations) {
-		Iterator<String> it = permutations.iterator();
-		while (it.hasNext()) {
-			Board currentBoard = (Board) this.addNode(new Board(it.next()));
-			//Add all the edges to neighbors of the current board
-			Iterator<Board> neighbors = currentBoard.nextPossibleBoards().iterator();
-			while ( neighbors.hasNext() ) {
-				Board next = neighbors.next();
-				//if ( permutations.contains(next.getId()) ) // only add neighbors explicitly asked in the given entry list
-						this.addEdge(currentBoard, next);
+	// (ex: util.Math.permutations("012345678"), that generates them one at a time), using all available cores
+	public void populate(Iterable<String> permutations) {
+		ForkJoinPool pool = new ForkJoinPool();
+		try {
+			this.populate(permutations, pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	// Populates the game graph with the given list of boards to be built, using the tasks of a given pool:
+	// boards are indexed by permutation rank, and then they are created and their edges are generated in
+	// parallel into a GraphBuilder, that adds them all to the graph at once.
+	// Neighbors of the given boards that are not in the list are added too, but not their own edges.
+	public void populate(Iterable<String> permutations, ForkJoinPool pool) {
+		int nTiles = this.rows * this.columns;
+		if (PackedBoard.numberOfBoards(nTiles) > MAX_INIT_CAPACITY) { // too many possible boards for a rank table
+			this.populateById(permutations);
+			return;
+		}
+		// Dense index + 1 of each board by its permutation rank (0 if not in the list), so that neighbors
+		// are found without building new Boards or Strings
+		int[] indexByRank = new int[(int) PackedBoard.numberOfBoards(nTiles)];
+		int expectedBoards = (permutations instanceof Collection) ? ((Collection<?>) permutations).size() : initCapacity(nTiles);
+		long[] packedBoards = new long[expectedBoards];
+		int nBoards = 0;
+		for (Iterator<String> it = permutations.iterator(); it.hasNext(); ) {
+			long packed = PackedBoard.pack(it.next());
+			int rank = (int) PackedBoard.rank(packed, nTiles);
+			if (indexByRank[rank] != 0) continue; // repeated board
+			if (nBoards == packedBoards.length) packedBoards = Arrays.copyOf(packedBoards, nBoards * 2 + 1);
+			packedBoards[nBoards++] = packed;
+			indexByRank[rank] = nBoards;
+		}
+		int nEntries = nBoards;
+		long[] neighbors = new long[PackedBoard.MAX_MOVES];
+		for (int i = 0; i < nEntries; i++) {
+			int nNeighbors = PackedBoard.nextPossibleBoards(packedBoards[i], this.rows, this.columns, neighbors);
+			for (int k = 0; k < nNeighbors; k++) {
+				int rank = (int) PackedBoard.rank(neighbors[k], nTiles);
+				if (indexByRank[rank] == 0) { // neighbor not in the given entry list: it is added too
+					if (nBoards == packedBoards.length) packedBoards = Arrays.copyOf(packedBoards, nBoards * 2 + 1);
+					packedBoards[nBoards++] = neighbors[k];
+					indexByRank[rank] = nBoards;
+				}
+			}
+		}
+		GraphBuilder builder = new GraphBuilder(nBoards, !this.isUndirected());
+		pool.invoke(new BuildBoards(this, builder, packedBoards, indexByRank, nEntries, 0, nBoards));
+		builder.addTo(this, pool);
+	}
+	
+	// Populates the game graph looking boards up by id, for games with too many possible boards to index them by rank
+	private void populateById(Iterable<String> permutations) {
+		long[] neighbors = new long[PackedBoard.MAX_MOVES];
+		for (Iterator<String> it = permutations.iterator(); it.hasNext(); ) {
+			Board currentBoard = (Board) this.addNode(new Board(it.next(), this.rows, this.columns));
+			int nNeighbors = PackedBoard.nextPossibleBoards(currentBoard.toPacked(), this.rows, this.columns, neighbors);
+			for (int k = 0; k < nNeighbors; k++) {
+				this.addEdge(currentBoard, new Board(neighbors[k], this.rows, this.columns)); // reuses the existing board, if any
+			}
+		}
+	}
+	
+	// Creates the boards with dense indexes in [from, to) and adds the edges to their neighbors, for the boards of the entry list
+	private static final class BuildBoards extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private static final int GRAIN = 4096;
+		private final Game game;
+		private final GraphBuilder builder;
+		private final long[] packedBoards;
+		private final int[] indexByRank;
+		private final int nEntries;
+		private final int from, to;
+		BuildBoards(Game game, GraphBuilder builder, long[] packedBoards, int[] indexByRank, int nEntries, int from, int to) {
+			this.game = game;
+			this.builder = builder;
+			this.packedBoards = packedBoards;
+			this.indexByRank = indexByRank;
+			this.nEntries = nEntries;
+			this.from = from;
+			this.to = to;
+		}
+		protected void compute() {
+			if (this.to - this.from > GRAIN) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new BuildBoards(this.game, this.builder, this.packedBoards, this.indexByRank, this.nEntries, this.from, middle),
+						new BuildBoards(this.game, this.builder, this.packedBoards, this.indexByRank, this.nEntries, middle, this.to));
+				return;
+			}
+			int rows = this.game.rows, columns = this.game.columns;
+			long[] neighbors = new long[PackedBoard.MAX_MOVES];
+			for (int i = this.from; i < this.to; i++) {
+				this.builder.setNode(i, new Board(this.packedBoards[i], rows, columns));
+				if (i >= this.nEntries) continue;
+				int nNeighbors = PackedBoard.nextPossibleBoards(this.packedBoards[i], rows, columns, neighbors);
+				for (int k = 0; k < nNeighbors; k++) {
+					this.builder.addEdge(i, this.indexByRank[(int) PackedBoard.rank(neighbors[k], rows * columns)] - 1);
+				}
 			}
 		}
 	}
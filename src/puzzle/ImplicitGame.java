@@ -0,0 +1,220 @@
+package puzzle;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+import datastructures.Graph;
+import datastructures.Node;
+
+// A board puzzle game of a given rows x columns shape modeled as an implicit graph:
+// the neighbors of each board are generated on demand from its moves (see PackedBoard.nextPossibleBoards),
+// so traversals start instantly and use memory proportional to the boards they actually explore,
+// instead of first materializing all the (rows*columns)! boards and their edges as Game.populate does.
+// Provides the same traversals of Game (DFS, BFS and shortest paths), restricted to the boards reachable from the start;
+// boards of another shape are not part of the game, so traversals from them return null.
+public class ImplicitGame {
+
+	// Data Definitions:
+	// =================
+	protected String label; // a name for the game
+	private final int rows;
+	private final int columns;
+
+	// Boards explored by the last traversal, by their index in discovery order
+	private StateTable explored = null;
+	// Parent index of each explored board in the last DFS or BFS tree (-1 for the root)
+	private int[] parents = null;
+	// Articulation boards found by the last DFS
+	private Set<Node> articulationNodes = null;
+
+	// Functions:
+	// ==========
+	// Creates a game of SIZE x SIZE boards
+	public ImplicitGame(String aName) {
+		this(aName, Board.SIZE, Board.SIZE);
+	}
+
+	// Creates a game of rows x columns boards
+	public ImplicitGame(String aName, int rows, int columns) {
+		if (rows < 2 || columns < 2 || rows * columns > Board.MAX_TILES)
+			throw new IllegalArgumentException("Unsupported game shape " + rows + " x " + columns);
+		this.label = new String(aName);
+		this.rows = rows;
+		this.columns = columns;
+	}
+
+	public int getRows() {
+		return this.rows;
+	}
+
+	public int getColumns() {
+		return this.columns;
+	}
+
+	// Produces true if a board is not null and has the shape of the game
+	private boolean hasShape(Board board) {
+		return board != null && board.getRows() == this.rows && board.getColumns() == this.columns;
+	}
+
+	// Produces an human-readable string with global useful information about the game
+	public String toString() {
+		return this.label + "={" + this.getNumberOfExploredBoards() + " board(s) explored}";
+	}
+
+	// Returns the number of boards explored by the last traversal (0 if none)
+	public int getNumberOfExploredBoards() {
+		if (this.explored == null) return 0;
+		else return this.explored.size();
+	}
+
+	// Returns the set of articulation boards of the component of the start board of the last DFS (null if no DFS was run)
+	public Set<Node> getArticulationNodes() {
+		return this.articulationNodes;
+	}
+
+	// Returns the number of articulation boards found by the last DFS (-1 if no DFS was run)
+	public int getNumberOfArticulationNodes() {
+		if (this.articulationNodes == null) return -1;
+		else return this.articulationNodes.size();
+	}
+
+	// Stores the parent of a newly explored board, growing the parents array if needed
+	private void setParent(int index, int parent) {
+		if (index == this.parents.length) this.parents = Arrays.copyOf(this.parents, index * 2);
+		this.parents[index] = parent;
+	}
+
+	// Performs a Breadth-First Search (BFS) from a given board and returns the BFS-Tree levels in the form of a vector:
+	// Each level[i] is the set of boards at distance "i" from board "start".
+	public Vector<Set<Node>> bfs(Board start) {
+		return this.bfs(start, Integer.MAX_VALUE);
+	}
+
+	// Performs a BFS from a given board that stops at distance "maxDepth" and returns the BFS-Tree levels
+	// (null if the board is null or has another shape).
+	public Vector<Set<Node>> bfs(Board start, int maxDepth) {
+		if (!this.hasShape(start)) return null;
+		Vector<Set<Node>> bfsLevels = new Vector<Set<Node>>();
+		int[] levelEnds = this.bfsVisit(start.toPacked(), -1L, maxDepth);
+		int from = 0;
+		for (int k = 0; k < levelEnds.length && levelEnds[k] > from; k++) {
+			Set<Node> level = new HashSet<Node>((levelEnds[k] - from) * 4 / 3 + 1);
+			for (; from < levelEnds[k]; from++) level.add(new Board(this.explored.stateAt(from), this.rows, this.columns));
+			bfsLevels.add(level);
+		}
+		return bfsLevels;
+	}
+
+	// Explores boards in BFS order from "source" until board "target" is found (if it is not -1) or "maxDepth" is reached.
+	// Indexes in the explored table are the BFS visiting order; returns where each level ends in that order.
+	private int[] bfsVisit(long source, long target, int maxDepth) {
+		this.explored = new StateTable(1024);
+		this.parents = new int[1024];
+		this.articulationNodes = null;
+		this.setParent(this.explored.add(source), -1);
+		int[] levelEnds = new int[64];
+		int levels = 0;
+		long[] neighbors = new long[PackedBoard.MAX_MOVES];
+		int head = 0;
+		boolean found = (source == target);
+		while (head < this.explored.size() && levels <= maxDepth && !found) {
+			int levelEnd = this.explored.size(); // boards in [head, levelEnd) are all at the same distance
+			if (levels == levelEnds.length) levelEnds = Arrays.copyOf(levelEnds, levels * 2);
+			levelEnds[levels++] = levelEnd;
+			if (levels > maxDepth) break;
+			for (; head < levelEnd && !found; head++) {
+				int nNeighbors = PackedBoard.nextPossibleBoards(this.explored.stateAt(head), this.rows, this.columns, neighbors);
+				for (int k = 0; k < nNeighbors; k++) {
+					if (this.explored.indexOf(neighbors[k]) < 0) {
+						this.setParent(this.explored.add(neighbors[k]), head);
+						if (neighbors[k] == target) {
+							found = true;
+							break;
+						}
+					}
+				}
+			}
+		}
+		return Arrays.copyOf(levelEnds, levels);
+	}
+
+	// Returns the shortest path from board "start" to board "end"; null if any board is null or has another shape,
+	// or "end" is not reachable from "start". The search stops as soon as "end" is found.
+	public LinkedList<Node> getShortestPath(Board start, Board end) {
+		if (!this.hasShape(start) || !this.hasShape(end)) return null;
+		long target = end.toPacked();
+		this.bfsVisit(start.toPacked(), target, Integer.MAX_VALUE);
+		int index = this.explored.indexOf(target);
+		if (index < 0) return null; // node "end" is not reachable from node "start"!
+		// Builds the result list going backwards through board parents list
+		LinkedList<Node> result = new LinkedList<Node>();
+		for (; index >= 0; index = this.parents[index]) result.push(new Board(this.explored.stateAt(index), this.rows, this.columns));
+		return result;
+	}
+
+	// Performs a Depth-First Search (DFS) from a given board and returns the DFS-Forest, as Graph.dfs does:
+	// since only boards reachable from "start" are explored, it has a single DFS-Tree.
+	// Articulation boards of the component of "start" are found in the same pass (null if the board is null or has another shape).
+	public List<Graph> dfs(Board start) {
+		if (!this.hasShape(start)) return null;
+		List<Graph> dfsForest = new LinkedList<Graph>();
+		Graph dfsTree = new Graph("dfsTree1", true); // Note: DFS-Tree is directed for the purpose of clarity only
+		this.explored = new StateTable(1024);
+		this.parents = new int[1024];
+		this.articulationNodes = new HashSet<Node>();
+		// Indexes in the explored table are the DFS pre-order, so the pre value of a board is its index
+		int[] low = new int[1024];
+		int[] nextMove = new int[1024]; // next neighbor to be scanned, for each board in the stack
+		int[] stack = new int[1024];
+		long[] neighbors = new long[PackedBoard.MAX_MOVES];
+		Board[] treeNodes = new Board[1024];
+		int rootChildren = 0;
+
+		int top = 0;
+		stack[0] = this.explored.add(start.toPacked());
+		this.setParent(0, -1);
+		treeNodes[0] = (Board) dfsTree.addNode(start);
+		while (top >= 0) {
+			int u = stack[top];
+			int nNeighbors = PackedBoard.nextPossibleBoards(this.explored.stateAt(u), this.rows, this.columns, neighbors);
+			if (nextMove[u] < nNeighbors) {
+				long next = neighbors[nextMove[u]++];
+				int v = this.explored.indexOf(next);
+				if (v < 0) {
+					// Tree edge: visit the new board
+					v = this.explored.add(next);
+					this.setParent(v, u);
+					if (v == low.length) {
+						low = Arrays.copyOf(low, v * 2);
+						nextMove = Arrays.copyOf(nextMove, v * 2);
+						treeNodes = Arrays.copyOf(treeNodes, v * 2);
+					}
+					if (top + 1 == stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+					low[v] = v;
+					treeNodes[v] = new Board(next, this.rows, this.columns);
+					dfsTree.addEdge(treeNodes[u], treeNodes[v]);
+					if (u == 0) rootChildren++;
+					stack[++top] = v;
+				} else if (v != this.parents[u] && v < low[u]) {
+					// Back edge: see references/articulation-points-or-cut-vertices-in-a-graph.pdf
+					low[u] = v;
+				}
+			} else {
+				// All neighbors of u were scanned: return to its parent
+				top--;
+				int p = this.parents[u];
+				if (p >= 0) {
+					if (low[u] < low[p]) low[p] = low[u];
+					if (p != 0 && low[u] >= p) this.articulationNodes.add(treeNodes[p]);
+				}
+			}
+		}
+		if (rootChildren > 1) this.articulationNodes.add(treeNodes[0]);
+		dfsForest.add(dfsTree);
+		return dfsForest;
+	}
+}
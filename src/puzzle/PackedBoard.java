@@ -0,0 +1,151 @@
+package puzzle;
+
+// A compact, allocation-free encoding of board configurations:
+// - a board is packed in a long with 4 bits per tile, where bits 4*p..4*p+3 hold the tile at linear position p;
+// - a board is also identified by its permutation rank (Lehmer code) in [0, nTiles!).
+// Moves are generated directly on the packed form, without creating any Board or String.
+// Methods without the board dimensions are for SIZE x SIZE boards; the others work for any
+// rows x columns board with up to Board.MAX_TILES positions.
+public final class PackedBoard {
+
+	// Constants:
+	// ==========
+	public static final int SIZE = Board.SIZE;
+	public static final int N_TILES = SIZE * SIZE;
+	// Maximum number of neighbors of any board
+	public static final int MAX_MOVES = 4;
+
+	// FACTORIALS[i] = i!, for the permutation ranks
+	private static final long[] FACTORIALS = new long[Board.MAX_TILES + 1];
+	static {
+		FACTORIALS[0] = 1;
+		for (int i = 1; i <= Board.MAX_TILES; i++) FACTORIALS[i] = FACTORIALS[i - 1] * i;
+	}
+
+	// Packed solution of the game
+	public static final long SOLUTION = pack(Board.SOLUTION);
+
+	// Functions:
+	// ==========
+	private PackedBoard() {
+	}
+
+	// Produces the packed form of a board given as a string like "123456780"
+	public static long pack(String aBoard) {
+		long state = 0;
+		for (int p = 0; p < aBoard.length(); p++) {
+			state |= (long) Character.digit(aBoard.charAt(p), 16) << (4 * p);
+		}
+		return state;
+	}
+
+	// Produces the string form (the Board id) of a packed board
+	public static String unpack(long state) {
+		return unpack(state, N_TILES);
+	}
+
+	// Produces the string form (the Board id) of a packed board with nTiles positions
+	public static String unpack(long state, int nTiles) {
+		char[] chars = new char[nTiles];
+		for (int p = 0; p < nTiles; p++) {
+			chars[p] = Character.toUpperCase(Character.forDigit(tileAt(state, p), 16));
+		}
+		return new String(chars);
+	}
+
+	// Produces the Board of a packed board
+	public static Board toBoard(long state) {
+		return new Board(unpack(state));
+	}
+
+	// Returns the tile at a given linear position
+	public static int tileAt(long state, int position) {
+		return (int) (state >>> (4 * position)) & 0xF;
+	}
+
+	// Returns the linear position of the empty square
+	public static int emptyPosition(long state) {
+		return emptyPosition(state, N_TILES);
+	}
+
+	// Returns the linear position of the empty square of a packed board with nTiles positions
+	public static int emptyPosition(long state, int nTiles) {
+		for (int p = 0; p < nTiles; p++) {
+			if (((state >>> (4 * p)) & 0xF) == 0) return p;
+		}
+		return -1;
+	}
+
+	// Produces the board obtained by moving the tile at "position" to the empty square at "empty"
+	public static long move(long state, int empty, int position) {
+		long tile = (state >>> (4 * position)) & 0xF;
+		return (state & ~(0xFL << (4 * position))) | (tile << (4 * empty));
+	}
+
+	// Writes into "neighbors" all possible next boards of a given one (in the same order of Board.nextPossibleBoards)
+	// and returns how many they are (at most MAX_MOVES)
+	public static int nextPossibleBoards(long state, long[] neighbors) {
+		return nextPossibleBoards(state, SIZE, SIZE, neighbors);
+	}
+
+	// Writes into "neighbors" all possible next boards of a given rows x columns one and returns how many they are
+	public static int nextPossibleBoards(long state, int rows, int columns, long[] neighbors) {
+		int empty = emptyPosition(state, rows * columns);
+		int row = empty / columns, column = empty % columns;
+		int count = 0;
+		if (row < rows - 1) neighbors[count++] = move(state, empty, empty + columns);  // Move down if possible
+		if (row > 0) neighbors[count++] = move(state, empty, empty - columns);         // Move up if possible
+		if (column < columns - 1) neighbors[count++] = move(state, empty, empty + 1);  // Move right if possible
+		if (column > 0) neighbors[count++] = move(state, empty, empty - 1);            // Move left if possible
+		return count;
+	}
+
+	// Produces the lexicographic rank of a packed board among all the N_TILES! permutations of its tiles
+	public static int rank(long state) {
+		return (int) rank(state, N_TILES);
+	}
+
+	// Produces the lexicographic rank of a packed board with nTiles positions among all the nTiles! permutations
+	public static long rank(long state, int nTiles) {
+		long rank = 0;
+		int unused = (1 << nTiles) - 1; // bit "t" is set while tile "t" is not placed yet
+		for (int p = 0; p < nTiles; p++) {
+			int tile = tileAt(state, p);
+			rank += Integer.bitCount(unused & ((1 << tile) - 1)) * FACTORIALS[nTiles - 1 - p];
+			unused &= ~(1 << tile);
+		}
+		return rank;
+	}
+
+	// Produces the packed board of a given lexicographic rank (the inverse of rank)
+	public static long unrank(int rank) {
+		return unrank(rank, N_TILES);
+	}
+
+	// Produces the packed board with nTiles positions of a given lexicographic rank (the inverse of rank)
+	public static long unrank(long rank, int nTiles) {
+		long state = 0;
+		int unused = (1 << nTiles) - 1;
+		for (int p = 0; p < nTiles; p++) {
+			int digit = (int) (rank / FACTORIALS[nTiles - 1 - p]);
+			rank %= FACTORIALS[nTiles - 1 - p];
+			// The tile is the (digit+1)-th smallest one not placed yet
+			int candidates = unused;
+			for (int k = 0; k < digit; k++) candidates &= candidates - 1;
+			int tile = Integer.numberOfTrailingZeros(candidates);
+			unused &= ~(1 << tile);
+			state |= (long) tile << (4 * p);
+		}
+		return state;
+	}
+
+	// Returns the number of all possible boards (N_TILES!)
+	public static int numberOfBoards() {
+		return (int) FACTORIALS[N_TILES];
+	}
+
+	// Returns the number of all possible boards with nTiles positions (nTiles!)
+	public static long numberOfBoards(int nTiles) {
+		return FACTORIALS[nTiles];
+	}
+}
@@ -0,0 +1,337 @@
+package puzzle;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import datastructures.Node;
+
+// An optimal solver for SIZE x SIZE sliding puzzles using Iterative-Deepening A* (IDA*), which needs no
+// graph at all: boards are changed in place while searching, so memory is proportional to the solution length.
+// The admissible heuristic is the maximum of:
+// - Manhattan distance plus linear conflicts (for each row and column, the tiles that are in their goal line
+//   but out of order: at least line_size - LIS of them must leave the line and come back, 2 extra moves each);
+// - optionally, additive disjoint pattern databases: for each group of tiles, the exact number of moves of
+//   those tiles needed to place them, precomputed by a BFS over the positions of the group and the empty square.
+// The goal is the board with tiles 1..N-1 in order and the empty square at the end (as Board.SOLUTION).
+public class Solver {
+
+	// Constants:
+	// ==========
+	private static final int FOUND = -1;
+
+	// Data definitions:
+	// =================
+	private final int size;   // width (and height) of the board
+	private final int nTiles; // size * size, including the empty square
+
+	// Pattern databases: patterns[g] are the tiles of group g and databases[g] are their exact costs,
+	// indexed by the positions of those tiles (see patternIndex)
+	private final int[][] patterns;
+	private final byte[][] databases;
+	private final int[] groupOf; // group of each tile, -1 if none
+
+	// Search state: current board, position of each tile, empty square position and heuristic components
+	private int[] tiles;
+	private int[] positionOf;
+	private int blank;
+	private int manhattan;
+	private int[] rowConflicts, columnConflicts;
+	private int conflicts;
+	private int[] groupCosts;
+	private int patternCost;
+	private int[] path;       // positions of the empty square after each move
+	private int pathLength;
+	private long expandedNodes = 0;
+
+	// Functions:
+	// ==========
+	// Creates a solver using Manhattan distance plus linear conflicts
+	public Solver(int size) {
+		this(size, null);
+	}
+
+	// Creates a solver that also uses additive pattern databases for the given disjoint groups of tiles
+	public Solver(int size, int[][] patterns) {
+		this.size = size;
+		this.nTiles = size * size;
+		this.groupOf = new int[this.nTiles];
+		Arrays.fill(this.groupOf, -1);
+		if (patterns == null) {
+			this.patterns = new int[0][];
+			this.databases = new byte[0][];
+		} else {
+			this.patterns = patterns;
+			this.databases = new byte[patterns.length][];
+			for (int g = 0; g < patterns.length; g++) {
+				for (int t = 0; t < patterns[g].length; t++) {
+					if (this.groupOf[patterns[g][t]] != -1) throw new IllegalArgumentException("Pattern groups must be disjoint");
+					this.groupOf[patterns[g][t]] = g;
+				}
+				this.databases[g] = this.buildDatabase(patterns[g]);
+			}
+		}
+	}
+
+	// Produces a default partition of the tiles in groups of at most 5 tiles (1..5, 6..10, ...) for pattern databases
+	public static int[][] defaultPatterns(int size) {
+		int nTiles = size * size - 1;
+		int groupSize = (size <= 3) ? 4 : 5;
+		int[][] patterns = new int[(nTiles + groupSize - 1) / groupSize][];
+		for (int g = 0; g < patterns.length; g++) {
+			patterns[g] = new int[Math.min(groupSize, nTiles - g * groupSize)];
+			for (int t = 0; t < patterns[g].length; t++) patterns[g][t] = g * groupSize + t + 1;
+		}
+		return patterns;
+	}
+
+	// Returns the number of nodes expanded by the last search
+	public long getExpandedNodes() {
+		return this.expandedNodes;
+	}
+
+	// Goal position of a tile
+	private int goalOf(int tile) {
+		return (tile == 0) ? this.nTiles - 1 : tile - 1;
+	}
+
+	// Produces true if a given board (tiles by position, 0 for the empty square) can reach the goal
+	public boolean isSolvable(int[] board) {
+		int inversions = 0;
+		for (int i = 0; i < this.nTiles; i++)
+			for (int j = i + 1; j < this.nTiles; j++)
+				if (board[i] != 0 && board[j] != 0 && board[i] > board[j]) inversions++;
+		if (this.size % 2 == 1) return inversions % 2 == 0;
+		int blankRowFromBottom = this.size - this.emptyPosition(board) / this.size;
+		return (inversions + blankRowFromBottom) % 2 == 1;
+	}
+
+	private int emptyPosition(int[] board) {
+		for (int p = 0; p < this.nTiles; p++) if (board[p] == 0) return p;
+		return -1;
+	}
+
+	// Produces an optimal path from a given board to the solution of its shape (both included); null if there is none
+	// or the board is not size x size
+	public LinkedList<Node> solve(Board start) {
+		if (start == null || start.getRows() != this.size || start.getColumns() != this.size) return null;
+		int[] board = new int[this.nTiles];
+		for (int p = 0; p < this.nTiles; p++) board[p] = Character.digit(start.getId().charAt(p), 16);
+		int[] moves = this.solve(board);
+		if (moves == null) return null;
+		LinkedList<Node> result = new LinkedList<Node>();
+		result.add(start);
+		Board current = start;
+		int empty = this.emptyPosition(board);
+		for (int m = 0; m < moves.length; m++) {
+			current = current.exchange(empty, moves[m]);
+			empty = moves[m];
+			result.add(current);
+		}
+		return result;
+	}
+
+	// Produces an optimal sequence of moves from a given board (tiles by position, 0 for the empty square)
+	// to the goal, as the positions of the empty square after each move; null if the board is not solvable
+	public int[] solve(int[] board) {
+		if (board.length != this.nTiles || !this.isSolvable(board)) return null;
+		this.initialize(board);
+		this.expandedNodes = 0;
+		int bound = this.heuristic();
+		while (true) {
+			if (this.path.length < bound) this.path = new int[bound * 2];
+			int t = this.search(0, bound, -1);
+			if (t == FOUND) return Arrays.copyOf(this.path, this.pathLength);
+			bound = t;
+		}
+	}
+
+	private int heuristic() {
+		return Math.max(this.manhattan + 2 * this.conflicts, this.patternCost);
+	}
+
+	// IDA* depth-first search with cost bound "bound": produces FOUND or the smallest f value above the bound
+	private int search(int g, int bound, int previousBlank) {
+		int h = this.heuristic();
+		int f = g + h;
+		if (f > bound) return f;
+		if (h == 0) {
+			this.pathLength = g;
+			return FOUND;
+		}
+		this.expandedNodes++;
+		int min = Integer.MAX_VALUE;
+		int row = this.blank / this.size, column = this.blank % this.size;
+		for (int direction = 0; direction < 4; direction++) {
+			int target;
+			if (direction == 0) { if (row == this.size - 1) continue; target = this.blank + this.size; }
+			else if (direction == 1) { if (row == 0) continue; target = this.blank - this.size; }
+			else if (direction == 2) { if (column == this.size - 1) continue; target = this.blank + 1; }
+			else { if (column == 0) continue; target = this.blank - 1; }
+			if (target == previousBlank) continue; // never undo the last move
+			int from = this.blank;
+			this.move(target);
+			this.path[g] = target;
+			int t = this.search(g + 1, bound, from);
+			this.move(from);
+			if (t == FOUND) return FOUND;
+			if (t < min) min = t;
+		}
+		return min;
+	}
+
+	// Initializes the search state for a given board
+	private void initialize(int[] board) {
+		this.tiles = Arrays.copyOf(board, this.nTiles);
+		this.positionOf = new int[this.nTiles];
+		for (int p = 0; p < this.nTiles; p++) this.positionOf[this.tiles[p]] = p;
+		this.blank = this.positionOf[0];
+		this.manhattan = 0;
+		for (int tile = 1; tile < this.nTiles; tile++) this.manhattan += this.distance(tile, this.positionOf[tile]);
+		this.rowConflicts = new int[this.size];
+		this.columnConflicts = new int[this.size];
+		this.conflicts = 0;
+		for (int line = 0; line < this.size; line++) {
+			this.rowConflicts[line] = this.lineConflicts(line, true);
+			this.columnConflicts[line] = this.lineConflicts(line, false);
+			this.conflicts += this.rowConflicts[line] + this.columnConflicts[line];
+		}
+		this.groupCosts = new int[this.patterns.length];
+		this.patternCost = 0;
+		for (int g = 0; g < this.patterns.length; g++) {
+			this.groupCosts[g] = this.databases[g][this.patternIndex(this.patterns[g], this.positionOf, -1)];
+			this.patternCost += this.groupCosts[g];
+		}
+		this.path = new int[64];
+	}
+
+	// Moves the tile at position "target" into the empty square, updating the heuristic incrementally
+	private void move(int target) {
+		int tile = this.tiles[target];
+		int from = this.blank;
+		this.manhattan += this.distance(tile, from) - this.distance(tile, target);
+		this.tiles[from] = tile;
+		this.tiles[target] = 0;
+		this.positionOf[tile] = from;
+		this.positionOf[0] = target;
+		this.blank = target;
+		// Only the two lines crossed by the tile can change their conflicts
+		boolean vertical = (from % this.size == target % this.size);
+		int line1 = vertical ? from / this.size : from % this.size;
+		int line2 = vertical ? target / this.size : target % this.size;
+		int[] lineConflicts = vertical ? this.rowConflicts : this.columnConflicts;
+		this.conflicts -= lineConflicts[line1] + lineConflicts[line2];
+		lineConflicts[line1] = this.lineConflicts(line1, vertical);
+		lineConflicts[line2] = this.lineConflicts(line2, vertical);
+		this.conflicts += lineConflicts[line1] + lineConflicts[line2];
+		int g = this.groupOf[tile];
+		if (g >= 0) {
+			this.patternCost -= this.groupCosts[g];
+			this.groupCosts[g] = this.databases[g][this.patternIndex(this.patterns[g], this.positionOf, -1)];
+			this.patternCost += this.groupCosts[g];
+		}
+	}
+
+	// Manhattan distance of a tile at a given position to its goal position
+	private int distance(int tile, int position) {
+		int goal = tile - 1;
+		return Math.abs(goal / this.size - position / this.size) + Math.abs(goal % this.size - position % this.size);
+	}
+
+	// Minimum number of tiles that must leave a row (or column) because they are in their goal line but out of order:
+	// the tiles in their goal line that are not in the longest increasing subsequence of their goal positions
+	private int lineConflicts(int line, boolean isRow) {
+		int[] tails = new int[this.size]; // patience sorting: tails[k] is the smallest tail of increasing subsequences of length k+1
+		int count = 0, longest = 0;
+		for (int k = 0; k < this.size; k++) {
+			int position = isRow ? line * this.size + k : k * this.size + line;
+			int tile = this.tiles[position];
+			if (tile == 0) continue;
+			int goal = tile - 1;
+			if ((isRow ? goal / this.size : goal % this.size) != line) continue;
+			int key = isRow ? goal % this.size : goal / this.size;
+			count++;
+			int i = Arrays.binarySearch(tails, 0, longest, key);
+			if (i < 0) i = -i - 1;
+			tails[i] = key;
+			if (i == longest) longest++;
+		}
+		return count - longest;
+	}
+
+	// Index of the positions of a group of tiles (and of the empty square, if "blankPosition" is not -1) in a pattern database
+	private int patternIndex(int[] pattern, int[] positions, int blankPosition) {
+		int index = 0;
+		for (int t = 0; t < pattern.length; t++) index = index * this.nTiles + positions[pattern[t]];
+		if (blankPosition >= 0) index = index * this.nTiles + blankPosition;
+		return index;
+	}
+
+	// Builds the pattern database of a group of tiles with a BFS from the goal over the positions of the tiles of
+	// the group and of the empty square, where moving a tile of the group costs 1 and any other tile costs 0:
+	// states are found cost level by cost level, closing each level under the 0-cost moves before the next one.
+	// The final table keeps, for each placement of the group, the minimum cost over all empty square positions.
+	private byte[] buildDatabase(int[] pattern) {
+		int k = pattern.length;
+		int nStates = 1;
+		for (int t = 0; t <= k; t++) nStates *= this.nTiles;
+		byte[] costs = new byte[nStates];
+		Arrays.fill(costs, (byte) -1); // -1 (255 unsigned) means not reached yet
+		int[] positions = new int[this.nTiles];
+		int[] occupant = new int[this.nTiles]; // index in the pattern of the tile at each position + 1 (0 if none)
+		int[] stack = new int[1024];
+		for (int t = 0; t < k; t++) positions[pattern[t]] = this.goalOf(pattern[t]);
+		costs[this.patternIndex(pattern, positions, this.goalOf(0))] = 0;
+		boolean nextLevel = true;
+		for (int cost = 0; nextLevel; cost++) {
+			nextLevel = false;
+			int top = 0;
+			for (int state = 0; state < nStates; state++) {
+				if ((costs[state] & 0xFF) == cost) {
+					if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+					stack[top++] = state;
+				}
+			}
+			while (top > 0) {
+				int state = stack[--top];
+				// Decodes the state
+				int blankPosition = state % this.nTiles;
+				Arrays.fill(occupant, 0);
+				int rest = state / this.nTiles;
+				for (int t = k - 1; t >= 0; t--) {
+					positions[pattern[t]] = rest % this.nTiles;
+					occupant[positions[pattern[t]]] = t + 1;
+					rest /= this.nTiles;
+				}
+				int row = blankPosition / this.size, column = blankPosition % this.size;
+				for (int direction = 0; direction < 4; direction++) {
+					int target;
+					if (direction == 0) { if (row == this.size - 1) continue; target = blankPosition + this.size; }
+					else if (direction == 1) { if (row == 0) continue; target = blankPosition - this.size; }
+					else if (direction == 2) { if (column == this.size - 1) continue; target = blankPosition + 1; }
+					else { if (column == 0) continue; target = blankPosition - 1; }
+					int moved = occupant[target] - 1;
+					if (moved >= 0) positions[pattern[moved]] = blankPosition;
+					int next = this.patternIndex(pattern, positions, target);
+					if (moved >= 0) positions[pattern[moved]] = target;
+					int nextCost = (moved >= 0) ? cost + 1 : cost;
+					if ((costs[next] & 0xFF) > nextCost) {
+						costs[next] = (byte) nextCost;
+						if (moved >= 0) nextLevel = true;
+						else {
+							if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+							stack[top++] = next; // same cost level: closes it under the 0-cost moves
+						}
+					}
+				}
+			}
+		}
+		// Minimum over the empty square positions
+		byte[] database = new byte[nStates / this.nTiles];
+		Arrays.fill(database, Byte.MAX_VALUE);
+		for (int state = 0; state < nStates; state++) {
+			int cost = costs[state] & 0xFF;
+			if (cost != 0xFF && cost < database[state / this.nTiles]) database[state / this.nTiles] = (byte) cost;
+		}
+		return database;
+	}
+}
@@ -0,0 +1,74 @@
+package puzzle;
+
+import java.util.Arrays;
+
+// A growable table of packed boards (see PackedBoard) that gives each inserted board a dense index in
+// insertion order. Uses open addressing over primitive longs, so its memory is proportional to the
+// number of boards inserted and no object is created per board.
+final class StateTable {
+
+	// Data definitions:
+	// =================
+	// Hash slots: keys[i] is a packed board and slots[i] is its index + 1 (0 means an empty slot)
+	private long[] keys;
+	private int[] slots;
+	// Packed boards by their index
+	private long[] states;
+	private int size = 0;
+
+	// Functions:
+	// ==========
+	StateTable(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+		this.keys = new long[capacity];
+		this.slots = new int[capacity];
+		this.states = new long[Math.max(16, expectedSize)];
+	}
+
+	// Returns the number of boards in the table
+	int size() {
+		return this.size;
+	}
+
+	// Returns the packed board with a given index
+	long stateAt(int index) {
+		return this.states[index];
+	}
+
+	// Returns the index of a packed board or -1 if it is not in the table
+	int indexOf(long state) {
+		int mask = this.keys.length - 1;
+		for (int i = hash(state) & mask; this.slots[i] != 0; i = (i + 1) & mask) {
+			if (this.keys[i] == state) return this.slots[i] - 1;
+		}
+		return -1;
+	}
+
+	// Adds a packed board that is not in the table yet and returns its new index
+	int add(long state) {
+		if (2 * (this.size + 1) > this.keys.length) this.rehash(this.keys.length * 2);
+		if (this.size == this.states.length) this.states = Arrays.copyOf(this.states, this.size * 2);
+		this.states[this.size] = state;
+		this.insert(state, this.size + 1);
+		return this.size++;
+	}
+
+	private void insert(long state, int slot) {
+		int mask = this.keys.length - 1;
+		int i = hash(state) & mask;
+		while (this.slots[i] != 0) i = (i + 1) & mask;
+		this.keys[i] = state;
+		this.slots[i] = slot;
+	}
+
+	private void rehash(int capacity) {
+		this.keys = new long[capacity];
+		this.slots = new int[capacity];
+		for (int index = 0; index < this.size; index++) this.insert(this.states[index], index + 1);
+	}
+
+	private static int hash(long state) {
+		long h = state * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
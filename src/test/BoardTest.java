@@ -3,6 +3,7 @@ package test;
 import java.util.Iterator;
 
 import puzzle.Board;
+import puzzle.PackedBoard;
 
 public class BoardTest {
 	// Basic unit test "check-expects":
@@ -73,5 +74,40 @@ public class BoardTest {
 		}
 		System.out.println("Ok=" + test);
 		System.out.println();
+		
+		System.out.println("\n**************************");
+		System.out.println("Packed boards:");
+		node = new Board("087654321");
+		long packed = node.toPacked();
+		System.out.println(node + " is packed as 0x" + Long.toHexString(packed) + " with rank " + PackedBoard.rank(packed));
+		test = PackedBoard.unpack(packed).equals(node.getId()) && new Board(packed).equals(node);
+		long[] neighbors = new long[PackedBoard.MAX_MOVES];
+		int nNeighbors = PackedBoard.nextPossibleBoards(packed, neighbors);
+		test = test && nNeighbors == node.nextPossibleBoards().size();
+		for (int k = 0; k < nNeighbors; k++)
+			test = test && node.nextPossibleBoards().contains(new Board(neighbors[k]));
+		// Ranks must be a bijection between all boards and [0, 9!)
+		for (int rank = 0; rank < PackedBoard.numberOfBoards(); rank++)
+			test = test && PackedBoard.rank(PackedBoard.unrank(rank)) == rank;
+		test = test && PackedBoard.rank(PackedBoard.pack("012345678")) == 0 && PackedBoard.rank(PackedBoard.pack("876543210")) == PackedBoard.numberOfBoards()-1;
+		System.out.println("Ok=" + test);
+		System.out.println();
+		
+		System.out.println("\n**************************");
+		System.out.println("Boards of other shapes:");
+		node = new Board(Board.solution(3, 4), 3, 4);
+		node.printBoard();
+		packed = node.toPacked();
+		test = node.getId().equals("123456789AB0") && node.nextPossibleBoards().size() == 2;
+		nNeighbors = PackedBoard.nextPossibleBoards(packed, 3, 4, neighbors);
+		test = test && nNeighbors == 2;
+		for (int k = 0; k < nNeighbors; k++)
+			test = test && node.nextPossibleBoards().contains(new Board(neighbors[k], 3, 4));
+		// 12! does not fit in an int: ranks are longs
+		long lastRank = PackedBoard.rank(PackedBoard.pack("BA9876543210"), 12);
+		test = test && lastRank == PackedBoard.numberOfBoards(12)-1 && PackedBoard.unrank(lastRank, 12) == PackedBoard.pack("BA9876543210");
+		test = test && PackedBoard.rank(PackedBoard.unrank(123456789L, 12), 12) == 123456789L;
+		System.out.println("Ok=" + test);
+		System.out.println();
 	}
 }
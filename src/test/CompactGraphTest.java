@@ -0,0 +1,149 @@
+package test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Vector;
+
+import datastructures.CompactGraph;
+import datastructures.Graph;
+import datastructures.GraphFile;
+import datastructures.Node;
+import puzzle.Board;
+import puzzle.Game;
+
+public class CompactGraphTest {
+	// Basic unit test "check-expects": a CSR snapshot must give the same answers as the original graph
+	public static void main(String[] args) throws IOException {
+		System.out.println("*** Tests for a simple graph snapshot: ***");
+		Graph myGraph = new Graph("G");
+		myGraph.addEdge(new Node("A"), new Node("B"));
+		myGraph.addEdge(new Node("B"), new Node("C"));
+		myGraph.addEdge(new Node("C"), new Node("A"));
+		myGraph.addEdge(new Node("C"), new Node("D"));
+		myGraph.addEdge(new Node("D"), new Node("G"));
+		myGraph.addEdge(new Node("E"), new Node("F"));
+		CompactGraph snapshot = myGraph.freeze();
+		System.out.println(snapshot);
+		boolean test = snapshot.getN() == myGraph.getN() && snapshot.getM() == myGraph.getM();
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for DFS traversal: ***");
+		Set<Node> allNodes = myGraph.getNodes();
+		for (Iterator<Node> it = allNodes.iterator(); it.hasNext(); ) {
+			Node v = it.next();
+			myGraph.dfs(v);
+			List<Graph> dfsForest = snapshot.dfs(v);
+			System.out.println("DFS starting at node " + v + " found " + dfsForest.size() + " tree(s) and articulation nodes " + snapshot.getArticulationNodes());
+			test = test && dfsForest.size() == myGraph.getNumberOfCCs();
+			test = test && snapshot.getNumberOfCCs() == myGraph.getNumberOfCCs();
+			test = test && snapshot.getArticulationNodes().equals(myGraph.getArticulationNodes());
+		}
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for BFS traversal: ***");
+		for (Iterator<Node> it = allNodes.iterator(); it.hasNext(); ) {
+			Node v = it.next();
+			Vector<Set<Node>> bfsLevels = snapshot.bfs(v);
+			System.out.println("BFS starting at node " + v + " result is: " + bfsLevels);
+			test = test && bfsLevels.equals(myGraph.bfs(v));
+			for (Iterator<Node> it2 = allNodes.iterator(); it2.hasNext(); ) {
+				Node u = it2.next();
+				List<Node> expected = myGraph.getShortestPath(v, u);
+				List<Node> path = snapshot.getShortestPath(v, u);
+				if (expected == null) test = test && path == null;
+				else test = test && path != null && path.size() == expected.size() && path.get(0).equals(v) && path.get(path.size() - 1).equals(u);
+			}
+		}
+		System.out.println("Ok=" + test);
+		System.out.println();
+		System.out.println("*** Tests for concurrent traversals of one snapshot: ***");
+		Random random = new Random(11);
+		Graph randomGraph = new Graph("Random");
+		for (int i = 0; i < 6000; i++)
+			randomGraph.addEdge(new Node("r" + random.nextInt(2000)), new Node("r" + random.nextInt(2000)));
+		final CompactGraph shared = randomGraph.freeze();
+		final Node[] sources = new Node[8];
+		final Vector<Vector<Set<Node>>> expectedLevels = new Vector<Vector<Set<Node>>>();
+		for (int k = 0; k < sources.length; k++) {
+			sources[k] = randomGraph.getNodes().toArray(new Node[0])[k];
+			expectedLevels.add(randomGraph.bfs(sources[k]));
+		}
+		final int expectedCCs = randomGraph.depthFirst(sources[0]).getNumberOfCCs();
+		final boolean[] results = new boolean[4];
+		Thread[] queries = new Thread[results.length];
+		for (int q = 0; q < queries.length; q++) {
+			final int id = q;
+			queries[q] = new Thread() {
+				public void run() {
+					boolean ok = true;
+					for (int k = id; k < sources.length * 4; k++) {
+						Node source = sources[k % sources.length];
+						Vector<Set<Node>> levels = expectedLevels.get(k % sources.length);
+						// bfs publishes the last BFS, that paths from the same source reuse, while other threads replace it
+						ok = ok && (k % 2 == 0 ? shared.bfs(source) : shared.breadthFirst(source).getLevels()).equals(levels);
+						for (int level = 0; level < levels.size(); level++) {
+							for (Iterator<Node> it = levels.get(level).iterator(); it.hasNext(); ) {
+								List<Node> shortestPath = shared.getShortestPath(source, it.next());
+								ok = ok && shortestPath != null && shortestPath.size() == level+1 && shortestPath.get(0).equals(source);
+							}
+						}
+						ok = ok && shared.depthFirst(source).getNumberOfCCs() == expectedCCs;
+					}
+					results[id] = ok;
+				}
+			};
+			queries[q].start();
+		}
+		for (int q = 0; q < queries.length; q++) {
+			try {
+				queries[q].join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			test = test && results[q];
+		}
+		System.out.println(queries.length + " threads queried " + shared + " with " + expectedCCs + " connected components");
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for saving and loading a graph file: ***");
+		File file = File.createTempFile("Graph", ".graph");
+		myGraph.save(file);
+		CompactGraph loaded = GraphFile.load(file);
+		System.out.println("Loaded " + loaded + " from a " + file.length() + " bytes file");
+		test = loaded.getN() == myGraph.getN() && loaded.getM() == myGraph.getM() && loaded.getLabel().equals("G");
+		for (Iterator<Node> it = allNodes.iterator(); it.hasNext(); ) {
+			Node v = it.next();
+			test = test && loaded.containsNode(v) && loaded.getNeighbors(v).equals(myGraph.getNeighbors(v));
+			test = test && loaded.bfs(v).equals(myGraph.bfs(v));
+		}
+		test = test && loaded.getNodeById("Z") == null && loaded.dfs(new Node("A")).size() == 2;
+		file.delete();
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for saving and loading a game: ***");
+		Game game = new Game("Game");
+		game.populate(util.Math.permutations("012345678"));
+		file = File.createTempFile("Game", ".graph");
+		game.save(file);
+		Date startTime = new Date();
+		CompactGraph loadedGame = Game.load(file);
+		Board solution = (Board) loadedGame.getNodeById(Board.SOLUTION);
+		Date endTime = new Date();
+		System.out.println(endTime.getTime() - startTime.getTime() + " milliseconds ellapsed loading " + loadedGame + " from a " + file.length() + " bytes file");
+		Vector<Set<Node>> bfsLevels = loadedGame.bfs(solution);
+		test = loadedGame.getN() == 362880 && loadedGame.getM() == game.getM() && bfsLevels.size() == 32;
+		test = test && bfsLevels.lastElement().iterator().next() instanceof Board;
+		file.delete();
+		System.out.println("Ok=" + test);
+		System.out.println();
+	}
+}
@@ -0,0 +1,73 @@
+package test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.Vector;
+
+import puzzle.Board;
+import puzzle.DistanceOracle;
+import puzzle.ImplicitGame;
+import datastructures.Node;
+
+public class DistanceOracleTest {
+	// Basic unit test "check-expects": distances of the table must be the BFS distances to the solution
+	public static void main(String[] args) throws IOException {
+		System.out.println("*** Tests for a 3 x 3 game: ***");
+		Date startTime = new Date();
+		DistanceOracle oracle = DistanceOracle.compute();
+		Date endTime = new Date();
+		System.out.println(oracle + " computed in " + (endTime.getTime() - startTime.getTime()) + " milliseconds");
+		long[] counts = oracle.getDistanceCounts();
+		System.out.println("Boards per distance: " + Arrays.toString(counts));
+		boolean test = oracle.size() == 181440 && oracle.getMaxDistance() == 31 && counts.length == 32 && counts[31] == 2;
+		Vector<Set<Node>> bfsLevels = new ImplicitGame("ImplicitGame").bfs(new Board(Board.SOLUTION));
+		for (int level = 0; level < bfsLevels.size(); level++) {
+			for (Iterator<Node> it = bfsLevels.get(level).iterator(); it.hasNext(); )
+				test = test && oracle.getDistance((Board) it.next()) == level;
+		}
+		test = test && oracle.getDistance(new Board("213456780")) == -1 && oracle.nextMove(new Board(Board.SOLUTION)) == null;
+		System.out.println("Ok=" + test);
+
+		Board farthest = oracle.getFarthestBoard();
+		LinkedList<Node> path = oracle.solve(farthest);
+		System.out.println("Board " + farthest + " is solved in " + (path.size()-1) + " moves");
+		test = path.size() == 32 && path.getLast().getId().equals(Board.SOLUTION) && oracle.solve(new Board("213456780")) == null;
+		for (int i = 1; i < path.size(); i++)
+			test = test && ((Board) path.get(i-1)).isNeighbor((Board) path.get(i));
+		System.out.println("Ok=" + test);
+
+		File file = File.createTempFile("distances", ".bin");
+		oracle.save(file);
+		DistanceOracle loaded = DistanceOracle.loadOrCompute(file, 3, 3);
+		System.out.println(file.length() + " bytes file loaded as " + loaded);
+		test = loaded.getMaxDistance() == 31 && Arrays.equals(loaded.getDistanceCounts(), counts)
+				&& loaded.getDistance(new Board("867254301")) == 31 && loaded.getDistance(new Board("123456708")) == 1;
+		try {
+			DistanceOracle.loadOrCompute(file, 2, 3);
+			test = false;
+		} catch (IOException e) {
+			System.out.println("Expected error: " + e.getMessage());
+		}
+		file.delete();
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for games of other shapes: ***");
+		oracle = DistanceOracle.compute(2, 3);
+		System.out.println(oracle);
+		test = oracle.size() == 360 && oracle.getDistanceCounts().length == 22 && oracle.getDistance(new Board(Board.solution(2, 3), 2, 3)) == 0;
+		oracle = DistanceOracle.compute(2, 4);
+		System.out.println(oracle);
+		long total = 0;
+		for (long count : oracle.getDistanceCounts()) total += count;
+		path = oracle.solve(oracle.getFarthestBoard());
+		test = test && oracle.size() == 20160 && total == 20160 && path.size() == oracle.getMaxDistance() + 1;
+		System.out.println("Ok=" + test);
+		System.out.println();
+	}
+}
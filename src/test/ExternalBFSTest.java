@@ -0,0 +1,77 @@
+package test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+
+import puzzle.Board;
+import puzzle.ExternalBFS;
+
+public class ExternalBFSTest {
+	// Basic unit test "check-expects": disk-backed BFS over games of different shapes
+	public static void main(String[] args) throws IOException {
+		File workDirectory = Files.createTempDirectory("ExternalBFSTest").toFile();
+
+		System.out.println("*** Tests for a 2 x 3 game: ***");
+		ExternalBFS bfs = new ExternalBFS(2, 3, workDirectory);
+		long[] levels = bfs.run(Board.solution(2, 3));
+		System.out.println("Boards per level: " + Arrays.toString(levels));
+		boolean test = levels.length == 22 && bfs.getNumberOfVisitedBoards() == 360 && levels[1] == 2;
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for a 3 x 3 game: ***");
+		Date startTime = new Date();
+		bfs = new ExternalBFS(3, 3, workDirectory);
+		levels = bfs.run(Board.SOLUTION);
+		Date endTime = new Date();
+		System.out.println(endTime.getTime() - startTime.getTime() + " milliseconds ellapsed");
+		System.out.println(bfs.getNumberOfVisitedBoards() + " boards in " + levels.length + " levels: " + Arrays.toString(levels));
+		test = levels.length == 32 && bfs.getNumberOfVisitedBoards() == 181440 && levels[31] == 2;
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for a 2 x 4 game: ***");
+		bfs = new ExternalBFS(2, 4, workDirectory);
+		levels = bfs.run(Board.solution(2, 4));
+		System.out.println(bfs.getNumberOfVisitedBoards() + " boards in " + levels.length + " levels");
+		long total = 0;
+		for (long size : levels) total += size;
+		test = total == 20160 && bfs.getNumberOfVisitedBoards() == 20160 && workDirectory.list().length == 0;
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for searches sharing a work directory: ***");
+		final File sharedDirectory = workDirectory;
+		final long[][] results = new long[4][];
+		Thread[] searches = new Thread[results.length];
+		for (int s = 0; s < searches.length; s++) {
+			final int id = s;
+			searches[s] = new Thread() {
+				public void run() {
+					try {
+						results[id] = new ExternalBFS(3, 3, sharedDirectory).run(Board.SOLUTION);
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			};
+			searches[s].start();
+		}
+		test = true;
+		for (int s = 0; s < searches.length; s++) {
+			try {
+				searches[s].join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			test = test && results[s] != null && results[s].length == 32 && results[s][31] == 2;
+		}
+		System.out.println(searches.length + " searches of a 3 x 3 game in one work directory");
+		test = test && workDirectory.list().length == 0 && workDirectory.delete();
+		System.out.println("Ok=" + test);
+		System.out.println();
+	}
+}
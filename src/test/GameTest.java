@@ -1,5 +1,7 @@
 package test;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
@@ -9,9 +11,12 @@ import java.util.Set;
 import java.util.Vector;
 
 import puzzle.Board;
+import puzzle.DistanceOracle;
 import puzzle.Game;
-import datastructures.Graph;
 import datastructures.Node;
+import datastructures.SubgraphView;
+import datastructures.TraversalMetrics;
+import datastructures.TraversalStats;
 
 public class GameTest {
 
@@ -31,7 +36,7 @@ public class GameTest {
 		System.out.println(startTime + " (" + startTime.getTime() + ")> Testing permutations");
 		Set<String> permutations = util.Math.permutate("0123",0);
 		System.out.println("All possible permutations of \"0123\" are:");
-		List<String> temp = new Vector<String>(util.Math.factorial(4));
+		List<String> temp = new Vector<String>((int) util.Math.factorial(4));
 		for (Iterator<String> it = permutations.iterator(); it.hasNext(); )
 			temp.add(it.next());
 		endTime = new Date();
@@ -50,10 +55,9 @@ public class GameTest {
 		System.out.println("******************* Building Game Graph ******************");
 		Date startTime = new Date();
 		System.out.println(startTime + " (" + startTime.getTime() + ")> Building graph:");
-		Set<String> permutations = util.Math.permutate("012345678",0);
-		int estimatedSize = util.Math.factorial(Game.N_TILES);
-		System.out.println("Must have 9!=" + estimatedSize + " permutations, generated " + permutations.size() + " board configurations");
-		System.out.print("Building a game graph with them all... ");
+		Iterable<String> permutations = util.Math.permutations("012345678"); // generated one at a time while populating
+		long estimatedSize = util.Math.factorial(Game.N_TILES);
+		System.out.print("Building a game graph with all the 9!=" + estimatedSize + " board configurations... ");
 		Game game = new Game("Game");
 		game.populate(permutations);
 		System.out.println("Done!");
@@ -68,17 +72,25 @@ public class GameTest {
 		System.out.println("************************ Tarefa 1 ************************");
 		startTime = new Date();
 		System.out.println(startTime + " (" + startTime.getTime() + ")> Looking for connected components by DFS:");
-		System.out.print("Performing DFS... "); // Note: Use -Xss1g to increase JVM stack size to avoid stack overflow errors (use test/GameTest.bat)
+		System.out.print("Performing DFS... "); // Note: DFS uses an explicit stack, so no -Xss is needed
+		TraversalMetrics metrics = new TraversalMetrics();
+		game.setTraversalListener(metrics);
 		game.dfs(game.getNodeById("123456780"));
 		System.out.println("Done!");
 		endTime = new Date();
 		System.out.println(endTime + " (" + endTime.getTime() + ")> Finished!");
 		System.out.println(endTime.getTime() - startTime.getTime() + " milliseconds ellapsed");
+		System.out.println(metrics.getLast(TraversalStats.DFS));
 		System.out.println("Found " + game.getNumberOfCCs() + " connected components:");
-		//Iterator<Graph> CCs = game.getCCs().iterator();
-		//while (CCs.hasNext()) {
-		for (Iterator<Graph> CCs = game.getCCs().iterator(); CCs.hasNext(); )
-			System.out.println(CCs.next());
+		// Components are views of the game graph: listing them (or searching inside one) copies no nodes nor edges
+		Vector<SubgraphView> CCs = game.getCCViews();
+		for (Iterator<SubgraphView> it = CCs.iterator(); it.hasNext(); )
+			System.out.println(it.next());
+		Board solution = (Board) game.getNodeById(Board.SOLUTION);
+		for (Iterator<SubgraphView> it = CCs.iterator(); it.hasNext(); ) {
+			SubgraphView cc = it.next();
+			if (cc.containsNode(solution)) System.out.println(cc.getLabel() + " has " + cc.bfs(solution).size() + " BFS levels from the solution");
+		}
 		System.out.println();
 		
 		//Tarefa 3:
@@ -104,34 +116,29 @@ public class GameTest {
 		// Tarefa 2:
 		System.out.println("************************ Tarefa 2 ************************");
 		startTime = new Date();
-		System.out.println(startTime + " (" + startTime.getTime() + ")> Looking for maximum distance to solution by BFS:");
-		// This is to eliminate half of the graph, since solution can only be reached from its own connected component:
-		Graph halfGame = null;
-		Board solution = (Board) game.getNodeById(Board.SOLUTION);
-		for (Iterator<Graph> CCs = game.getCCs().iterator(); CCs.hasNext(); ) {
-			halfGame = CCs.next();
-			if ( halfGame.containsNode(solution) ) {
-				System.out.println("Solution is in Connected Component " + halfGame);
-				break;
-			}
+		System.out.println(startTime + " (" + startTime.getTime() + ")> Looking for maximum distance to solution:");
+		// The distances of all the boards to the solution are computed once by a BFS from it and kept in a file:
+		// then any board is solved by following decreasing distances, with no search at all.
+		File distancesFile = new File(System.getProperty("java.io.tmpdir"), "distances-3x3.bin");
+		System.out.print((distancesFile.exists() ? "Loading" : "Computing") + " distances to solution... ");
+		DistanceOracle oracle;
+		try {
+			oracle = DistanceOracle.loadOrCompute(distancesFile, Board.SIZE, Board.SIZE);
+		} catch (IOException e) {
+			System.out.print("cannot use " + distancesFile + " (" + e.getMessage() + "), computing them... ");
+			oracle = DistanceOracle.compute();
 		}
-		// Test for the the nodes reachable from solution and pick any node from the last level of the BFS:
-		// it will be at maximum distance to/from the solution
-		// Note: the graph is undirected, so paths "to" and "from" any pair of nodes are exactly the same.
-		System.out.print("Performing BFS... "); // Note: Use -Xms2g to increase JVM heap size for a better performance"
-		Vector<Set<Node>> bfsLevels = halfGame.bfs(solution);
 		System.out.println("Done!");
 		endTime = new Date();
 		System.out.println(endTime + " (" + endTime.getTime() + ")> Finished!");
 		System.out.println(endTime.getTime() - startTime.getTime() + " milliseconds ellapsed");
-		Board aFarAwayNode = (Board) bfsLevels.lastElement().iterator().next();
+		Board aFarAwayNode = oracle.getFarthestBoard();
 		System.out.println("Most far away node is:");
 		aFarAwayNode.println();
-		System.out.println("and it is at distance " + (bfsLevels.size()-1) + " to solution.");
+		System.out.println("and it is at distance " + oracle.getMaxDistance() + " to solution.");
 		System.out.println("Path from it to solution is the following steps:");
-		// Prints the path in reverse direction, since we started from node "solution"
-		LinkedList<Node> maxPath = halfGame.getShortestPath(solution, aFarAwayNode);
-		for (Iterator<Node> pathNodes = maxPath.descendingIterator(); pathNodes.hasNext(); ) {
+		LinkedList<Node> maxPath = oracle.solve(aFarAwayNode);
+		for (Iterator<Node> pathNodes = maxPath.iterator(); pathNodes.hasNext(); ) {
 			Board bd = (Board) pathNodes.next();
 			bd.printBoard();
 			//System.out.println(bd);
@@ -0,0 +1,96 @@
+package test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Random;
+
+import datastructures.Graph;
+import datastructures.GraphReader;
+import datastructures.Node;
+
+public class GraphReaderTest {
+	// Basic unit test "check-expects": the same graph read from files in every supported format
+	public static void main(String[] args) throws IOException {
+		// The graph of GraphTest: a triangle A-B-C with a tail C-D-G, plus an edge E-F and an isolated node H
+		Graph expected = new Graph("Expected");
+		expected.addEdge(new Node("A"), new Node("B"));
+		expected.addEdge(new Node("B"), new Node("C"));
+		expected.addEdge(new Node("C"), new Node("A"));
+		expected.addEdge(new Node("C"), new Node("D"));
+		expected.addEdge(new Node("D"), new Node("G"));
+		expected.addEdge(new Node("E"), new Node("F"));
+		expected.addNode(new Node("H"));
+
+		System.out.println("*** Tests for edge lists: ***");
+		File file = write("# an edge list\nA B\nB\tC 1.5\r\nC,A\n\nC D\nD G\nE F\nF E\nH\n% end");
+		Graph graph = GraphReader.readEdgeList(file, "EdgeList", false);
+		System.out.println(graph);
+		boolean test = sameGraph(graph, expected) && graph.isUndirected();
+		graph = GraphReader.readEdgeList(file, "DirectedEdgeList", true);
+		test = test && !graph.isUndirected() && graph.getM() == 7 && graph.getNeighbors(new Node("F")).contains(new Node("E"))
+				&& !graph.getNeighbors(new Node("B")).contains(new Node("A"));
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for adjacency lists: ***");
+		file = write("A B C\nB C\nC D\nD G\nE F\nH");
+		graph = GraphReader.readAdjacencyList(file, "AdjacencyList", false);
+		System.out.println(graph);
+		test = sameGraph(graph, expected);
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for DIMACS: ***");
+		file = write("c the same graph, with nodes A..H numbered 1..8\np edge 8 6\ne 1 2\ne 2 3\ne 3 1\ne 3 4\ne 4 7\na 5 6 10\n");
+		graph = GraphReader.readDimacs(file, "DIMACS", false);
+		System.out.println(graph);
+		test = graph.getN() == 8 && graph.getM() == 6 && graph.getNeighbors(new Node("3")).size() == 3 && graph.getNeighbors(new Node("8")).isEmpty();
+		try {
+			GraphReader.readDimacs(write("p edge 2 1\ne 1 3\n"), "Invalid", false);
+			test = false;
+		} catch (IOException e) {
+			System.out.println("Invalid file: " + e.getMessage());
+		}
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for a large edge list: ***");
+		Random random = new Random(42);
+		file = File.createTempFile("GraphReaderTest", ".txt");
+		file.deleteOnExit();
+		Writer writer = new FileWriter(file);
+		for (int e = 0; e < 2000000; e++) writer.write(random.nextInt(500000) + " " + random.nextInt(500000) + "\n");
+		writer.close();
+		Date startTime = new Date();
+		graph = GraphReader.readEdgeList(file, "Large", false);
+		Date endTime = new Date();
+		System.out.println(endTime.getTime() - startTime.getTime() + " milliseconds ellapsed reading " + graph + " from a " + file.length() + " bytes file");
+		test = graph.getN() <= 500000 && graph.getM() > 1990000 && graph.getM() <= 2000000;
+		System.out.println("Ok=" + test);
+		System.out.println();
+	}
+
+	// Writes a text to a new temporary file
+	private static File write(String text) throws IOException {
+		File file = File.createTempFile("GraphReaderTest", ".txt");
+		file.deleteOnExit();
+		Writer writer = new FileWriter(file);
+		writer.write(text);
+		writer.close();
+		return file;
+	}
+
+	// Produces true if both graphs have the same nodes and neighbors
+	private static boolean sameGraph(Graph graph, Graph expected) {
+		if (graph.getN() != expected.getN() || graph.getM() != expected.getM()) return false;
+		for (Iterator<Node> it = expected.getNodes().iterator(); it.hasNext(); ) {
+			Node v = it.next();
+			if (!expected.getNeighbors(v).equals(graph.getNeighbors(v))) return false;
+		}
+		return true;
+	}
+}
@@ -1,12 +1,26 @@
 package test;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
 
+import datastructures.BiconnectedComponents;
+import datastructures.BreadthFirstIterator;
+import datastructures.ConnectedComponents;
 import datastructures.Graph;
+import datastructures.GraphBuilder;
 import datastructures.Node;
+import datastructures.ShortestPaths;
+import datastructures.SubgraphView;
+import datastructures.ViewTraversal;
+import datastructures.TraversalMetrics;
+import datastructures.TraversalStats;
 
 public class GraphTest {
 	// Basic unit test "check-expects":
@@ -98,5 +112,528 @@ public class GraphTest {
 			System.out.println();
 		}
 		System.out.println();
+		
+		System.out.println("*** Tests for DFS on a long path (no stack overflow with default -Xss): ***");
+		int pathLength = 1000000;
+		Graph path = new Graph("Path");
+		for (int i = 1; i < pathLength; i++)
+			path.addEdge(new Node("p" + (i-1)), new Node("p" + i));
+		List<Graph> pathForest = path.dfs(path.getNodeById("p0"));
+		System.out.println(path + " has " + pathForest.size() + " DFS tree(s) and " + path.getNumberOfArticulationNodes() + " articulation nodes");
+		System.out.println("Ok=" + (pathForest.size() == 1 && path.getNumberOfArticulationNodes() == pathLength-2));
+		System.out.println();
+		
+		System.out.println("*** Tests for parallel BFS traversal: ***");
+		Random random = new Random(42);
+		ForkJoinPool pool = new ForkJoinPool();
+		for (int size = 10; size <= 100000; size *= 100) {
+			Graph randomGraph = new Graph("Random" + size);
+			for (int i = 0; i < 3 * size; i++)
+				randomGraph.addEdge(new Node("r" + random.nextInt(size)), new Node("r" + random.nextInt(size)));
+			Node source = randomGraph.getNodeById("r0");
+			if (source == null) source = randomGraph.getNodes().iterator().next();
+			Vector<Set<Node>> expected = randomGraph.bfs(source);
+			Vector<Set<Node>> parallel = randomGraph.bfs(source, pool);
+			System.out.println(randomGraph + " has " + parallel.size() + " BFS levels from " + source);
+			System.out.println("Ok=" + expected.equals(parallel));
+			
+			// Connected components by parallel union-find must match the ones found by DFS
+			randomGraph.dfs(source);
+			ConnectedComponents components = randomGraph.connectedComponents(pool);
+			boolean test = components.getNumberOfComponents() == randomGraph.getNumberOfCCs();
+			for (Iterator<Graph> it = randomGraph.getCCs().iterator(); it.hasNext(); ) {
+				Graph cc = it.next();
+				Node first = cc.getNodes().iterator().next();
+				test = test && components.getSize(components.getComponent(first)) == cc.getN();
+				for (Iterator<Node> it2 = cc.getNodes().iterator(); it2.hasNext(); )
+					test = test && components.areConnected(first, it2.next());
+			}
+			System.out.println(components + " Ok=" + test);
+			
+			// Bidirectional shortest paths (from nodes other than the last BFS source) must be as short as the BFS distances
+			test = true;
+			for (int level = 0; level < expected.size(); level++) {
+				for (Iterator<Node> it = expected.get(level).iterator(); it.hasNext(); ) {
+					Node target = it.next();
+					List<Node> shortestPath = randomGraph.getShortestPath(target, source);
+					test = test && shortestPath != null && shortestPath.size() == level+1 && shortestPath.get(0) == target && shortestPath.get(level) == source;
+					for (int i = 1; test && i < shortestPath.size(); i++)
+						test = test && randomGraph.getNeighbors(shortestPath.get(i-1)).contains(shortestPath.get(i));
+				}
+			}
+			System.out.println("Bidirectional paths Ok=" + test);
+		}
+		pool.shutdown();
+		
+		// A BFS tree must not be reused after the graph changes
+		Graph square = new Graph("Square");
+		square.addEdge(new Node("1"), new Node("2"));
+		square.addEdge(new Node("2"), new Node("3"));
+		square.addEdge(new Node("3"), new Node("4"));
+		square.bfs(square.getNodeById("1"));
+		int before = square.getShortestPath(square.getNodeById("1"), square.getNodeById("4")).size();
+		square.addEdge(new Node("4"), new Node("1"));
+		int after = square.getShortestPath(square.getNodeById("1"), square.getNodeById("4")).size();
+		System.out.println("Path from 1 to 4 has " + before + " nodes before and " + after + " nodes after adding edge 4-1");
+		System.out.println("Ok=" + (before == 4 && after == 2));
+		System.out.println();
+
+		System.out.println("*** Tests for concurrent traversals of one graph: ***");
+		final Graph shared = new Graph("Shared");
+		for (int i = 0; i < 30000; i++)
+			shared.addEdge(new Node("s" + random.nextInt(10000)), new Node("s" + random.nextInt(10000)));
+		final Node[] sources = new Node[8];
+		final Vector<Vector<Set<Node>>> expectedLevels = new Vector<Vector<Set<Node>>>();
+		for (int k = 0; k < sources.length; k++) {
+			sources[k] = shared.getNodeById("s" + k);
+			if (sources[k] == null) sources[k] = shared.getNodes().iterator().next();
+			expectedLevels.add(shared.breadthFirst(sources[k]).getLevels());
+		}
+		final int expectedCCs = shared.depthFirst(sources[0]).getNumberOfCCs();
+		final boolean[] results = new boolean[4];
+		Thread[] queries = new Thread[results.length];
+		for (int q = 0; q < queries.length; q++) {
+			final int id = q;
+			queries[q] = new Thread() {
+				public void run() {
+					boolean ok = true;
+					for (int k = id; k < sources.length * 4; k++) {
+						Node source = sources[k % sources.length];
+						Vector<Set<Node>> levels = expectedLevels.get(k % sources.length);
+						// Legacy calls publish the last BFS, that paths from the same source reuse; both must agree with breadthFirst
+						ok = ok && (k % 2 == 0 ? shared.bfs(source) : shared.breadthFirst(source).getLevels()).equals(levels);
+						for (int level = 0; level < levels.size(); level++) {
+							for (Iterator<Node> it = levels.get(level).iterator(); it.hasNext(); ) {
+								List<Node> shortestPath = shared.getShortestPath(source, it.next());
+								ok = ok && shortestPath != null && shortestPath.size() == level+1 && shortestPath.get(0) == source;
+							}
+						}
+						ok = ok && shared.depthFirst(source).getNumberOfCCs() == expectedCCs;
+					}
+					results[id] = ok;
+				}
+			};
+			queries[q].start();
+		}
+		boolean test = true;
+		for (int q = 0; q < queries.length; q++) {
+			try {
+				queries[q].join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			test = test && results[q];
+		}
+		System.out.println(queries.length + " threads queried " + shared + " with " + expectedCCs + " connected components");
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for weighted shortest paths: ***");
+		Graph roads = new Graph("Roads");
+		roads.addEdge(new Node("a"), new Node("b"), 7);
+		roads.addEdge(new Node("a"), new Node("c"), 9);
+		roads.addEdge(new Node("a"), new Node("f"), 14);
+		roads.addEdge(new Node("b"), new Node("c"), 10);
+		roads.addEdge(new Node("b"), new Node("d"), 15);
+		roads.addEdge(new Node("c"), new Node("d"), 11);
+		roads.addEdge(new Node("c"), new Node("f"), 2);
+		roads.addEdge(new Node("d"), new Node("e"), 6);
+		roads.addEdge(new Node("e"), new Node("f"), 9);
+		roads.addEdge(new Node("e"), new Node("f"), 1); // ignored: the edge is already in the graph
+		roads.addNode(new Node("z"));
+		ShortestPaths fromA = roads.dijkstra(roads.getNodeById("a"));
+		List<Node> route = roads.getShortestWeightedPath(roads.getNodeById("a"), roads.getNodeById("e"));
+		System.out.println("Route " + route + " has length " + fromA.getDistance(roads.getNodeById("e")));
+		test = route.toString().equals("[a, c, f, e]") && fromA.getDistance(roads.getNodeById("e")) == 20 && fromA.getDistance(roads.getNodeById("d")) == 20;
+		test = test && fromA.getPathTo(roads.getNodeById("z")) == null && roads.getShortestWeightedPath(roads.getNodeById("z"), roads.getNodeById("a")) == null;
+		test = test && roads.isWeighted() && roads.getWeight(roads.getNodeById("f"), roads.getNodeById("c")) == 2 && roads.getWeight(roads.getNodeById("a"), roads.getNodeById("e")) == -1;
+		try {
+			roads.addEdge(new Node("a"), new Node("z"), -1);
+			test = false;
+		} catch (IllegalArgumentException e) {
+			test = test && roads.getM() == 9;
+		}
+		roads.dfs(roads.getNodeById("a"));
+		test = test && roads.getCCs().get(0).getWeight(roads.getNodeById("a"), roads.getNodeById("f")) == 14;
+		System.out.println("Ok=" + test);
+
+		// Dijkstra must match a simple quadratic Dijkstra on random weighted graphs, and the BFS distances on unit weights
+		Graph weighted = new Graph("Weighted", true);
+		int nWeighted = 2000;
+		for (int i = 0; i < 5 * nWeighted; i++)
+			weighted.addEdge(new Node("w" + random.nextInt(nWeighted)), new Node("w" + random.nextInt(nWeighted)), random.nextInt(1000));
+		Node origin = weighted.getNodes().iterator().next();
+		ShortestPaths fromOrigin = weighted.dijkstra(origin);
+		Node[] wNodes = weighted.getNodes().toArray(new Node[0]);
+		long[] reference = new long[wNodes.length];
+		boolean[] settled = new boolean[wNodes.length];
+		Arrays.fill(reference, Long.MAX_VALUE);
+		reference[0] = 0;
+		for (int round = 0; round < wNodes.length; round++) {
+			int u = -1;
+			for (int i = 0; i < wNodes.length; i++)
+				if (!settled[i] && reference[i] != Long.MAX_VALUE && (u < 0 || reference[i] < reference[u])) u = i;
+			if (u < 0) break;
+			settled[u] = true;
+			for (int i = 0; i < wNodes.length; i++) {
+				int weight = weighted.getWeight(wNodes[u], wNodes[i]);
+				if (weight >= 0 && reference[u] + weight < reference[i]) reference[i] = reference[u] + weight;
+			}
+		}
+		test = true;
+		for (int i = 0; i < wNodes.length; i++) {
+			test = test && fromOrigin.getDistance(wNodes[i]) == (reference[i] == Long.MAX_VALUE ? -1 : reference[i]);
+			List<Node> wPath = fromOrigin.getPathTo(wNodes[i]);
+			long length = 0;
+			for (int k = 1; wPath != null && k < wPath.size(); k++) length += weighted.getWeight(wPath.get(k-1), wPath.get(k));
+			test = test && (wPath == null ? reference[i] == Long.MAX_VALUE : length == reference[i]);
+		}
+		Vector<Set<Node>> unitLevels = shared.bfs(sources[0]);
+		ShortestPaths unit = shared.dijkstra(sources[0]);
+		for (int level = 0; level < unitLevels.size(); level++) {
+			for (Iterator<Node> it = unitLevels.get(level).iterator(); it.hasNext(); )
+				test = test && unit.getDistance(it.next()) == level;
+		}
+		System.out.println(weighted + " and " + shared + " Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for incremental connectivity: ***");
+		Graph stream = new Graph("Stream");
+		test = stream.getNumberOfCCs() == 0 && stream.isConnected();
+		stream.addNode(new Node("x"));
+		stream.addNode(new Node("y"));
+		test = test && stream.getNumberOfCCs() == 2 && !stream.areConnected(stream.getNodeById("x"), stream.getNodeById("y"));
+		stream.addEdge(new Node("y"), new Node("x"));
+		test = test && stream.getNumberOfCCs() == 1 && stream.isConnected() && stream.areConnected(stream.getNodeById("x"), stream.getNodeById("y"));
+		test = test && !stream.areConnected(stream.getNodeById("x"), new Node("unknown"));
+		// Components must match the ones found by union-find after every batch of edges
+		pool = new ForkJoinPool();
+		int nStream = 20000;
+		Node[] streamNodes = new Node[nStream];
+		for (int i = 0; i < nStream; i++) streamNodes[i] = stream.addNode(new Node("x" + i));
+		for (int batch = 0; batch < 8; batch++) {
+			for (int e = 0; e < nStream / 8; e++)
+				stream.addEdge(streamNodes[random.nextInt(nStream)], streamNodes[random.nextInt(nStream)]);
+			ConnectedComponents expectedComponents = stream.connectedComponents(pool);
+			test = test && stream.getNumberOfCCs() == expectedComponents.getNumberOfComponents();
+			for (int k = 0; k < 100; k++) {
+				Node u = streamNodes[random.nextInt(nStream)], v = streamNodes[random.nextInt(nStream)];
+				test = test && stream.areConnected(u, v) == expectedComponents.areConnected(u, v);
+			}
+		}
+		System.out.println(stream + " has " + stream.getNumberOfCCs() + " connected components");
+		// Directed graphs count weakly connected components, whatever the direction of their edges
+		Graph chain = new Graph("Chain", true);
+		chain.addEdge(new Node("1"), new Node("2"));
+		chain.addEdge(new Node("3"), new Node("2"));
+		chain.addEdge(new Node("4"), new Node("5"));
+		test = test && chain.getNumberOfCCs() == 2 && chain.areConnected(chain.getNodeById("1"), chain.getNodeById("3"));
+		// Bulk built graphs are tracked too
+		GraphBuilder twoComponents = new GraphBuilder(4);
+		for (int i = 0; i < 4; i++) twoComponents.setNode(i, new Node("b" + i));
+		twoComponents.addEdge(0, 1);
+		twoComponents.addEdge(3, 2);
+		Graph bulk = twoComponents.build("Bulk", pool);
+		test = test && bulk.getNumberOfCCs() == 2 && bulk.areConnected(bulk.getNodeById("b2"), bulk.getNodeById("b3"));
+		pool.shutdown();
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for traversal statistics: ***");
+		// A 30 x 30 grid: 900 nodes, 1740 edges and 59 BFS levels from a corner
+		Graph grid = new Graph("Grid");
+		for (int i = 0; i < 30; i++) {
+			for (int j = 0; j < 30; j++) {
+				if (i > 0) grid.addEdge(new Node(i + "," + j), new Node((i-1) + "," + j));
+				if (j > 0) grid.addEdge(new Node(i + "," + j), new Node(i + "," + (j-1)));
+			}
+		}
+		TraversalMetrics metrics = new TraversalMetrics();
+		grid.setTraversalListener(metrics);
+		Node corner = grid.getNodeById("0,0"), farCorner = grid.getNodeById("29,29");
+		grid.dfs(corner);
+		TraversalStats dfsStats = metrics.getLast(TraversalStats.DFS);
+		test = dfsStats.getNodesVisited() == 900 && dfsStats.getEdgesScanned() == 2 * 1740 && dfsStats.getLevelSizes() == null;
+		test = test && dfsStats.getMaxDepth() > 0 && dfsStats.getMaxDepth() <= 899 && dfsStats.getElapsedNanos() == dfsStats.getPhaseNanos("visit");
+		grid.bfs(corner);
+		TraversalStats bfsStats = metrics.getLast(TraversalStats.BFS);
+		int[] levelSizes = bfsStats.getLevelSizes();
+		test = test && bfsStats.getNodesVisited() == 900 && bfsStats.getEdgesScanned() == 2 * 1740 && bfsStats.getMaxDepth() == 58;
+		test = test && levelSizes.length == 59 && levelSizes[0] == 1 && levelSizes[29] == 30 && levelSizes[58] == 1;
+		pool = new ForkJoinPool();
+		grid.bfs(corner, pool);
+		pool.shutdown();
+		TraversalStats parallelStats = metrics.getLast(TraversalStats.PARALLEL_BFS);
+		test = test && parallelStats.getNodesVisited() == 900 && Arrays.equals(parallelStats.getLevelSizes(), levelSizes);
+		test = test && parallelStats.getEdgesScanned() > 0; // bottom-up levels scan the unvisited nodes again, so it may be more than 2m
+		System.out.println(dfsStats.getAlgorithm() + " visited " + dfsStats.getNodesVisited() + " node(s) up to depth " + dfsStats.getMaxDepth()
+				+ ", " + bfsStats.getAlgorithm() + " " + bfsStats.getNodesVisited() + " node(s) in " + levelSizes.length + " levels");
+		// The last BFS is reused from its start node; other searches are bidirectional
+		grid.getShortestPath(corner, farCorner);
+		TraversalStats pathStats = metrics.getLast(TraversalStats.SHORTEST_PATH);
+		test = test && pathStats.getNodesVisited() == 0 && pathStats.getEdgesScanned() == 0 && Arrays.asList(pathStats.getPhases()).equals(Arrays.asList("search", "path"));
+		grid.getShortestPath(grid.getNodeById("0,29"), grid.getNodeById("29,0"));
+		pathStats = metrics.getLast(TraversalStats.SHORTEST_PATH);
+		test = test && pathStats.getNodesVisited() > 0 && pathStats.getNodesVisited() <= 900 && pathStats.getEdgesScanned() > 0 && pathStats.getAllocatedBytes() > 0;
+		test = test && metrics.getCount(TraversalStats.SHORTEST_PATH) == 2 && metrics.getCount(TraversalStats.BFS) == 1 && metrics.getNodesVisited(TraversalStats.DFS) == 900;
+		test = test && metrics.getMaxNanos(TraversalStats.SHORTEST_PATH) <= metrics.getTotalNanos(TraversalStats.SHORTEST_PATH);
+		// No statistics without a listener
+		grid.setTraversalListener(null);
+		grid.dfs(corner);
+		test = test && metrics.getCount(TraversalStats.DFS) == 1 && metrics.getAlgorithms().size() == 4;
+		metrics.reset();
+		test = test && metrics.getCount(TraversalStats.DFS) == 0 && metrics.getLast(TraversalStats.DFS) == null;
+		// A shortest path of a directed graph runs a BFS, but reports only the query
+		Graph arcs = new Graph("Arcs", true);
+		arcs.addEdge(new Node("a"), new Node("b"));
+		arcs.addEdge(new Node("b"), new Node("c"));
+		arcs.setTraversalListener(metrics);
+		arcs.getShortestPath(arcs.getNodeById("a"), arcs.getNodeById("c"));
+		pathStats = metrics.getLast(TraversalStats.SHORTEST_PATH);
+		test = test && metrics.getCount(TraversalStats.BFS) == 0 && metrics.getCount(TraversalStats.SHORTEST_PATH) == 1;
+		test = test && pathStats.getNodesVisited() == 3 && pathStats.getEdgesScanned() == 2;
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for lazy BFS: ***");
+		Vector<Set<Node>> gridLevels = grid.bfs(corner);
+		BreadthFirstIterator lazy = grid.breadthFirstIterator(corner);
+		test = lazy.getDistance() == -1 && lazy.getPath() == null && grid.breadthFirstIterator(new Node("unknown")) == null;
+		int visitedNodes = 0;
+		while (lazy.hasNext()) {
+			Node next = lazy.next();
+			visitedNodes++;
+			LinkedList<Node> lazyPath = lazy.getPath();
+			test = test && gridLevels.get(lazy.getDistance()).contains(next) && lazyPath.size() == lazy.getDistance() + 1 && lazyPath.getLast() == next;
+		}
+		test = test && visitedNodes == 900 && lazy.getNextDistance() == -1 && lazy.nextLevel() == null;
+		lazy = grid.breadthFirstIterator(corner);
+		for (int level = 0; level < gridLevels.size(); level++) test = test && lazy.nextLevel().equals(gridLevels.get(level));
+		test = test && !lazy.hasNext();
+		// Stopping at distance 3 only reaches the first 10 nodes and a few of distance 4
+		lazy = grid.breadthFirstIterator(corner);
+		visitedNodes = 0;
+		while (lazy.hasNext() && lazy.getNextDistance() <= 3) {
+			lazy.next();
+			visitedNodes++;
+		}
+		System.out.println(visitedNodes + " node(s) up to distance 3 returned, " + lazy.getNodesReached() + " node(s) reached");
+		test = test && visitedNodes == 10 && lazy.getNodesReached() < 15;
+		// Stopping at the first node found
+		lazy = grid.breadthFirstIterator(farCorner);
+		while (lazy.hasNext() && !lazy.next().getId().startsWith("0,"));
+		test = test && lazy.getDistance() == 29 && lazy.getPath().size() == 30 && lazy.getNodesReached() < 900;
+		grid.addEdge(corner, farCorner);
+		try {
+			lazy.hasNext();
+			test = false;
+		} catch (ConcurrentModificationException e) {
+			System.out.println("Expected error: graph changed during a lazy BFS");
+		}
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for biconnectivity index: ***");
+		// Two triangles joined by the path c-d-e, plus an isolated node
+		Graph blocks = new Graph("Blocks");
+		String[][] blockEdges = { {"a","b"}, {"b","c"}, {"c","a"}, {"c","d"}, {"d","e"}, {"e","f"}, {"f","g"}, {"g","e"} };
+		for (String[] edge : blockEdges) blocks.addEdge(new Node(edge[0]), new Node(edge[1]));
+		blocks.addNode(new Node("h"));
+		BiconnectedComponents biconnected = blocks.biconnectedComponents();
+		System.out.println(biconnected);
+		Node bA = blocks.getNodeById("a"), bC = blocks.getNodeById("c"), bD = blocks.getNodeById("d"), bE = blocks.getNodeById("e"), bG = blocks.getNodeById("g");
+		test = biconnected.getNumberOfBlocks() == 5 && biconnected.getNumberOfBridges() == 2 && biconnected.getNumberOfArticulationNodes() == 3;
+		test = test && biconnected.isBridge(bC, bD) && biconnected.isBridge(bE, bD) && !biconnected.isBridge(bA, bC) && !biconnected.isBridge(bA, bD);
+		test = test && biconnected.getBlocks(bD).length == 2 && biconnected.getBlocks(bA).length == 1 && biconnected.getBlocks(new Node("unknown")).length == 0;
+		test = test && biconnected.separates(bD, bA, bG) && biconnected.separates(bC, bA, bE) && !biconnected.separates(bC, bD, bE) && !biconnected.separates(bD, bD, bG);
+		test = test && !biconnected.separates(bD, bA, blocks.getNodeById("h")) && !biconnected.separates(blocks.getNodeById("b"), bA, bC);
+		System.out.println("Ok=" + test);
+		// A random sparse graph, checked against removing each node (and each edge) and testing connectivity again
+		Graph sparse = new Graph("Sparse");
+		int nSparse = 60;
+		Node[] sparseNodes = new Node[nSparse];
+		for (int i = 0; i < nSparse; i++) sparseNodes[i] = sparse.addNode(new Node("s" + i));
+		for (int k = 0; k < 70; k++) sparse.addEdge(sparseNodes[random.nextInt(nSparse)], sparseNodes[random.nextInt(nSparse)]);
+		biconnected = sparse.biconnectedComponents();
+		sparse.dfs(sparseNodes[0]);
+		System.out.println(biconnected + " and " + sparse.getNumberOfArticulationNodes() + " articulation nodes found by DFS");
+		test = biconnected.getArticulationNodes().equals(sparse.getArticulationNodes());
+		for (Node x : sparseNodes) {
+			Graph withoutX = new Graph("Without " + x);
+			for (Node u : sparseNodes) {
+				if (u == x) continue;
+				withoutX.addNode(u);
+				for (Node v : sparse.getNeighbors(u)) if (v != x) withoutX.addEdge(u, v);
+			}
+			for (Node u : sparseNodes) {
+				for (Node v : sparseNodes) {
+					boolean expected = u != x && v != x && sparse.areConnected(u, v) && !withoutX.areConnected(u, v);
+					test = test && biconnected.separates(x, u, v) == expected;
+				}
+			}
+		}
+		int nBridges = 0;
+		for (Node u : sparseNodes) {
+			for (Node v : sparse.getNeighbors(u)) {
+				if (u == v) continue;
+				Graph withoutEdge = new Graph("Without " + u + "-" + v);
+				for (Node w : sparseNodes) {
+					withoutEdge.addNode(w);
+					for (Node z : sparse.getNeighbors(w)) if (!(w == u && z == v) && !(w == v && z == u)) withoutEdge.addEdge(w, z);
+				}
+				boolean expected = !withoutEdge.areConnected(u, v);
+				if (expected) nBridges++;
+				test = test && biconnected.isBridge(u, v) == expected;
+			}
+		}
+		test = test && biconnected.getNumberOfBridges() == nBridges / 2 && biconnected.getBridges().size() == nBridges / 2;
+		try {
+			chain.biconnectedComponents();
+			test = false;
+		} catch (IllegalArgumentException expected) {
+			System.out.println("Expected error: " + expected.getMessage());
+		}
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for subgraph views: ***");
+		// Views of the components found by the last DFS must answer as the copies of getCCs do
+		Vector<Graph> copies = sparse.getCCs();
+		Vector<SubgraphView> views = sparse.getCCViews();
+		test = views.size() == copies.size();
+		for (int cc = 0; test && cc < views.size(); cc++) test = testView(views.get(cc), copies.get(cc));
+		// A component of the parallel union-find, and the subgraph induced by half the nodes against a copy of it
+		pool = new ForkJoinPool();
+		ConnectedComponents sparseComponents = sparse.connectedComponents(pool);
+		pool.shutdown();
+		SubgraphView view = sparseComponents.getView(sparseComponents.getComponent(sparseNodes[0]));
+		test = test && view.getN() == sparseComponents.getSize(sparseComponents.getComponent(sparseNodes[0])) && view.containsNode(sparseNodes[0]);
+		List<Node> half = Arrays.asList(sparseNodes).subList(0, nSparse / 2);
+		view = sparse.subgraph("Half", half);
+		Graph induced = induced(sparse, "Half", half);
+		System.out.println(view + " and " + induced);
+		test = test && testView(view, induced) && !view.containsNode(sparseNodes[nSparse - 1]) && view.bfs(sparseNodes[nSparse - 1]) == null;
+		// A view much smaller than its graph keeps the state of its searches by node of the view
+		List<Node> few = Arrays.asList(sparseNodes).subList(0, nSparse / SubgraphView.SMALL_VIEW_RATIO - 1);
+		SubgraphView small = sparse.subgraph("Few", few);
+		Graph fewCopy = induced(sparse, "Few", few);
+		System.out.println(small + " and " + fewCopy);
+		test = test && testView(small, fewCopy);
+		// Every search has a result of its own: a later search doesn't change an earlier one
+		ViewTraversal fewBFS = small.breadthFirst(few.get(0));
+		small.bfs(few.get(1));
+		small.dfs(few.get(1));
+		test = test && fewBFS.getLevels().equals(fewCopy.bfs(few.get(0))) && fewBFS.isReached(few.get(0)) && !fewBFS.isReached(sparseNodes[nSparse - 1]);
+		// Views follow edges added to the graph later, but not nodes
+		sparse.addEdge(sparseNodes[0], sparseNodes[1]);
+		Node late = sparse.addNode(new Node("late"));
+		sparse.addEdge(sparseNodes[0], late);
+		test = test && view.getNeighbors(sparseNodes[0]).contains(sparseNodes[1]) && !view.containsNode(late) && view.getM() >= induced.getM();
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for bulk building a graph from many threads: ***");
+		final int nRandom = 100000;
+		final Node[] randomNodes = new Node[nRandom];
+		final int[][] randomEdges = new int[4 * nRandom][];
+		Graph sequential = new Graph("Sequential");
+		for (int i = 0; i < nRandom; i++) randomNodes[i] = new Node("n" + i);
+		for (int e = 0; e < randomEdges.length; e++) {
+			randomEdges[e] = new int[] { random.nextInt(nRandom), random.nextInt(nRandom) }; // with repeated edges and self loops
+			sequential.addEdge(randomNodes[randomEdges[e][0]], randomNodes[randomEdges[e][1]]);
+		}
+		for (int i = 0; i < nRandom; i++) sequential.addNode(randomNodes[i]);
+		final GraphBuilder builder = new GraphBuilder(nRandom);
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int first = t;
+			threads[t] = new Thread() {
+				public void run() {
+					for (int e = first; e < randomEdges.length; e += 4) builder.addEdge(randomEdges[e][0], randomEdges[e][1]);
+					for (int i = first; i < nRandom; i += 4) builder.setNode(i, randomNodes[i]);
+				}
+			};
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++) {
+			try {
+				threads[t].join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		pool = new ForkJoinPool();
+		Graph built = builder.build("Built", pool);
+		System.out.println(built + " and " + sequential);
+		test = built.getN() == sequential.getN() && built.getM() == sequential.getM();
+		for (int i = 0; i < nRandom; i++)
+			test = test && built.getNeighbors(randomNodes[i]).equals(sequential.getNeighbors(randomNodes[i]));
+		// Building into a graph that already has edges merges them
+		Graph merged = new Graph("Merged");
+		merged.addEdge(randomNodes[1], randomNodes[0]);
+		builder.addTo(merged, pool);
+		test = test && merged.getN() == nRandom && merged.getM() == sequential.getM() + (sequential.getNeighbors(randomNodes[0]).contains(randomNodes[1]) ? 0 : 1);
+		// Edges added after building go to new buffers, and are built with the earlier ones
+		builder.addEdge(0, 2);
+		Graph rebuilt = builder.build("Rebuilt", pool);
+		test = test && rebuilt.getM() == sequential.getM() + (sequential.getNeighbors(randomNodes[0]).contains(randomNodes[2]) ? 0 : 1);
+		pool.shutdown();
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for duplicate edges of a hub: ***");
+		// Hubs check for duplicates in a hash set of their neighbors, also when their lists were installed by a GraphBuilder
+		Graph star = new Graph("Star");
+		GraphBuilder starBuilder = new GraphBuilder(1001);
+		starBuilder.setNode(0, new Node("hub"));
+		for (int i = 1; i <= 1000; i++) {
+			starBuilder.setNode(i, new Node("leaf" + i));
+			if (i % 2 == 0) starBuilder.addEdge(0, i);
+		}
+		pool = new ForkJoinPool();
+		Graph builtStar = starBuilder.build("Built star", pool);
+		pool.shutdown();
+		for (int round = 0; round < 2; round++) {
+			for (int i = 1000; i >= 1; i--) {
+				star.addEdge(new Node("hub"), new Node("leaf" + i));
+				builtStar.addEdge(new Node("hub"), new Node("leaf" + i));
+				builtStar.addEdge(new Node("leaf" + i), new Node("hub"));
+			}
+		}
+		star.addEdge(new Node("hub"), new Node("hub"));
+		star.addEdge(new Node("hub"), new Node("hub"));
+		System.out.println(star + " and " + builtStar);
+		test = star.getM() == 1001 && builtStar.getM() == 1000 && star.getNeighbors(star.getNodeById("hub")).size() == 1001;
+		test = test && builtStar.getNeighbors(builtStar.getNodeById("hub")).contains(new Node("leaf1")) && !star.getNeighbors(star.getNodeById("leaf1")).contains(new Node("leaf2"));
+		System.out.println("Ok=" + test);
+		System.out.println();
+	}
+
+	// Returns a copy of the subgraph of a graph induced by some of its nodes
+	private static Graph induced(Graph graph, String label, List<Node> nodes) {
+		Graph induced = new Graph(label);
+		for (Node u : nodes) {
+			induced.addNode(u);
+			for (Node v : graph.getNeighbors(u)) if (nodes.contains(v)) induced.addEdge(u, v);
+		}
+		return induced;
+	}
+
+	// Checks a subgraph view against a copy of the same subgraph, from every node
+	private static boolean testView(SubgraphView view, Graph copy) {
+		boolean test = view.getN() == copy.getN() && view.getM() == copy.getM() && view.getNodes().equals(copy.getNodes());
+		for (Iterator<Node> it = copy.getNodes().iterator(); it.hasNext(); ) {
+			Node v = it.next();
+			test = test && view.containsNode(v) && view.getNeighbors(v).equals(copy.getNeighbors(v)) && view.bfs(v).equals(copy.bfs(v));
+			test = test && view.dfs(v).size() == copy.dfs(v).size() && view.getNumberOfCCs() == copy.getNumberOfCCs();
+			test = test && view.getArticulationNodes().equals(copy.getArticulationNodes());
+			test = test && view.breadthFirst(v).getLevels().equals(copy.bfs(v)) && view.depthFirst(v).getArticulationNodes().equals(copy.getArticulationNodes());
+			for (Iterator<Node> it2 = copy.getNodes().iterator(); it2.hasNext(); ) {
+				Node u = it2.next();
+				List<Node> path = view.getShortestPath(v, u), expectedPath = copy.getShortestPath(v, u);
+				test = test && (expectedPath == null ? path == null : path != null && path.size() == expectedPath.size());
+			}
+		}
+		return test;
 	}
 }
@@ -0,0 +1,80 @@
+package test;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.Vector;
+
+import puzzle.Board;
+import puzzle.ImplicitGame;
+import datastructures.Node;
+
+public class ImplicitGameTest {
+	// Basic unit test "check-expects": traversals over the implicit game graph, with no populated Game
+	public static void main(String[] args) {
+		ImplicitGame game = new ImplicitGame("ImplicitGame");
+		Board solution = new Board(Board.SOLUTION);
+
+		System.out.println("*** Tests for a bounded BFS: ***");
+		Vector<Set<Node>> bfsLevels = game.bfs(solution, 2);
+		System.out.println("Levels up to distance 2 from solution are: " + bfsLevels);
+		boolean test = bfsLevels.size() == 3 && bfsLevels.get(1).size() == 2 && bfsLevels.get(2).size() == 4;
+		System.out.println(game);
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for a complete BFS: ***");
+		Date startTime = new Date();
+		bfsLevels = game.bfs(solution);
+		Date endTime = new Date();
+		System.out.println(endTime.getTime() - startTime.getTime() + " milliseconds ellapsed");
+		int total = 0;
+		for (Iterator<Set<Node>> it = bfsLevels.iterator(); it.hasNext(); ) total += it.next().size();
+		System.out.println(game + " in " + bfsLevels.size() + " levels");
+		test = bfsLevels.size() == 32 && total == 181440;
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for shortest paths: ***");
+		LinkedList<Node> path = game.getShortestPath(new Board("123456708"), solution);
+		System.out.println("Path from 123456708 to solution is " + path + " and " + game);
+		test = path.size() == 2;
+		path = game.getShortestPath(solution, new Board("867254301"));
+		System.out.println("Distance from solution to 867254301 is " + (path.size()-1) + ", " + game);
+		test = test && path.size() == 32 && ((Board) path.getFirst()).isNeighbor((Board) path.get(1));
+		path = game.getShortestPath(solution, new Board("213456780")); // not reachable: the other half of the boards
+		test = test && path == null;
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for DFS: ***");
+		startTime = new Date();
+		int nTrees = game.dfs(solution).size();
+		endTime = new Date();
+		System.out.println(endTime.getTime() - startTime.getTime() + " milliseconds ellapsed");
+		System.out.println(game + " with " + game.getNumberOfArticulationNodes() + " articulation nodes");
+		test = nTrees == 1 && game.getNumberOfExploredBoards() == 181440 && game.getNumberOfArticulationNodes() == 0;
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for a 2 x 3 game: ***");
+		ImplicitGame small = new ImplicitGame("SmallGame", 2, 3);
+		Board smallSolution = new Board(Board.solution(2, 3), 2, 3);
+		bfsLevels = small.bfs(smallSolution);
+		System.out.println(small + " in " + bfsLevels.size() + " levels");
+		test = bfsLevels.size() == 22 && small.getNumberOfExploredBoards() == 360;
+		path = small.getShortestPath(smallSolution, (Board) bfsLevels.get(21).iterator().next());
+		test = test && path.size() == 22 && ((Board) path.getLast()).getColumns() == 3;
+		// Boards of another shape are not part of the game
+		test = test && small.bfs(solution) == null && small.getShortestPath(smallSolution, solution) == null && game.dfs(smallSolution) == null;
+		try {
+			new ImplicitGame("TooLarge", 5, 4);
+			test = false;
+		} catch (IllegalArgumentException expected) {
+			System.out.println("Expected error: " + expected.getMessage());
+		}
+		System.out.println("Ok=" + test);
+		System.out.println();
+	}
+}
@@ -0,0 +1,55 @@
+package test;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+public class MathTest {
+	// Basic unit test "check-expects": factorials and permutations generation
+	public static void main(String[] args) {
+		System.out.println("*** Tests for factorials: ***");
+		System.out.println("12!=" + util.Math.factorial(12) + ", 20!=" + util.Math.factorial(20) + ", 25!=" + util.Math.bigFactorial(25));
+		boolean test = util.Math.factorial(0) == 1 && util.Math.factorial(12) == 479001600L && util.Math.factorial(13) == 6227020800L;
+		test = test && util.Math.bigFactorial(20).equals(BigInteger.valueOf(util.Math.factorial(20)));
+		try {
+			util.Math.factorial(21);
+			test = false;
+		} catch (ArithmeticException e) {
+			// 21! does not fit in a long
+		}
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for streaming permutations: ***");
+		Set<String> all = new HashSet<String>();
+		String previous = "";
+		for (Iterator<String> it = util.Math.permutations("3120").iterator(); it.hasNext(); ) {
+			String next = it.next();
+			System.out.print(next + " ");
+			test = test && next.compareTo(previous) > 0 && util.Math.rank(next) == all.size(); // lexicographic order
+			all.add(next);
+			previous = next;
+		}
+		System.out.println();
+		test = test && all.size() == 24 && all.equals(util.Math.permutate("0123", 0));
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for permutations by rank ranges: ***");
+		String chars = "012345678";
+		int count = 0;
+		long total = util.Math.factorial(chars.length());
+		for (long from = 0; from < total; from += 100000) { // as if each range was generated by a different thread
+			long to = java.lang.Math.min(from + 100000, total);
+			Iterator<String> it = util.Math.permutations(chars, from, to).iterator();
+			test = test && it.next().equals(util.Math.unrank(chars, from));
+			for (count++; it.hasNext(); count++) it.next();
+		}
+		System.out.println("Generated " + count + " permutations of \"" + chars + "\" in ranges of 100000");
+		test = test && count == 362880 && util.Math.unrank(chars, total - 1).equals("876543210");
+		test = test && util.Math.unrank("0123456789AB", 479001599L).equals("BA9876543210");
+		System.out.println("Ok=" + test);
+		System.out.println();
+	}
+}
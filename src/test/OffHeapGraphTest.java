@@ -0,0 +1,123 @@
+package test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Vector;
+
+import puzzle.Board;
+import puzzle.Game;
+import datastructures.CompactGraph;
+import datastructures.Graph;
+import datastructures.GraphFile;
+import datastructures.Node;
+import datastructures.NodeFactory;
+import datastructures.OffHeapGraph;
+
+public class OffHeapGraphTest {
+	// Basic unit test "check-expects": a graph built off-heap must give the same answers as the same graph on the heap
+	public static void main(String[] args) throws IOException {
+		System.out.println("*** Tests for a simple graph: ***");
+		String[][] edges = { {"A","B"}, {"B","C"}, {"C","A"}, {"C","D"}, {"D","G"}, {"E","F"}, {"F","E"}, {"A","A"} };
+		Graph myGraph = new Graph("G");
+		OffHeapGraph builder = new OffHeapGraph("G", false);
+		for (String[] edge : edges) {
+			myGraph.addEdge(new Node(edge[0]), new Node(edge[1]));
+			builder.addEdge(edge[0], edge[1]);
+		}
+		myGraph.addNode(new Node("H"));
+		builder.addNode("H");
+		builder.addNode("A");
+		test(myGraph, builder.build());
+		try {
+			builder.addEdge("A", "H");
+			System.out.println("Ok=false");
+		} catch (IllegalStateException e) {
+			System.out.println("Expected error: " + e.getMessage());
+		}
+		Graph directed = new Graph("Directed", true);
+		builder = new OffHeapGraph("Directed", true);
+		for (String[] edge : edges) {
+			directed.addEdge(new Node(edge[0]), new Node(edge[1]));
+			builder.addEdge(edge[0], edge[1]);
+		}
+		test(directed, builder.build());
+		System.out.println();
+
+		System.out.println("*** Tests for a random graph: ***");
+		Random random = new Random(42);
+		int n = 100000;
+		Graph randomGraph = new Graph("Random");
+		builder = new OffHeapGraph("Random", false);
+		for (int e = 0; e < 3 * n; e++) {
+			String from = "r" + random.nextInt(n), to = "r" + random.nextInt(n);
+			randomGraph.addEdge(new Node(from), new Node(to));
+			builder.addEdge(from, to);
+		}
+		Date startTime = new Date();
+		CompactGraph offHeap = builder.build();
+		Date endTime = new Date();
+		System.out.println(endTime.getTime() - startTime.getTime() + " milliseconds ellapsed building " + offHeap + " off-heap");
+		boolean test = offHeap.getN() == randomGraph.getN() && offHeap.getM() == randomGraph.getM();
+		for (int k = 0; k < 1000; k++) {
+			Node v = new Node("r" + random.nextInt(n));
+			test = test && (randomGraph.containsNode(v) ? offHeap.getNeighbors(v).equals(randomGraph.getNeighbors(v)) : !offHeap.containsNode(v));
+		}
+		Node source = randomGraph.getNodeById("r0");
+		test = test && offHeap.bfs(source).equals(randomGraph.bfs(source));
+		offHeap.dfs(source);
+		randomGraph.dfs(source);
+		test = test && offHeap.getNumberOfCCs() == randomGraph.getNumberOfCCs() && offHeap.getArticulationNodes().equals(randomGraph.getArticulationNodes());
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for a game graph with Board nodes: ***");
+		Game game = new Game("Game");
+		game.populate(util.Math.permutations("012345678"));
+		builder = new OffHeapGraph("Game", false, new NodeFactory() {
+			public Node createNode(String id) {
+				return new Board(id);
+			}
+		});
+		for (Iterator<Node> it = game.getNodes().iterator(); it.hasNext(); ) {
+			Node v = it.next();
+			for (Iterator<Node> neighbors = game.getNeighbors(v).iterator(); neighbors.hasNext(); ) builder.addEdge(v.getId(), neighbors.next().getId());
+		}
+		CompactGraph offHeapGame = builder.build();
+		Vector<Set<Node>> bfsLevels = offHeapGame.bfs(offHeapGame.getNodeById(Board.SOLUTION));
+		System.out.println(offHeapGame + " has " + bfsLevels.size() + " BFS levels from the solution");
+		test = offHeapGame.getN() == 362880 && offHeapGame.getM() == game.getM() && bfsLevels.size() == 32;
+		test = test && bfsLevels.lastElement().iterator().next() instanceof Board;
+		// Off-heap graphs are saved as any other CompactGraph
+		File file = File.createTempFile("Game", ".graph");
+		GraphFile.save(offHeapGame, file);
+		test = test && Game.load(file).bfs(new Board(Board.SOLUTION)).equals(bfsLevels);
+		file.delete();
+		System.out.println("Ok=" + test);
+		System.out.println();
+	}
+
+	// Checks an off-heap graph against the same graph on the heap, from every node
+	private static void test(Graph expected, CompactGraph graph) {
+		System.out.println(graph + " built off-heap, " + expected + " on the heap");
+		boolean test = graph.getN() == expected.getN() && graph.getM() == expected.getM() && graph.getNodeById("Z") == null;
+		for (Iterator<Node> it = expected.getNodes().iterator(); it.hasNext(); ) {
+			Node v = it.next();
+			test = test && graph.containsNode(v) && graph.getNeighbors(v).equals(expected.getNeighbors(v));
+			test = test && graph.bfs(v).equals(expected.bfs(v));
+			List<Graph> forest = graph.dfs(v);
+			expected.dfs(v);
+			test = test && (!expected.isUndirected() || forest.size() == expected.getNumberOfCCs());
+			for (Iterator<Node> it2 = expected.getNodes().iterator(); it2.hasNext(); ) {
+				Node u = it2.next();
+				List<Node> path = graph.getShortestPath(v, u), expectedPath = expected.getShortestPath(v, u);
+				test = test && (expectedPath == null ? path == null : path != null && path.size() == expectedPath.size());
+			}
+		}
+		System.out.println("Ok=" + test);
+	}
+}
@@ -0,0 +1,122 @@
+package test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+
+import datastructures.ConnectedComponents;
+import datastructures.Graph;
+import datastructures.Node;
+import datastructures.PartitionedGraph;
+import datastructures.PartitionedGraph.Partitioning;
+
+public class PartitionedGraphTest {
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+
+	// Basic unit test "check-expects": a partitioned graph must give the same answers as the graph it was partitioned from
+	public static void main(String[] args) throws IOException {
+		System.out.println("*** Tests for a simple graph: ***");
+		String[][] edges = { {"A","B"}, {"B","C"}, {"C","A"}, {"C","D"}, {"D","G"}, {"E","F"}, {"F","E"}, {"A","A"} };
+		Graph myGraph = new Graph("G");
+		Graph directed = new Graph("Directed", true);
+		for (String[] edge : edges) {
+			myGraph.addEdge(new Node(edge[0]), new Node(edge[1]));
+			directed.addEdge(new Node(edge[0]), new Node(edge[1]));
+		}
+		myGraph.addNode(new Node("H"));
+		for (Partitioning partitioning : Partitioning.values()) {
+			for (int shards = 1; shards <= 4; shards++) {
+				try (PartitionedGraph partitioned = PartitionedGraph.withThreads(myGraph, shards, partitioning)) {
+					test(myGraph, partitioned, myGraph.getNodes(), true);
+				}
+				try (PartitionedGraph partitioned = PartitionedGraph.withThreads(directed, shards, partitioning)) {
+					test(directed, partitioned, directed.getNodes(), true);
+				}
+			}
+		}
+		try (PartitionedGraph partitioned = PartitionedGraph.withThreads(myGraph, 3, Partitioning.RANGE)) {
+			System.out.println(partitioned);
+			boolean test = partitioned.getShard(new Node("A")) == 0 && partitioned.getShard(new Node("H")) == 2 && partitioned.getShard(new Node("Z")) == -1;
+			test = test && partitioned.bfs(new Node("Z")) == null && partitioned.getShortestPath(new Node("A"), new Node("Z")) == null;
+			System.out.println("Ok=" + test);
+		}
+		System.out.println();
+
+		System.out.println("*** Tests for a random graph with worker threads: ***");
+		Random random = new Random(42);
+		int n = 20000;
+		Graph randomGraph = new Graph("Random");
+		for (int e = 0; e < n; e++) randomGraph.addEdge(new Node("r" + random.nextInt(n)), new Node("r" + random.nextInt(n)));
+		Vector<Node> sources = new Vector<Node>();
+		for (int k = 0; k < 5; k++) sources.add(randomGraph.getNodeById("r" + random.nextInt(n)));
+		sources.add(randomGraph.getNodes().iterator().next());
+		for (Partitioning partitioning : Partitioning.values()) {
+			try (PartitionedGraph partitioned = PartitionedGraph.withThreads(randomGraph, 4, partitioning)) {
+				test(randomGraph, partitioned, sources, false);
+			}
+		}
+		System.out.println();
+
+		System.out.println("*** Tests for a random graph with worker processes: ***");
+		Date startTime = new Date();
+		try (PartitionedGraph partitioned = PartitionedGraph.withProcesses(randomGraph, 3, Partitioning.HASH)) {
+			Date endTime = new Date();
+			System.out.println(endTime.getTime() - startTime.getTime() + " milliseconds ellapsed starting " + partitioned);
+			test(randomGraph, partitioned, sources, false);
+			startTime = new Date();
+			partitioned.bfs(sources.firstElement());
+			endTime = new Date();
+			System.out.println(endTime.getTime() - startTime.getTime() + " milliseconds ellapsed in a BFS of " + partitioned.getSupersteps() + " supersteps");
+		}
+		// Workers that cannot start make the setup fail, with no worker left behind
+		String classPath = System.getProperty("java.class.path");
+		System.setProperty("java.class.path", new File(System.getProperty("java.io.tmpdir"), "missing-classes").getPath());
+		startTime = new Date();
+		try (PartitionedGraph partitioned = PartitionedGraph.withProcesses(randomGraph, 3, Partitioning.HASH)) {
+			System.out.println("Ok=false: started " + partitioned);
+		} catch (IOException e) {
+			Date endTime = new Date();
+			System.out.println("Expected error: " + e.getMessage());
+			System.out.println("Ok=" + (endTime.getTime() - startTime.getTime() < 10000));
+		} finally {
+			System.setProperty("java.class.path", classPath);
+		}
+		System.out.println();
+	}
+
+	// Checks a partitioned graph against the graph it was partitioned from, from every given source: BFS levels,
+	// shortest path lengths to every node (if "allPairs", otherwise to a few nodes) and connected components
+	private static void test(Graph expected, PartitionedGraph graph, Iterable<Node> sources, boolean allPairs) throws IOException {
+		boolean test = true;
+		for (Iterator<Node> it = sources.iterator(); it.hasNext(); ) {
+			Node v = it.next();
+			Vector<Set<Node>> bfsLevels = graph.bfs(v);
+			test = test && bfsLevels.equals(expected.bfs(v)) && graph.getSupersteps() <= bfsLevels.size() + 1;
+			Iterator<Node> targets = expected.getNodes().iterator();
+			for (int k = 0; targets.hasNext() && (allPairs || k < 20); k++) {
+				Node u = targets.next();
+				List<Node> path = graph.getShortestPath(v, u), expectedPath = expected.getShortestPath(v, u);
+				test = test && (expectedPath == null ? path == null : path != null && path.size() == expectedPath.size());
+				// Every step of the path must be an edge of the graph
+				for (int i = 0; test && path != null && i + 1 < path.size(); i++) test = expected.getNeighbors(path.get(i)).contains(path.get(i + 1));
+			}
+		}
+		ConnectedComponents components = graph.connectedComponents(), expectedComponents = expected.connectedComponents(POOL);
+		test = test && components.getNumberOfComponents() == expectedComponents.getNumberOfComponents();
+		for (Iterator<Node> it = expected.getNodes().iterator(); it.hasNext(); ) {
+			Node v = it.next();
+			for (Iterator<Node> sourceIt = sources.iterator(); sourceIt.hasNext(); ) {
+				Node u = sourceIt.next();
+				test = test && components.areConnected(u, v) == expectedComponents.areConnected(u, v);
+			}
+		}
+		System.out.println(graph + ": " + components + " in " + graph.getSupersteps() + " supersteps");
+		System.out.println("Ok=" + test);
+	}
+}
@@ -0,0 +1,85 @@
+package test;
+
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.Random;
+
+import puzzle.Board;
+import puzzle.ImplicitGame;
+import puzzle.Solver;
+import datastructures.Node;
+
+public class SolverTest {
+	// Basic unit test "check-expects": solutions found by IDA* must be as short as the ones found by BFS
+	public static void main(String[] args) {
+		System.out.println("*** Tests for 3 x 3 boards: ***");
+		Solver solver = new Solver(Board.SIZE);
+		Date startTime = new Date();
+		Solver pdbSolver = new Solver(Board.SIZE, Solver.defaultPatterns(Board.SIZE));
+		Date endTime = new Date();
+		System.out.println("Pattern databases built in " + (endTime.getTime() - startTime.getTime()) + " milliseconds");
+		ImplicitGame game = new ImplicitGame("ImplicitGame");
+		Board solution = new Board(Board.SOLUTION);
+		String[] boards = { "123456780", "123456708", "867254301", "647850321", "087654321", "012345678" };
+		boolean test = true;
+		for (int i = 0; i < boards.length; i++) {
+			Board board = new Board(boards[i]);
+			LinkedList<Node> expected = game.getShortestPath(board, solution);
+			startTime = new Date();
+			LinkedList<Node> path = solver.solve(board);
+			LinkedList<Node> pdbPath = pdbSolver.solve(board);
+			endTime = new Date();
+			if (expected == null) {
+				System.out.println(board + " cannot reach the solution");
+				test = test && path == null && pdbPath == null;
+			} else {
+				System.out.println(board + " is solved in " + (path.size()-1) + " moves (" + (endTime.getTime() - startTime.getTime()) + " milliseconds)");
+				test = test && path.size() == expected.size() && pdbPath.size() == expected.size();
+				test = test && path.getLast().getId().equals(Board.SOLUTION) && isPath(path) && isPath(pdbPath);
+			}
+		}
+		System.out.println("Ok=" + test);
+		System.out.println();
+
+		System.out.println("*** Tests for a 4 x 4 board: ***");
+		int[] board = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 0 };
+		Random random = new Random(7);
+		int blank = 15;
+		for (int m = 0; m < 60; m++) { // scrambles the goal with random moves
+			int target;
+			do {
+				int direction = random.nextInt(4);
+				target = (direction == 0) ? blank + 4 : (direction == 1) ? blank - 4 : (direction == 2 && blank % 4 < 3) ? blank + 1 : (direction == 3 && blank % 4 > 0) ? blank - 1 : -1;
+			} while (target < 0 || target >= 16);
+			board[blank] = board[target];
+			board[target] = 0;
+			blank = target;
+		}
+		startTime = new Date();
+		Solver solver4 = new Solver(4, Solver.defaultPatterns(4));
+		endTime = new Date();
+		System.out.println("Pattern databases built in " + (endTime.getTime() - startTime.getTime()) + " milliseconds");
+		startTime = new Date();
+		int[] moves = solver4.solve(board);
+		endTime = new Date();
+		System.out.println("Solved in " + moves.length + " moves after expanding " + solver4.getExpandedNodes() + " nodes (" + (endTime.getTime() - startTime.getTime()) + " milliseconds)");
+		int[] unsolvable = { 2, 1, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 0 };
+		test = moves.length <= 60 && solver4.solve(unsolvable) == null;
+		// The same board as a 4 x 4 Board, and boards of other shapes, which the solvers don't take
+		StringBuilder id = new StringBuilder();
+		for (int p = 0; p < board.length; p++) id.append(Character.toUpperCase(Character.forDigit(board[p], 16)));
+		LinkedList<Node> path = solver4.solve(new Board(id.toString(), 4, 4));
+		System.out.println(path.getFirst() + " is solved in " + (path.size()-1) + " moves");
+		test = test && path.size() == moves.length + 1 && path.getLast().getId().equals(Board.solution(4, 4)) && isPath(path);
+		test = test && solver.solve(new Board("123450", 2, 3)) == null && solver4.solve(new Board(Board.SOLUTION)) == null;
+		System.out.println("Ok=" + test);
+		System.out.println();
+	}
+
+	// Produces true if consecutive boards of a path are neighbors
+	private static boolean isPath(LinkedList<Node> path) {
+		for (int i = 1; i < path.size(); i++)
+			if (!((Board) path.get(i-1)).isNeighbor((Board) path.get(i))) return false;
+		return true;
+	}
+}
@@ -3,7 +3,11 @@
  */
 package util;
 
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -11,29 +15,130 @@ import java.util.Set;
  *
  */
 public class Math {
-	public static int factorial(int number) {
-		int fact = 1; // this  will be the result
+	// Largest number whose factorial fits in a long
+	public static final int MAX_LONG_FACTORIAL = 20;
+
+	// Produces number! (throws ArithmeticException if it does not fit in a long: see bigFactorial)
+	public static long factorial(int number) {
+		if (number > MAX_LONG_FACTORIAL) throw new ArithmeticException(number + "! does not fit in a long");
+		long fact = 1; // this  will be the result
         for (int i = 1; i <= number; i++) {
             fact *= i;
         }
         return fact;
 	}
 
+	// Produces number! for any number
+	public static BigInteger bigFactorial(int number) {
+		BigInteger fact = BigInteger.ONE;
+		for (int i = 2; i <= number; i++) {
+			fact = fact.multiply(BigInteger.valueOf(i));
+		}
+		return fact;
+	}
+
 	//Produces a list of all the permutations of the characters in a given string
+	//Note: prefer permutations(String), that generates them one at a time instead of keeping them all in memory
 	public static Set<String> permutate(String chars, int pointer) {
 		Set<String> result = new HashSet<String>();
-		if (pointer == chars.length()) {
-	        //stop-condition: returns list with only the input string
-			result.add(chars);
-	        return result;
-	    }
-	    for (int i = pointer; i < chars.length(); i++) {
-	    	char[] permutation = chars.toCharArray();
-	        permutation[pointer] = chars.charAt(i);
-	        permutation[i] = chars.charAt(pointer);
-	        result.addAll(util.Math.permutate(new String(permutation), pointer + 1));
-	    }
-	    return result;
+		String prefix = chars.substring(0, pointer);
+		for (Iterator<String> it = permutations(chars.substring(pointer)).iterator(); it.hasNext(); ) {
+			result.add(prefix + it.next());
+		}
+		return result;
+	}
+
+	// Produces all the permutations of the (distinct) characters in a given string, in lexicographic order.
+	// They are generated lazily, one at a time, so memory use does not depend on how many they are.
+	public static Iterable<String> permutations(String chars) {
+		return permutations(chars, 0, factorial(chars.length()));
+	}
+
+	// Produces the permutations with ranks in [fromRank, toRank) of the (distinct) characters in a given string,
+	// in lexicographic order (see unrank). Disjoint rank ranges can be generated by different threads.
+	public static Iterable<String> permutations(final String chars, final long fromRank, final long toRank) {
+		if (fromRank < 0 || fromRank > toRank || toRank > factorial(chars.length()))
+			throw new IllegalArgumentException("Invalid rank range [" + fromRank + ", " + toRank + ")");
+		return new Iterable<String>() {
+			public Iterator<String> iterator() {
+				return new PermutationIterator(unrank(chars, fromRank).toCharArray(), toRank - fromRank);
+			}
+		};
+	}
+
+	// Produces the permutation of the (distinct) characters in a given string with a given rank in lexicographic
+	// order: rank 0 is the characters sorted and rank chars.length()!-1 is the characters in reverse order
+	public static String unrank(String chars, long rank) {
+		char[] unused = chars.toCharArray();
+		Arrays.sort(unused);
+		char[] permutation = new char[unused.length];
+		for (int p = 0; p < permutation.length; p++) {
+			long weight = factorial(permutation.length - 1 - p);
+			int digit = (int) (rank / weight);
+			rank %= weight;
+			// Takes the (digit+1)-th smallest character not used yet
+			permutation[p] = unused[digit];
+			System.arraycopy(unused, digit + 1, unused, digit, unused.length - 1 - p - digit);
+		}
+		return new String(permutation);
+	}
+
+	// Produces the lexicographic rank of a permutation of distinct characters (the inverse of unrank)
+	public static long rank(String permutation) {
+		long rank = 0;
+		for (int p = 0; p < permutation.length(); p++) {
+			int smaller = 0; // characters after position p smaller than the one at p
+			for (int q = p + 1; q < permutation.length(); q++) {
+				if (permutation.charAt(q) < permutation.charAt(p)) smaller++;
+			}
+			rank += smaller * factorial(permutation.length() - 1 - p);
+		}
+		return rank;
+	}
+
+	// Iterates over a given number of permutations in lexicographic order, from a given one,
+	// stepping from each permutation to the next in place
+	private static final class PermutationIterator implements Iterator<String> {
+		private final char[] current;
+		private long remaining;
+
+		PermutationIterator(char[] first, long count) {
+			this.current = first;
+			this.remaining = count;
+		}
+
+		public boolean hasNext() {
+			return this.remaining > 0;
+		}
+
+		public String next() {
+			if (!this.hasNext()) throw new NoSuchElementException();
+			String result = new String(this.current);
+			if (--this.remaining > 0) nextPermutation(this.current);
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	// Rearranges an array into the next permutation in lexicographic order; produces false if it was the last one
+	private static boolean nextPermutation(char[] chars) {
+		int i = chars.length - 2;
+		while (i >= 0 && chars[i] >= chars[i + 1]) i--;
+		if (i < 0) return false;
+		int j = chars.length - 1;
+		while (chars[j] <= chars[i]) j--;
+		char temp = chars[i];
+		chars[i] = chars[j];
+		chars[j] = temp;
+		for (int l = i + 1, r = chars.length - 1; l < r; l++, r--) {
+			temp = chars[l];
+			chars[l] = chars[r];
+			chars[r] = temp;
+		}
+		return true;
 	}
 
 }
@@ -0,0 +1 @@
+java -Xms2g -cp "../bin;../lib/*" benchmark.GraphBenchmarks > Benchmarks.out
\ No newline at end of file
@@ -1 +1 @@
-java -Xms2g -Xss2g -cp "../bin;../lib/*" test.GameTest > GameTest.out
\ No newline at end of file
+java -Xms2g -cp "../bin;../lib/*" test.GameTest > GameTest.out
\ No newline at end of file